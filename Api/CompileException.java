@@ -0,0 +1,30 @@
+package Api;
+
+import Exceptions.InterpreterException;
+import java.util.List;
+@SuppressWarnings("serial")
+
+/**
+
+  Thrown by a Compiler for a program it cannot compile, with the phase that failed
+  (lex, parse, standardize or the name of a tree pass) and each error it reported.
+
+ **/
+public class CompileException extends InterpreterException {
+    private final String phase;
+    private final List<String> errors;
+
+    public CompileException(String phase, List<String> errors) {
+        super(phase + " failed: " + String.join("\n", errors));
+        this.phase = phase;
+        this.errors = List.copyOf(errors);
+    }
+
+    public String getPhase() {
+        return this.phase;
+    }
+
+    public List<String> getErrors() {
+        return this.errors;
+    }
+}
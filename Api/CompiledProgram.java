@@ -0,0 +1,185 @@
+package Api;
+
+import Builtins.BuiltinRegistry;
+import CSE.CSEEngine;
+import CSE.Engine;
+import Closure.ClosureEngine;
+import Exceptions.LimitExceededException;
+import Jvm.JvmEngine;
+import Output.OutputSink;
+import Standardizer.AST;
+import Standardizer.Node;
+import Symbols.Symbol;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+
+  A program compiled by a Compiler: its standardized tree, after the tree passes, and the
+  builtins it runs with. The tree is never changed after compiling (engines only read
+  it), so execute() may be called any number of times, from any number of threads at
+  once; each execution gets its own engine, machine and output. With a ResultCache in
+  the options, a successful result cached for the same source, passes and engine mode is
+  returned without executing; its Print output is then written to the sink of the options
+  at the end of the execution instead of as it runs.
+
+ **/
+public class CompiledProgram {
+    private final AST ast;
+    private final BuiltinRegistry registry;
+    private final String sourceHash;
+    private final List<String> syntaxTree;
+    private final List<String> passes;
+
+    CompiledProgram(AST ast, BuiltinRegistry registry, String sourceHash, List<String> syntaxTree, List<String> passes) {
+        this.ast = ast;
+        this.registry = registry;
+        this.sourceHash = sourceHash;
+        this.syntaxTree = syntaxTree;
+        this.passes = passes;
+    }
+
+    /**
+
+        @return The SHA-256 of the source text, in hexadecimal
+
+     **/
+    public String getSourceHash() {
+        return this.sourceHash;
+    }
+
+    /**
+
+        @return The fingerprints (Pass.getFingerprint) of the passes run on the standardized
+                tree, in order
+
+     **/
+    public List<String> getPassFingerprints() {
+        return this.passes;
+    }
+
+    /**
+
+        @return The lines of the serialized AST, as printed by -ast
+
+     **/
+    public List<String> getSyntaxTree() {
+        return this.syntaxTree;
+    }
+
+    /**
+
+        @return The lines of the standardized tree after the passes, as printed by -st
+
+     **/
+    public List<String> getStandardizedTree() {
+        ArrayList<String> lines = new ArrayList<String>();
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        ArrayList<Integer> depths = new ArrayList<Integer>();
+        nodes.add(this.ast.getRoot());
+        depths.add(0);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.remove(nodes.size() - 1);
+            int depth = depths.remove(depths.size() - 1);
+            lines.add(".".repeat(depth) + node.getData());
+            for (int i = node.children.size() - 1; i >= 0; i--) {
+                nodes.add(node.children.get(i));
+                depths.add(depth + 1);
+            }
+        }
+        return lines;
+    }
+
+    /**
+
+        Executes the program with the default options: on the CSE machine, collecting
+        the Print output, without limits.
+
+     **/
+    public ExecutionResult execute() {
+        return this.execute(new ExecutionOptions());
+    }
+
+    /**
+
+        Executes the program.
+
+        @param options The engine, output and limits of the run
+        @return The final value and Print output, or the error the program stopped with
+        @throws IllegalArgumentException if the options select an unknown engine or a mode
+                                         or limits the engine does not support
+
+     **/
+    public ExecutionResult execute(ExecutionOptions options) {
+        Engine engine = this.getEngine(options);
+        ResultCache cache = options.getCache();
+        if (cache == null) {
+            return this.execute(engine, options.getOutput());
+        }
+
+        long start = System.nanoTime();
+        String key = ResultCache.getKey(this, options);
+        ResultCache.Entry entry = options.isCacheBypass() ? null : cache.get(key);
+        if (entry != null) {
+            if (options.getOutput() != null) {
+                options.getOutput().append(entry.getOutput());
+                return ExecutionResult.cached(entry.getAnswer(), null, System.nanoTime() - start);
+            }
+            return ExecutionResult.cached(entry.getAnswer(), entry.getOutput(), System.nanoTime() - start);
+        }
+        // Collected to be stored, then copied to the sink of the options
+        ExecutionResult result = this.execute(engine, null);
+        if (result.isSuccess()) {
+            cache.put(key, new ResultCache.Entry(result.getAnswer(), result.getOutput()));
+        }
+        if (options.getOutput() == null) {
+            return result;
+        }
+        options.getOutput().append(result.getOutput());
+        return result.isSuccess() ? ExecutionResult.success(result.getValue(), null, result.getNanos())
+                : ExecutionResult.failure(result.getError(), null, result.getNanos());
+    }
+
+    // Executes on the engine, writing to the sink, or collecting the output if it is null
+    private ExecutionResult execute(Engine engine, OutputSink sink) {
+        OutputSink output = sink != null ? sink : OutputSink.memory();
+        long start = System.nanoTime();
+        try {
+            Symbol value = engine.execute(this.ast, output);
+            return ExecutionResult.success(value, this.getOutput(sink, output), System.nanoTime() - start);
+        } catch (LimitExceededException e) {
+            ExecutionError error = new ExecutionError(ExecutionError.Kind.LIMIT, e.getMessage(), e.getLimit(), e);
+            return ExecutionResult.failure(error, this.getOutput(sink, output), System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            ExecutionError error = new ExecutionError(ExecutionError.Kind.RUNTIME, e.toString(), null, e);
+            return ExecutionResult.failure(error, this.getOutput(sink, output), System.nanoTime() - start);
+        } catch (StackOverflowError e) {
+            ExecutionError error = new ExecutionError(ExecutionError.Kind.INTERNAL, "Stack overflow", null, e);
+            return ExecutionResult.failure(error, this.getOutput(sink, output), System.nanoTime() - start);
+        }
+    }
+
+    // Output collected for the result, when it was not sent to a sink
+    private String getOutput(OutputSink sink, OutputSink output) {
+        return sink != null ? null : output.getContents();
+    }
+
+    private Engine getEngine(ExecutionOptions options) {
+        if (options.getEngine().equals("cse")) {
+            CSEEngine cse = new CSEEngine(this.registry);
+            cse.setLazy(options.isLazy());
+            cse.setParallel(options.isParallel(), CSE.MachineConstructor.DEFAULT_PARALLEL_THRESHOLD);
+            cse.setLimits(options.getMaxSteps(), options.getTimeout(), options.getMaxDepth());
+            return cse;
+        }
+        if (options.isLazy() || options.isParallel() || options.isLimited()) {
+            throw new IllegalArgumentException("Engine " + options.getEngine() + " supports no modes or limits");
+        }
+        if (options.getEngine().equals("closure")) {
+            return new ClosureEngine(this.registry);
+        } else if (options.getEngine().equals("jvm")) {
+            return new JvmEngine(this.registry);
+        }
+        throw new IllegalArgumentException("Unknown engine " + options.getEngine());
+    }
+}
@@ -0,0 +1,183 @@
+package Api;
+
+import Builtins.BuiltinRegistry;
+import Exceptions.InterpreterException;
+import Lexer.LexicalAnalyser;
+import Lexer.Token;
+import Parser.Node;
+import Parser.Parser;
+import Standardizer.AST;
+import Standardizer.ASTConstructor;
+import Standardizer.Pass;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+
+  Library entry point: compiles RPAL source (lex, parse, standardize and the tree passes)
+  once into a CompiledProgram to be executed any number of times. Unlike
+  Interpreter.runProgram nothing is printed; errors are thrown as a CompileException.
+  Passes are given as factories, as a pass object may keep state while it applies, so
+  a Compiler may compile on several threads at once once set up. Import it by name
+  (import Api.Compiler), as java.lang.Compiler hides it from on-demand imports.
+
+  For example:
+
+    CompiledProgram program = new Compiler().compile("let rec F n = n eq 0 -> 1 | n * F (n-1) in F 5");
+    ExecutionResult result = program.execute(new ExecutionOptions().setMaxSteps(1000000));
+    if (result.isSuccess()) {
+        System.out.println(result.getAnswer());
+    }
+
+ **/
+public class Compiler {
+    private final BuiltinRegistry registry;
+    private final ArrayList<Supplier<Pass>> passes = new ArrayList<Supplier<Pass>>();
+
+    /**
+
+        A compiler for programs using the core builtins and the standard library.
+
+     **/
+    public Compiler() {
+        this(BuiltinRegistry.withStandardLibrary());
+    }
+
+    /**
+
+        @param registry The builtins free identifiers of the programs resolve to
+
+     **/
+    public Compiler(BuiltinRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+
+        @return The builtins free identifiers of the programs resolve to
+
+     **/
+    public BuiltinRegistry getRegistry() {
+        return this.registry;
+    }
+
+    /**
+
+        Adds a pass run on the standardized tree of every program compiled, after those added before.
+
+        @param pass Creates the pass, once per program
+
+     **/
+    public Compiler addPass(Supplier<Pass> pass) {
+        this.passes.add(pass);
+        return this;
+    }
+
+    /**
+
+        @param source The program text
+        @return The compiled program
+        @throws CompileException if the program is empty or has lexical or syntax errors,
+                                 or a pass rejects it
+
+     **/
+    public CompiledProgram compile(String source) throws CompileException {
+        List<Token> tokens;
+        try {
+            tokens = new LexicalAnalyser(new StringReader(source)).scan();
+        } catch (InterpreterException e) {
+            throw new CompileException("lex", List.of(e.getMessage()));
+        }
+        if (tokens.isEmpty()) {
+            throw new CompileException("lex", List.of("Program is Empty"));
+        }
+
+        Parser parser = new Parser(tokens);
+        parser.setQuiet(true);
+        ArrayList<String> stringAST;
+        try {
+            List<Node> nodes = parser.parse();
+            if (nodes == null || !parser.getErrors().isEmpty()) {
+                throw new CompileException("parse", parser.getErrors());
+            }
+            stringAST = parser.serializeAST();
+        } catch (RuntimeException e) {
+            // The parser may run off the end of the tokens after an error
+            throw new CompileException("parse", parser.getErrors().isEmpty() ? List.of(e.toString()) : parser.getErrors());
+        }
+
+        List<String> syntaxTree = List.copyOf(stringAST);
+        AST ast;
+        try {
+            ast = new ASTConstructor().getAbstractSyntaxTree(stringAST);
+            ast.standardize();
+        } catch (RuntimeException e) {
+            throw new CompileException("standardize", List.of(e.toString()));
+        }
+
+        ArrayList<String> fingerprints = new ArrayList<String>();
+        for (Supplier<Pass> factory : this.passes) {
+            Pass pass = factory.get();
+            fingerprints.add(pass.getFingerprint());
+            try {
+                pass.apply(ast);
+            } catch (InterpreterException e) {
+                throw new CompileException(pass.getName(), List.of(e.getMessage()));
+            }
+        }
+        return new CompiledProgram(ast, this.registry, getHash(source), syntaxTree, fingerprints);
+    }
+
+    /**
+
+        @param source Reader of the program text, read to the end but not closed
+
+     **/
+    public CompiledProgram compile(Reader source) throws CompileException, IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        int n;
+        while ((n = source.read(buffer)) >= 0) {
+            text.append(buffer, 0, n);
+        }
+        return this.compile(text.toString());
+    }
+
+    /**
+
+        @param source Path of a UTF-8 source file
+
+     **/
+    public CompiledProgram compile(Path source) throws CompileException, IOException {
+        return this.compile(Files.readString(source, StandardCharsets.UTF_8));
+    }
+
+    /**
+
+        @param source Program text
+        @return The SHA-256 of the text, in hexadecimal
+
+     **/
+    public static String getHash(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package Api;
+
+/**
+
+  Why an execution of a CompiledProgram failed.
+
+    RUNTIME  - The program went wrong: an operator or builtin applied to a value of the
+               wrong type, a division by zero, a missing tuple component, ...
+    LIMIT    - The run went past a limit of its ExecutionOptions, or was interrupted;
+               getLimit() names it
+    INTERNAL - The engine itself failed, e.g. the Java stack overflowed on a compiled engine
+
+ **/
+public class ExecutionError {
+    public enum Kind { RUNTIME, LIMIT, INTERNAL }
+
+    private final Kind kind;
+    private final String message;
+    private final String limit;
+    private final Throwable cause;
+
+    public ExecutionError(Kind kind, String message, String limit, Throwable cause) {
+        this.kind = kind;
+        this.message = message;
+        this.limit = limit;
+        this.cause = cause;
+    }
+
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+
+        @return steps, time, depth or interrupted for LIMIT errors, otherwise null
+
+     **/
+    public String getLimit() {
+        return this.limit;
+    }
+
+    /**
+
+        @return The exception the engine stopped with
+
+     **/
+    public Throwable getCause() {
+        return this.cause;
+    }
+
+    @Override
+    public String toString() {
+        return this.kind + ": " + this.message;
+    }
+}
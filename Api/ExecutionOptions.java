@@ -0,0 +1,162 @@
+package Api;
+
+import Output.OutputSink;
+
+/**
+
+  How to execute a CompiledProgram: the engine (cse, closure or jvm) and its mode, where
+  Print output goes and the resource limits of the run. Limits are enforced by the CSE
+  machine only, so the other engines cannot be given any. Options are read when an
+  execution starts; they should not be changed while executions using them run.
+  Successful results may be kept in a ResultCache given by setCache.
+
+ **/
+public class ExecutionOptions {
+    private String engine = "cse";
+    private boolean isLazy = false;
+    private boolean isParallel = false;
+    private OutputSink output = null;
+    private long maxSteps = 0;
+    private long timeoutMillis = 0;
+    private int maxDepth = 0;
+    private ResultCache cache = null;
+    private boolean isCacheBypass = false;
+
+    /**
+
+        @param engine cse (the default), closure or jvm
+
+     **/
+    public ExecutionOptions setEngine(String engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+
+        @param isLazy Whether to evaluate call-by-need, on the CSE machine
+
+     **/
+    public ExecutionOptions setLazy(boolean isLazy) {
+        this.isLazy = isLazy;
+        return this;
+    }
+
+    /**
+
+        @param isParallel Whether to evaluate heavy tuple components in parallel, on the CSE machine
+
+     **/
+    public ExecutionOptions setParallel(boolean isParallel) {
+        this.isParallel = isParallel;
+        return this;
+    }
+
+    /**
+
+        @param output Destination of Print output, or null (the default) to collect it in
+                      the result. A sink must not be shared by concurrent executions.
+
+     **/
+    public ExecutionOptions setOutput(OutputSink output) {
+        this.output = output;
+        return this;
+    }
+
+    /**
+
+        @param maxSteps Steps of the CSE machine a run may take, 0 for no limit
+
+     **/
+    public ExecutionOptions setMaxSteps(long maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    /**
+
+        @param timeoutMillis Milliseconds a run may take, 0 for no limit
+
+     **/
+    public ExecutionOptions setTimeout(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+
+        @param maxDepth Environments that may be live at once (nested calls), 0 for no limit
+
+     **/
+    public ExecutionOptions setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+
+        @param cache Where results of successful executions are kept and looked up, or
+                     null (the default) to always execute
+
+     **/
+    public ExecutionOptions setCache(ResultCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+
+        @param isCacheBypass Whether to execute even when the cache has the result, and
+                             store the new one in its place
+
+     **/
+    public ExecutionOptions setCacheBypass(boolean isCacheBypass) {
+        this.isCacheBypass = isCacheBypass;
+        return this;
+    }
+
+    public String getEngine() {
+        return this.engine;
+    }
+
+    public boolean isLazy() {
+        return this.isLazy;
+    }
+
+    public boolean isParallel() {
+        return this.isParallel;
+    }
+
+    public OutputSink getOutput() {
+        return this.output;
+    }
+
+    public long getMaxSteps() {
+        return this.maxSteps;
+    }
+
+    public long getTimeout() {
+        return this.timeoutMillis;
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public ResultCache getCache() {
+        return this.cache;
+    }
+
+    public boolean isCacheBypass() {
+        return this.isCacheBypass;
+    }
+
+    /**
+
+        @return Whether any resource limit is set
+
+     **/
+    public boolean isLimited() {
+        return this.maxSteps > 0 || this.timeoutMillis > 0 || this.maxDepth > 0;
+    }
+}
@@ -0,0 +1,92 @@
+package Api;
+
+import Output.ValueWriter;
+import Symbols.Symbol;
+
+/**
+
+  The outcome of an execution of a CompiledProgram: the final value of the program, or
+  the error it stopped with, together with its Print output and the time it took.
+  Results found in a ResultCache have the answer and output but no value.
+
+ **/
+public class ExecutionResult {
+    private final Symbol value;
+    private final String answer;
+    private final ExecutionError error;
+    private final String output;
+    private final long nanos;
+
+    private ExecutionResult(Symbol value, String answer, ExecutionError error, String output, long nanos) {
+        this.value = value;
+        this.answer = answer;
+        this.error = error;
+        this.output = output;
+        this.nanos = nanos;
+    }
+
+    public static ExecutionResult success(Symbol value, String output, long nanos) {
+        return new ExecutionResult(value, null, null, output, nanos);
+    }
+
+    public static ExecutionResult cached(String answer, String output, long nanos) {
+        return new ExecutionResult(null, answer, null, output, nanos);
+    }
+
+    public static ExecutionResult failure(ExecutionError error, String output, long nanos) {
+        return new ExecutionResult(null, null, error, output, nanos);
+    }
+
+    public boolean isSuccess() {
+        return this.error == null;
+    }
+
+    /**
+
+        @return Whether the result was found in a ResultCache instead of executing
+
+     **/
+    public boolean isCached() {
+        return this.answer != null;
+    }
+
+    /**
+
+        @return The final value of the program, or null if it failed or was cached
+
+     **/
+    public Symbol getValue() {
+        return this.value;
+    }
+
+    /**
+
+        @return The final value in the text form Print shows it, or null if the program failed
+
+     **/
+    public String getAnswer() {
+        return this.answer != null ? this.answer : this.value == null ? null : ValueWriter.toString(this.value);
+    }
+
+    /**
+
+        @return Why the program failed, or null if it succeeded
+
+     **/
+    public ExecutionError getError() {
+        return this.error;
+    }
+
+    /**
+
+        @return The Print output, up to the failure if any; null when it went to a sink given in the options
+
+     **/
+    public String getOutput() {
+        return this.output;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+}
@@ -0,0 +1,324 @@
+package Api;
+
+import CSE.Interpreter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+
+  Results of successful executions, keyed by the SHA-256 of the source text, the
+  interpreter version, the passes (by Pass.getFingerprint, which covers parameters such
+  as the values a Specializer binds) and the engine and its mode. RPAL programs read no
+  input, so a program gives the same answer and Print output whenever it runs; limits
+  are not part of the key, as a program that finishes gives the same result under any
+  limits. Failed executions are never cached. Programs compiled with builtins other than
+  the standard library should not share a cache with others.
+
+  Results are kept in two tiers: the most recently used memoryEntries in memory and,
+  if the cache has a directory, all of them on disk as one file per result, up to
+  maxDiskBytes, beyond which the least recently used files are deleted. Files are
+  written to a temporary name and moved into place, so processes may share a directory.
+  A cache may be used from any number of threads.
+
+ **/
+public class ResultCache {
+    public static final int DEFAULT_MEMORY_ENTRIES = 1024;
+    public static final long DEFAULT_DISK_BYTES = 256L * 1024 * 1024;
+
+    private static final int MAGIC = 0x52504352;    // "RPCR"
+
+    /**
+
+        A cached result: the final value, as Print shows it, and the Print output.
+
+     **/
+    public static class Entry {
+        private final String answer;
+        private final String output;
+
+        public Entry(String answer, String output) {
+            this.answer = answer;
+            this.output = output;
+        }
+
+        public String getAnswer() {
+            return this.answer;
+        }
+
+        public String getOutput() {
+            return this.output;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> memory;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private long diskBytes;
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+
+        A cache in memory only.
+
+     **/
+    public ResultCache(int memoryEntries) {
+        this.memory = newMemory(memoryEntries);
+        this.directory = null;
+        this.maxDiskBytes = 0;
+    }
+
+    /**
+
+        A cache in memory and in a directory, created if missing.
+
+        @param directory     Where the results are stored, possibly by earlier runs
+        @param memoryEntries Results kept in memory
+        @param maxDiskBytes  Bytes of the result files kept in the directory
+
+     **/
+    public ResultCache(Path directory, int memoryEntries, long maxDiskBytes) throws IOException {
+        this.memory = newMemory(memoryEntries);
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        Files.createDirectories(directory);
+        this.diskBytes = this.getFiles().stream().mapToLong(file -> file.size).sum();
+    }
+
+    // Results by key, least recently used first
+    private static LinkedHashMap<String, Entry> newMemory(int memoryEntries) {
+        return new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return this.size() > memoryEntries;
+            }
+        };
+    }
+
+    /**
+
+        @return The key of the result of a program executed with the given options
+
+     **/
+    public static String getKey(CompiledProgram program, ExecutionOptions options) {
+        return Compiler.getHash(String.join("\n", program.getSourceHash(), Interpreter.VERSION,
+                String.join(",", program.getPassFingerprints()), options.getEngine(),
+                options.isLazy() ? "lazy" : "eager", options.isParallel() ? "parallel" : "sequential"));
+    }
+
+    /**
+
+        @return The result cached under the key, or null if there is none
+
+     **/
+    public Entry get(String key) {
+        synchronized (this.memory) {
+            Entry entry = this.memory.get(key);
+            if (entry != null) {
+                this.memoryHits.incrementAndGet();
+                return entry;
+            }
+        }
+        Entry entry = this.directory == null ? null : this.read(key);
+        if (entry == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.diskHits.incrementAndGet();
+        synchronized (this.memory) {
+            this.memory.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+
+        Caches a result under the key, replacing any there.
+
+     **/
+    public void put(String key, Entry entry) {
+        this.stores.incrementAndGet();
+        synchronized (this.memory) {
+            this.memory.put(key, entry);
+        }
+        if (this.directory != null) {
+            this.write(key, entry);
+        }
+    }
+
+    /**
+
+        Forgets every result, in memory and on disk.
+
+     **/
+    public void invalidate() throws IOException {
+        synchronized (this.memory) {
+            this.memory.clear();
+        }
+        if (this.directory != null) {
+            for (CachedFile file : this.getFiles()) {
+                Files.deleteIfExists(file.path);
+            }
+            synchronized (this) {
+                this.diskBytes = 0;
+            }
+        }
+    }
+
+    public long getMemoryHits() {
+        return this.memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return this.diskHits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+
+        Writes the counters of the cache.
+
+     **/
+    public void report(PrintStream out) {
+        out.println("result cache: " + this.memoryHits + " memory hits, " + this.diskHits + " disk hits, "
+                + this.misses + " misses, " + this.stores + " stored, " + this.evictions + " evicted");
+    }
+
+    private Path getPath(String key) {
+        return this.directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    // The result in the file of the key, or null if there is none or it is unreadable
+    private Entry read(String key) {
+        Path path = this.getPath(key);
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a cached result");
+            }
+            Entry entry = new Entry(readString(in), readString(in));
+            // Files are evicted least recently used first
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return entry;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // Another process may have it open
+            }
+            return null;
+        }
+    }
+
+    private void write(String key, Entry entry) {
+        Path path = this.getPath(key);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            writeString(out, entry.getAnswer());
+            writeString(out, entry.getOutput());
+            Files.createDirectories(path.getParent());
+            Path temporary = Files.createTempFile(path.getParent(), key, ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                this.diskBytes += bytes.size();
+                if (this.diskBytes > this.maxDiskBytes) {
+                    this.evict();
+                }
+            }
+        } catch (IOException e) {
+            // The result is still cached in memory
+        }
+    }
+
+    // Deletes the least recently used files until the directory is within its size
+    private void evict() throws IOException {
+        ArrayList<CachedFile> files = this.getFiles();
+        files.sort((a, b) -> Long.compare(a.time, b.time));
+        long total = files.stream().mapToLong(file -> file.size).sum();
+        for (int i = 0; i < files.size() && total > this.maxDiskBytes; i++) {
+            Files.deleteIfExists(files.get(i).path);
+            total -= files.get(i).size;
+            this.evictions.incrementAndGet();
+        }
+        this.diskBytes = total;
+    }
+
+    // A result file, with its size and last use
+    private static class CachedFile {
+        final Path path;
+        final long size;
+        final long time;
+
+        CachedFile(Path path, long size, long time) {
+            this.path = path;
+            this.size = size;
+            this.time = time;
+        }
+    }
+
+    // The result files in the directory, including those of other processes
+    private ArrayList<CachedFile> getFiles() throws IOException {
+        ArrayList<CachedFile> files = new ArrayList<CachedFile>();
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(this.directory, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (Stream<Path> paths = Files.list(shard)) {
+                    for (Path path : (Iterable<Path>) paths::iterator) {
+                        if (path.getFileName().toString().endsWith(".tmp")) {
+                            // Being written
+                            continue;
+                        }
+                        try {
+                            files.add(new CachedFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+                        } catch (NoSuchFileException e) {
+                            // Evicted by another process meanwhile
+                        }
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Bad string length " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Truncated string");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+package Batch;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+
+  Resolves the files of a batch. Each input is one of
+
+    @manifest - A file listing one path per line, relative to the manifest's directory;
+                blank lines and lines starting with # are skipped
+    directory - Every .rpal file below it, in sorted order
+    glob      - The files matching a glob such as tests/**.rpal, in sorted order; the part
+                before the first wildcard names the directory searched
+    file      - That file
+
+  Files are kept in the order of the inputs, so the order of a batch never depends on
+  the file system.
+
+ **/
+public class BatchInput {
+
+    private BatchInput() {
+
+    }
+
+    public static List<Path> resolve(List<String> inputs) throws IOException {
+        ArrayList<Path> files = new ArrayList<Path>();
+        for (String input : inputs) {
+            files.addAll(resolve(input));
+        }
+        return files;
+    }
+
+    public static List<Path> resolve(String input) throws IOException {
+        if (input.startsWith("@")) {
+            Path manifest = Paths.get(input.substring(1));
+            Path directory = manifest.toAbsolutePath().getParent();
+            ArrayList<Path> files = new ArrayList<Path>();
+            for (String line : Files.readAllLines(manifest)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    files.add(directory.resolve(line).normalize());
+                }
+            }
+            return files;
+        }
+        int wildcard = indexOfWildcard(input);
+        if (wildcard >= 0) {
+            int slash = input.lastIndexOf('/', wildcard);
+            Path directory = Paths.get(slash < 0 ? "." : slash == 0 ? "/" : input.substring(0, slash));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input.substring(slash + 1));
+            return walk(directory, file -> matcher.matches(directory.relativize(file)));
+        }
+        Path path = Paths.get(input);
+        if (Files.isDirectory(path)) {
+            return walk(path, file -> file.getFileName().toString().endsWith(".rpal"));
+        }
+        return List.of(path);
+    }
+
+    private static int indexOfWildcard(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if ("*?[{".indexOf(input.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Path> walk(Path directory, Predicate<Path> filter) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).filter(filter).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package Batch;
+
+import Api.CompileException;
+import Api.CompiledProgram;
+import Api.Compiler;
+import Api.ExecutionOptions;
+import Api.ExecutionResult;
+import Api.ResultCache;
+import Standardizer.CommonSubexpressions;
+import Standardizer.LambdaLifter;
+import Standardizer.TypeInference;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+
+  Runs a batch of RPAL files in one JVM, so JVM startup and JIT warm-up are paid once for
+  the batch instead of once per file. Files are compiled and executed through the Api
+  package on a pool of jobs threads; each gets its own output, and whatever a file does
+  (syntax error, runtime error, limit, stack overflow, unreadable file) ends up in its
+  FileResult instead of stopping the batch. Results are reported in the order of the
+  files whatever order they finish in; at most WINDOW_PER_JOB files per thread are in
+  flight, so memory does not grow with the batch.
+
+  Usage: java Batch.BatchRunner [options] input ...
+
+    input           A directory, glob, @manifest or file (see BatchInput)
+    --jobs=N        Threads running files (default the number of processors)
+    --report=FILE   Write the results as tab separated values (default the standard output)
+    --json=FILE     Also write them as JSON
+    --timeout=MS --max-steps=N --max-depth=N
+                    Limits of each file on the CSE machine
+    -lazy -parallel -lift -common -types --engine=cse|closure|jvm
+                    As for myrpal
+    --cache=DIR     Keep the results of successful files in a ResultCache in DIR, and take
+                    those of unchanged files from it instead of running them
+    --cache-mb=N    Megabytes of results kept in DIR (default 256)
+    --cache-bypass  Run every file, replacing its cached result
+    --cache-invalidate
+                    Empty the cache first
+
+  A summary, with the hits and misses of the cache, goes to the standard error; the exit
+  status is 1 if any file failed.
+
+ **/
+public class BatchRunner {
+    public static final int WINDOW_PER_JOB = 4;
+
+    private final Compiler compiler;
+    private final ExecutionOptions options;
+    private final int jobs;
+
+    public BatchRunner(Compiler compiler, ExecutionOptions options, int jobs) {
+        this.compiler = compiler;
+        this.options = options;
+        this.jobs = jobs;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Compiler compiler = new Compiler();
+        ExecutionOptions options = new ExecutionOptions();
+        int jobs = Runtime.getRuntime().availableProcessors();
+        String report = null;
+        String json = null;
+        ArrayList<String> inputs = new ArrayList<String>();
+        ArrayList<String> cacheArgs = new ArrayList<String>();
+        for (String arg : args) {
+            if (arg.startsWith("--cache")) {
+                cacheArgs.add(arg);
+            } else if (arg.startsWith("--jobs=")) {
+                jobs = Integer.parseInt(arg.substring("--jobs=".length()));
+            } else if (arg.startsWith("--report=")) {
+                report = arg.substring("--report=".length());
+            } else if (arg.startsWith("--json=")) {
+                json = arg.substring("--json=".length());
+            } else if (arg.startsWith("-")) {
+                if (!configure(arg, compiler, options)) {
+                    System.out.println("Invalid Arguments Passing!");
+                    System.exit(2);
+                }
+            } else {
+                inputs.add(arg);
+            }
+        }
+        ResultCache cache = null;
+        try {
+            cache = openCache(cacheArgs, options);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid Arguments Passing!");
+            System.exit(2);
+        }
+        List<Path> files = BatchInput.resolve(inputs);
+        boolean isJson = json != null;
+
+        long start = System.nanoTime();
+        ArrayList<FileResult> results = new ArrayList<FileResult>();
+        int[] failed = {0};
+        try (Writer out = report == null ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(report))) {
+            out.write(FileResult.HEADER + "\n");
+            new BatchRunner(compiler, options, jobs).run(files, result -> {
+                try {
+                    out.write(result.toTsv() + "\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (!result.isSuccess()) {
+                    failed[0]++;
+                }
+                if (isJson) {
+                    results.add(result);
+                }
+            });
+        }
+        if (json != null) {
+            Files.writeString(Paths.get(json), FileResult.toJson(results));
+        }
+        System.err.printf("%d files, %d failed, %.3f s with %d threads%n",
+                files.size(), failed[0], (System.nanoTime() - start) / 1e9, jobs);
+        if (cache != null) {
+            cache.report(System.err);
+        }
+        System.exit(failed[0] > 0 ? 1 : 0);
+    }
+
+    /**
+
+        Applies a myrpal switch to the compiler or options of a batch.
+
+        @return Whether the switch is one a batch supports
+
+     **/
+    public static boolean configure(String arg, Compiler compiler, ExecutionOptions options) {
+        if (arg.equalsIgnoreCase("-lazy")) {
+            options.setLazy(true);
+        } else if (arg.equalsIgnoreCase("-parallel")) {
+            options.setParallel(true);
+        } else if (arg.equalsIgnoreCase("-lift")) {
+            compiler.addPass(LambdaLifter::new);
+        } else if (arg.equalsIgnoreCase("-common")) {
+            compiler.addPass(() -> new CommonSubexpressions(compiler.getRegistry()));
+        } else if (arg.equalsIgnoreCase("-types")) {
+            compiler.addPass(TypeInference::new);
+        } else if (arg.startsWith("--engine=")) {
+            options.setEngine(arg.substring("--engine=".length()));
+        } else if (arg.startsWith("--timeout=")) {
+            options.setTimeout(Long.parseLong(arg.substring("--timeout=".length())));
+        } else if (arg.startsWith("--max-steps=")) {
+            options.setMaxSteps(Long.parseLong(arg.substring("--max-steps=".length())));
+        } else if (arg.startsWith("--max-depth=")) {
+            options.setMaxDepth(Integer.parseInt(arg.substring("--max-depth=".length())));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+
+        Opens the result cache the --cache switches of a batch ask for, if any, and sets it
+        in the options.
+
+        @return The cache, or null
+        @throws IllegalArgumentException if a switch is unknown or given without --cache=DIR
+
+     **/
+    public static ResultCache openCache(List<String> args, ExecutionOptions options) throws IOException {
+        String directory = null;
+        long megabytes = ResultCache.DEFAULT_DISK_BYTES / (1024 * 1024);
+        boolean isBypass = false, isInvalidate = false;
+        for (String arg : args) {
+            if (arg.startsWith("--cache=")) {
+                directory = arg.substring("--cache=".length());
+            } else if (arg.startsWith("--cache-mb=")) {
+                megabytes = Long.parseLong(arg.substring("--cache-mb=".length()));
+            } else if (arg.equals("--cache-bypass")) {
+                isBypass = true;
+            } else if (arg.equals("--cache-invalidate")) {
+                isInvalidate = true;
+            } else {
+                throw new IllegalArgumentException("Unknown switch " + arg);
+            }
+        }
+        if (directory == null) {
+            if (!args.isEmpty()) {
+                throw new IllegalArgumentException(args.get(0) + " needs --cache=DIR");
+            }
+            return null;
+        }
+        ResultCache cache = new ResultCache(Paths.get(directory), ResultCache.DEFAULT_MEMORY_ENTRIES, megabytes * 1024 * 1024);
+        if (isInvalidate) {
+            cache.invalidate();
+        }
+        options.setCache(cache).setCacheBypass(isBypass);
+        return cache;
+    }
+
+    /**
+
+        Runs files, giving their results to the consumer in the order of the files, on
+        the calling thread.
+
+     **/
+    public void run(List<Path> files, Consumer<FileResult> results) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(this.jobs);
+        try {
+            ArrayList<Future<FileResult>> window = new ArrayList<Future<FileResult>>();
+            int next = 0;
+            while (next < files.size() || !window.isEmpty()) {
+                while (next < files.size() && window.size() < this.jobs * WINDOW_PER_JOB) {
+                    Path file = files.get(next++);
+                    window.add(pool.submit(() -> this.run(file)));
+                }
+                try {
+                    results.accept(window.remove(0).get());
+                } catch (ExecutionException e) {
+                    // run(Path) catches what a file may throw, so this is a bug of the interpreter
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+
+        Compiles and executes a file.
+
+        @return Its result, whatever happened
+
+     **/
+    public FileResult run(Path file) {
+        String name = file.toString();
+        long start = System.nanoTime();
+        CompiledProgram program;
+        try {
+            program = this.compiler.compile(file);
+        } catch (IOException e) {
+            return new FileResult(name, FileResult.Status.IO_ERROR, null, e.toString(), System.nanoTime() - start, 0);
+        } catch (CompileException e) {
+            return new FileResult(name, FileResult.Status.COMPILE_ERROR, null,
+                    String.join("\n", e.getErrors()), System.nanoTime() - start, 0);
+        } catch (RuntimeException | StackOverflowError e) {
+            return new FileResult(name, FileResult.Status.INTERNAL, null, e.toString(), System.nanoTime() - start, 0);
+        }
+        long compileNanos = System.nanoTime() - start;
+
+        ExecutionResult result;
+        try {
+            result = program.execute(this.options);
+        } catch (IllegalArgumentException e) {
+            return new FileResult(name, FileResult.Status.INTERNAL, null, e.getMessage(), compileNanos, 0);
+        }
+        if (result.isSuccess()) {
+            return new FileResult(name, FileResult.Status.OK, result.getOutput(), null, compileNanos, result.getNanos());
+        }
+        FileResult.Status status;
+        switch (result.getError().getKind()) {
+            case LIMIT:
+                status = FileResult.Status.LIMIT;
+                break;
+            case RUNTIME:
+                status = FileResult.Status.RUNTIME_ERROR;
+                break;
+            default:
+                status = FileResult.Status.INTERNAL;
+        }
+        return new FileResult(name, status, result.getOutput(), result.getError().getMessage(), compileNanos, result.getNanos());
+    }
+}
@@ -0,0 +1,439 @@
+package Batch;
+
+import Api.Compiler;
+import Api.ExecutionOptions;
+import Server.Protocol;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+
+  Runs a batch across worker processes (Worker) on this machine, for batches too big for
+  the heap of one JVM. Each worker runs one file at a time, talking to the coordinator
+  over its own Unix domain socket. Files are handed out longest first by the runtime
+  (compile and run) they took in a previous report given as --history, files it does not
+  list being estimated at the median, so the long files start early and the short ones
+  fill in at the end.
+
+  A worker that exits, or gives no result for a file within --hang milliseconds (it is
+  then killed), is restarted and its file handed out again; a file that took down
+  --attempts workers is reported INTERNAL with the reason. A worker that cannot start
+  --attempts times in a row is given up. The results of all workers are merged into one
+  report in the order of the inputs, as BatchRunner writes it.
+
+  Usage: java Batch.Coordinator [options] input ...
+
+    input           A directory, glob, @manifest or file (see BatchInput)
+    --workers=N     Worker processes (default the number of processors)
+    --history=FILE  A previous report, for the runtime of each file
+    --hang=MS       Time a file may take before its worker is deemed hung (default 60000)
+    --attempts=N    Workers a file may take down, and failed starts of a worker (default 3)
+    --jvm=ARG       JVM argument of the workers, e.g. --jvm=-Xmx2g; may be repeated
+    --report=FILE --json=FILE
+    --timeout=MS --max-steps=N --max-depth=N
+    -lazy -parallel -lift -common -types --engine=cse|closure|jvm
+    --cache=DIR --cache-mb=N --cache-bypass --cache-invalidate
+                    As for BatchRunner; the workers share the cache directory
+
+ **/
+public class Coordinator {
+    public static final long DEFAULT_HANG_MILLIS = 60000;
+    public static final int DEFAULT_ATTEMPTS = 3;
+    public static final long START_MILLIS = 30000;
+
+    // Milliseconds between looks of the watchdog at the workers
+    private static final long WATCH_MILLIS = 100;
+
+    private final List<Path> files;
+    private final FileResult[] results;
+    private final int[] attempts;
+    private final ArrayList<Integer> queue = new ArrayList<Integer>();   // Next file first
+    private final ArrayList<String> workerArgs;
+    private final Path directory;
+    private final long hangMillis;
+    private final int maxAttempts;
+    private final ArrayList<Slot> slots = new ArrayList<Slot>();
+    private int remaining;
+    private int liveSlots;
+
+    // A worker process and the thread feeding it files
+    private class Slot implements Runnable {
+        final int id;
+        final Path socket;
+        Process process;
+        SocketChannel channel;
+        DataInputStream in;
+        DataOutputStream out;
+        volatile long deadline = 0;   // When the current file counts as hung, 0 when idle
+        volatile boolean isHung = false;
+        int files = 0;
+        int restarts = 0;
+        long busyNanos = 0;
+
+        Slot(int id) {
+            this.id = id;
+            this.socket = Coordinator.this.directory.resolve("worker-" + id + ".sock");
+        }
+
+        @Override
+        public void run() {
+            int failedStarts = 0;
+            Integer file;
+            while ((file = Coordinator.this.next()) != null) {
+                if (this.process == null) {
+                    try {
+                        this.start();
+                        failedStarts = 0;
+                    } catch (IOException e) {
+                        System.err.println("Worker " + this.id + " did not start: " + e.getMessage());
+                        this.stop();
+                        Coordinator.this.requeue(file);
+                        if (++failedStarts >= Coordinator.this.maxAttempts) {
+                            Coordinator.this.giveUp(this);
+                            return;
+                        }
+                        continue;
+                    }
+                }
+                String path = Coordinator.this.files.get(file).toString();
+                long start = System.nanoTime();
+                try {
+                    this.isHung = false;
+                    this.deadline = System.currentTimeMillis() + Coordinator.this.hangMillis;
+                    Protocol.writeString(this.out, path);
+                    FileResult result = FileResult.parse(Protocol.readString(this.in));
+                    this.deadline = 0;
+                    this.files++;
+                    this.busyNanos += System.nanoTime() - start;
+                    Coordinator.this.finish(file, result);
+                } catch (IOException | IllegalArgumentException e) {
+                    this.deadline = 0;
+                    this.busyNanos += System.nanoTime() - start;
+                    int status = this.stop();
+                    String reason = this.isHung ? "No result within " + Coordinator.this.hangMillis + " ms"
+                            : "Worker exited with status " + status;
+                    this.restarts++;
+                    System.err.println("Worker " + this.id + " on " + path + ": " + reason);
+                    Coordinator.this.fail(file, reason);
+                }
+            }
+            if (this.process != null) {
+                try {
+                    Protocol.writeString(this.out, "");
+                } catch (IOException e) {
+                    // Stopped below anyway
+                }
+                this.stop();
+            }
+        }
+
+        private void start() throws IOException {
+            Files.deleteIfExists(this.socket);
+            try (ServerSocketChannel server = Protocol.listen(UnixDomainSocketAddress.of(this.socket))) {
+                ArrayList<String> command = new ArrayList<String>();
+                command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.addAll(Coordinator.this.workerArgs);
+                command.add("--socket=" + this.socket);
+                this.process = new ProcessBuilder(command)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                // Polled, so a worker dying before it connects is noticed
+                server.configureBlocking(false);
+                long limit = System.currentTimeMillis() + START_MILLIS;
+                while ((this.channel = server.accept()) == null) {
+                    if (!this.process.isAlive() || System.currentTimeMillis() > limit) {
+                        throw new IOException("no connection");
+                    }
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        throw new IOException("interrupted");
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(this.socket);
+            }
+            this.channel.configureBlocking(true);
+            this.in = new DataInputStream(Channels.newInputStream(this.channel));
+            this.out = new DataOutputStream(Channels.newOutputStream(this.channel));
+        }
+
+        // Stops the worker, returning its exit status (-1 if it had none)
+        private int stop() {
+            int status = -1;
+            try {
+                if (this.channel != null) {
+                    this.channel.close();
+                }
+                if (this.process != null && !this.process.waitFor(5, TimeUnit.SECONDS)) {
+                    this.process.destroyForcibly();
+                }
+                if (this.process != null) {
+                    status = this.process.waitFor();
+                }
+            } catch (IOException e) {
+                // Closing a broken channel
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.process = null;
+            this.channel = null;
+            return status;
+        }
+
+        // Kills the worker if its file is past its deadline
+        void watch(long now) {
+            Process process = this.process;
+            if (this.deadline > 0 && now > this.deadline && process != null) {
+                this.isHung = true;
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    public Coordinator(List<Path> files, List<String> workerArgs, long hangMillis, int maxAttempts) throws IOException {
+        this.files = files;
+        this.results = new FileResult[files.size()];
+        this.attempts = new int[files.size()];
+        this.workerArgs = new ArrayList<String>(workerArgs);
+        this.directory = Files.createTempDirectory("rpal-coordinator");
+        this.hangMillis = hangMillis;
+        this.maxAttempts = maxAttempts;
+        this.remaining = files.size();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int workers = Runtime.getRuntime().availableProcessors();
+        long hangMillis = DEFAULT_HANG_MILLIS;
+        int maxAttempts = DEFAULT_ATTEMPTS;
+        String history = null;
+        String report = null;
+        String json = null;
+        ArrayList<String> jvmArgs = new ArrayList<String>();
+        ArrayList<String> switches = new ArrayList<String>();
+        ArrayList<String> inputs = new ArrayList<String>();
+        ArrayList<String> cacheArgs = new ArrayList<String>();
+        for (String arg : args) {
+            if (arg.startsWith("--cache")) {
+                cacheArgs.add(arg);
+            } else if (arg.startsWith("--workers=")) {
+                workers = Integer.parseInt(arg.substring("--workers=".length()));
+            } else if (arg.startsWith("--hang=")) {
+                hangMillis = Long.parseLong(arg.substring("--hang=".length()));
+            } else if (arg.startsWith("--attempts=")) {
+                maxAttempts = Integer.parseInt(arg.substring("--attempts=".length()));
+            } else if (arg.startsWith("--history=")) {
+                history = arg.substring("--history=".length());
+            } else if (arg.startsWith("--report=")) {
+                report = arg.substring("--report=".length());
+            } else if (arg.startsWith("--json=")) {
+                json = arg.substring("--json=".length());
+            } else if (arg.startsWith("--jvm=")) {
+                jvmArgs.add(arg.substring("--jvm=".length()));
+            } else if (arg.startsWith("-")) {
+                if (!BatchRunner.configure(arg, new Compiler(), new ExecutionOptions())) {
+                    System.out.println("Invalid Arguments Passing!");
+                    System.exit(2);
+                }
+                switches.add(arg);
+            } else {
+                inputs.add(arg);
+            }
+        }
+        // Emptied here, once, rather than by each worker
+        try {
+            BatchRunner.openCache(cacheArgs, new ExecutionOptions());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid Arguments Passing!");
+            System.exit(2);
+        }
+        cacheArgs.remove("--cache-invalidate");
+        switches.addAll(cacheArgs);
+        List<Path> files = BatchInput.resolve(inputs);
+
+        long start = System.nanoTime();
+        Coordinator coordinator = new Coordinator(files, getWorkerArgs(jvmArgs, switches), hangMillis, maxAttempts);
+        List<FileResult> results = coordinator.run(history == null ? null : Paths.get(history), workers);
+
+        ArrayList<String> lines = new ArrayList<String>();
+        lines.add(FileResult.HEADER);
+        int failed = 0;
+        for (FileResult result : results) {
+            lines.add(result.toTsv());
+            failed += result.isSuccess() ? 0 : 1;
+        }
+        if (report == null) {
+            lines.forEach(System.out::println);
+        } else {
+            Files.write(Paths.get(report), lines);
+        }
+        if (json != null) {
+            Files.writeString(Paths.get(json), FileResult.toJson(results));
+        }
+        coordinator.report();
+        System.err.printf("%d files, %d failed, %.3f s with %d workers%n",
+                files.size(), failed, (System.nanoTime() - start) / 1e9, workers);
+        System.exit(failed > 0 ? 1 : 0);
+    }
+
+    // The command line of a worker between java -cp classpath and its socket
+    private static List<String> getWorkerArgs(List<String> jvmArgs, List<String> switches) {
+        ArrayList<String> args = new ArrayList<String>(jvmArgs);
+        args.add(Worker.class.getName());
+        args.addAll(switches);
+        return args;
+    }
+
+    /**
+
+        Runs the files on workers.
+
+        @param history A previous report giving the runtime of the files, or null
+        @param workers The number of worker processes
+        @return The result of each file, in the order of the files
+
+     **/
+    public List<FileResult> run(Path history, int workers) throws IOException, InterruptedException {
+        this.queue.addAll(this.getOrder(history == null ? new HashMap<String, Double>() : readHistory(history)));
+        ArrayList<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < workers; i++) {
+            Slot slot = new Slot(i);
+            this.slots.add(slot);
+            Thread thread = new Thread(slot, "rpal-worker-" + i);
+            threads.add(thread);
+        }
+        this.liveSlots = workers;
+        threads.forEach(Thread::start);
+
+        Thread watchdog = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                long now = System.currentTimeMillis();
+                this.slots.forEach(slot -> slot.watch(now));
+                try {
+                    Thread.sleep(WATCH_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "rpal-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        watchdog.interrupt();
+        Files.deleteIfExists(this.directory);
+        return Arrays.asList(this.results);
+    }
+
+    /**
+
+        Writes the files, busy time and restarts of each worker to the standard error.
+
+     **/
+    public void report() {
+        for (Slot slot : this.slots) {
+            System.err.printf(Locale.ROOT, "worker %d: %d files, %.3f s busy, %d restarts%n",
+                    slot.id, slot.files, slot.busyNanos / 1e9, slot.restarts);
+        }
+    }
+
+    // Milliseconds each file took to compile and run, by name
+    private static HashMap<String, Double> readHistory(Path history) throws IOException {
+        HashMap<String, Double> millis = new HashMap<String, Double>();
+        for (String line : Files.readAllLines(history)) {
+            if (line.equals(FileResult.HEADER) || line.isEmpty()) {
+                continue;
+            }
+            FileResult result = FileResult.parse(line);
+            millis.put(result.getFile(), (result.getCompileNanos() + result.getRunNanos()) / 1e6);
+        }
+        return millis;
+    }
+
+    // Indices of the files, longest expected first; ties keep the order of the files
+    private List<Integer> getOrder(HashMap<String, Double> history) {
+        ArrayList<Double> known = new ArrayList<Double>();
+        for (Path file : this.files) {
+            if (history.containsKey(file.toString())) {
+                known.add(history.get(file.toString()));
+            }
+        }
+        Collections.sort(known);
+        double median = known.isEmpty() ? 0 : known.get(known.size() / 2);
+        double[] estimates = new double[this.files.size()];
+        ArrayList<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < this.files.size(); i++) {
+            estimates[i] = history.getOrDefault(this.files.get(i).toString(), median);
+            order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(estimates[b], estimates[a]));
+        return order;
+    }
+
+    // The next file to run, waiting while files out on other workers may come back; null when all are done
+    private synchronized Integer next() {
+        while (this.queue.isEmpty() && this.remaining > 0) {
+            try {
+                this.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return this.queue.isEmpty() ? null : this.queue.remove(0);
+    }
+
+    private synchronized void finish(int file, FileResult result) {
+        this.results[file] = result;
+        if (--this.remaining == 0) {
+            this.notifyAll();
+        }
+    }
+
+    // Hands a file out again, first, after a worker it ran on failed
+    private synchronized void fail(int file, String reason) {
+        if (++this.attempts[file] >= this.maxAttempts) {
+            String name = this.files.get(file).toString();
+            this.finish(file, new FileResult(name, FileResult.Status.INTERNAL, null, reason, 0, 0));
+            return;
+        }
+        this.requeue(file);
+    }
+
+    private synchronized void requeue(int file) {
+        this.queue.add(0, file);
+        this.notifyAll();
+    }
+
+    // Stops using a slot whose worker cannot start, failing the files left if it was the last
+    private synchronized void giveUp(Slot slot) {
+        if (--this.liveSlots > 0) {
+            return;
+        }
+        while (!this.queue.isEmpty()) {
+            int file = this.queue.remove(0);
+            this.finish(file, new FileResult(this.files.get(file).toString(), FileResult.Status.INTERNAL,
+                    null, "No worker could start", 0, 0));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package Batch;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+
+  The result of one file of a batch: its status, Print output, error message and the
+  time it took to compile and to run. Results are written one per line, as tab separated
+  values with tabs, newlines and backslashes escaped in the text fields, and read back
+  by parse().
+
+ **/
+public class FileResult {
+    public enum Status { OK, COMPILE_ERROR, RUNTIME_ERROR, LIMIT, INTERNAL, IO_ERROR }
+
+    public static final String HEADER = "file\tstatus\tcompile_ms\trun_ms\toutput\terror";
+
+    private final String file;
+    private final Status status;
+    private final String output;
+    private final String error;
+    private final long compileNanos;
+    private final long runNanos;
+
+    public FileResult(String file, Status status, String output, String error, long compileNanos, long runNanos) {
+        this.file = file;
+        this.status = status;
+        this.output = output == null ? "" : output;
+        this.error = error == null ? "" : error;
+        this.compileNanos = compileNanos;
+        this.runNanos = runNanos;
+    }
+
+    public String getFile() {
+        return this.file;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public boolean isSuccess() {
+        return this.status == Status.OK;
+    }
+
+    /**
+
+        @return The Print output, up to the failure if any
+
+     **/
+    public String getOutput() {
+        return this.output;
+    }
+
+    /**
+
+        @return Why the file failed, or an empty string
+
+     **/
+    public String getError() {
+        return this.error;
+    }
+
+    public long getCompileNanos() {
+        return this.compileNanos;
+    }
+
+    public long getRunNanos() {
+        return this.runNanos;
+    }
+
+    public String toTsv() {
+        return String.format(Locale.ROOT, "%s\t%s\t%.3f\t%.3f\t%s\t%s", escape(this.file), this.status,
+                this.compileNanos / 1e6, this.runNanos / 1e6, escape(this.output), escape(this.error));
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"file\": \"%s\", \"status\": \"%s\", \"compile_ms\": %.3f, \"run_ms\": %.3f, \"output\": \"%s\", \"error\": \"%s\"}",
+                escapeJson(this.file), this.status, this.compileNanos / 1e6, this.runNanos / 1e6,
+                escapeJson(this.output), escapeJson(this.error));
+    }
+
+    /**
+
+        @param line A line written by toTsv()
+        @return The result it holds
+        @throws IllegalArgumentException if the line is not a result
+
+     **/
+    public static FileResult parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Not a result: " + line);
+        }
+        return new FileResult(unescape(fields[0]), Status.valueOf(fields[1]), unescape(fields[4]), unescape(fields[5]),
+                (long) (Double.parseDouble(fields[2]) * 1e6), (long) (Double.parseDouble(fields[3]) * 1e6));
+    }
+
+    /**
+
+        Writes results as a JSON array.
+
+     **/
+    public static String toJson(List<FileResult> results) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            json.append("  ").append(results.get(i).toJson()).append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        return json.append("]\n").toString();
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                escaped.append("\\\\");
+            } else if (c == '\t') {
+                escaped.append("\\t");
+            } else if (c == '\n') {
+                escaped.append("\\n");
+            } else if (c == '\r') {
+                escaped.append("\\r");
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String text) {
+        StringBuilder unescaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i == text.length() - 1) {
+                unescaped.append(c);
+                continue;
+            }
+            char next = text.charAt(++i);
+            unescaped.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+        }
+        return unescaped.toString();
+    }
+
+    private static String escapeJson(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package Batch;
+
+import Api.Compiler;
+import Api.ExecutionOptions;
+import Api.ResultCache;
+import Server.Protocol;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+
+  A worker process of a Coordinator. It connects to the coordinator's socket, then reads
+  file paths and answers each with the FileResult of running it (in its toTsv() form),
+  both as Protocol strings, until it reads an empty path or the coordinator goes away.
+  With a result cache, it writes the cache's counters to the standard error at the end.
+
+  Usage: java Batch.Worker --socket=PATH [switches of BatchRunner]
+
+ **/
+public class Worker {
+
+    public static void main(String[] args) throws IOException {
+        Compiler compiler = new Compiler();
+        ExecutionOptions options = new ExecutionOptions();
+        String socket = null;
+        ArrayList<String> cacheArgs = new ArrayList<String>();
+        for (String arg : args) {
+            if (arg.startsWith("--cache")) {
+                cacheArgs.add(arg);
+            } else if (arg.startsWith("--socket=")) {
+                socket = arg.substring("--socket=".length());
+            } else if (!BatchRunner.configure(arg, compiler, options)) {
+                System.err.println("Invalid Arguments Passing!");
+                System.exit(2);
+            }
+        }
+        ResultCache cache = BatchRunner.openCache(cacheArgs, options);
+        BatchRunner runner = new BatchRunner(compiler, options, 1);
+
+        try (SocketChannel channel = Protocol.connect(Protocol.getAddress(socket, Protocol.DEFAULT_PORT))) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            while (true) {
+                String file = Protocol.readString(in);
+                if (file.isEmpty()) {
+                    break;
+                }
+                Protocol.writeString(out, runner.run(Paths.get(file)).toTsv());
+            }
+        } catch (EOFException e) {
+            // The coordinator went away
+        }
+        if (cache != null) {
+            cache.report(System.err);
+        }
+    }
+}
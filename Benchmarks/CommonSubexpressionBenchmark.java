@@ -0,0 +1,133 @@
+package Benchmarks;
+
+import CSE.CSEMachine;
+import CSE.MachineConstructor;
+import Builtins.BuiltinRegistry;
+import Exceptions.InterpreterException;
+import Lexer.LexicalAnalyser;
+import Output.OutputSink;
+import Output.ValueWriter;
+import Parser.Parser;
+import Standardizer.AST;
+import Standardizer.ASTConstructor;
+import Standardizer.CommonSubexpressions;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+
+  Runs a corpus of ordinary small programs with and without common subexpression
+  elimination, and reports the gamma and binary operator applications made by the CSE
+  machine in each case. Most of them repeat little, so the share eliminated depends on
+  the programs more than on the pass. Both runs must
+  give the same answer. The times are of the runs alone, without parsing or the pass.
+
+  Usage: java Benchmarks.CommonSubexpressionBenchmark [iterations]
+
+ **/
+public class CommonSubexpressionBenchmark {
+
+    // Programs written the usual way, not to repeat expressions for the pass to find
+    private static final String[][] CORPUS = {
+        {
+            "max",
+            "let rec Max (T, N) = N eq 1 -> T 1 | (let M = Max (T, N-1) in T N gr M -> T N | M) "
+                + "in Max ((3, 9, 2, 7, 1, 8, 4, 6, 5, 10, 11, 2, 3, 14, 15, 1), 16)"
+        },
+        {
+            "middle",
+            "let rec C (T, N) = N eq 0 -> 0 "
+                + "| (T N gr Order T / 2 & T N ls Order T / 2 + Order T / 4 -> 1 | 0) + C (T, N-1) "
+                + "in C ((1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16), 16)"
+        },
+        {
+            "distance",
+            "let D (p, q) = (p 1 - q 1) * (p 1 - q 1) + (p 2 - q 2) * (p 2 - q 2) "
+                + "in let rec S (T, N) = N eq 1 -> 0 | D (T N, T (N-1)) + S (T, N-1) "
+                + "in S (((0, 0), (3, 4), (6, 8), (1, 1), (5, 2), (7, 7), (2, 9), (4, 4)), 8)"
+        },
+        {
+            "fib",
+            "let rec F n = n ls 2 -> n | F (n-1) + F (n-2) in F 16"
+        },
+        {
+            "reverse",
+            "let rec R s = s eq '' -> '' | Conc (R (Stern s)) (Stem s) in R 'the quick brown fox jumps'"
+        },
+        {
+            "squares",
+            "let rec Q (T, N) = N eq 0 -> T | Q (T aug N * N, N-1) in Q (nil, 40)"
+        },
+        {
+            "gcd",
+            "let rec G (a, b) = b eq 0 -> a | G (b, a - (a / b) * b) "
+                + "in let rec L n = n eq 0 -> 0 | G (n * 12, 360) + L (n-1) in L 60"
+        },
+    };
+
+    public static void main(String[] args) throws IOException, InterpreterException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        System.out.printf("%-9s %12s %12s %11s %12s %12s%n", "program", "applications", "with -common", "eliminated", "time (ms)", "with (ms)");
+        long total = 0;
+        long totalEliminated = 0;
+        for (String[] program : CORPUS) {
+            Path path = Files.createTempFile("rpal-cse", ".rpal");
+            Files.writeString(path, program[1]);
+
+            AST plainTree = getTree(path, false);
+            AST sharedTree = getTree(path, true);
+            long[] plain = new long[1];
+            long[] shared = new long[1];
+            String expected = run(plainTree, plain);
+            String actual = run(sharedTree, shared);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException(program[0] + " results differ: " + expected + " / " + actual);
+            }
+
+            double plainTime = time(plainTree, iterations);
+            double sharedTime = time(sharedTree, iterations);
+            System.out.printf("%-9s %12d %12d %10.1f%% %12.3f %12.3f%n", program[0], plain[0], shared[0],
+                    100.0 * (plain[0] - shared[0]) / plain[0], plainTime, sharedTime);
+            total += plain[0];
+            totalEliminated += plain[0] - shared[0];
+            Files.delete(path);
+        }
+        System.out.printf("%d of %d applications eliminated (%.1f%%)%n", totalEliminated, total, 100.0 * totalEliminated / total);
+    }
+
+    private static AST getTree(Path path, boolean isShared) throws InterpreterException {
+        Parser parser = new Parser(new LexicalAnalyser(path.toString()).scan());
+        parser.parse();
+        AST ast = new ASTConstructor().getAbstractSyntaxTree(parser.serializeAST());
+        ast.standardize();
+        if (isShared) {
+            new CommonSubexpressions(BuiltinRegistry.withStandardLibrary()).apply(ast);
+        }
+        return ast;
+    }
+
+    // Runs the program on the CSE machine, storing the number of applications it made
+    private static String run(AST ast, long[] applications) {
+        MachineConstructor csemfac = new MachineConstructor(BuiltinRegistry.withStandardLibrary());
+        CSEMachine csemachine = csemfac.getCSEMachine(ast);
+        csemachine.setOutput(OutputSink.memory());
+        csemachine.execute();
+        applications[0] = csemfac.getCallSites().getApplications();
+        return ValueWriter.toString(csemachine.getResult());
+    }
+
+    // Mean time per run in milliseconds, after as many warm up runs
+    private static double time(AST ast, int iterations) {
+        long[] applications = new long[1];
+        for (int i = 0; i < iterations; i++) {
+            run(ast, applications);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            run(ast, applications);
+        }
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+}
@@ -0,0 +1,206 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+
+  Generates valid, terminating RPAL programs of a controllable size and shape from a seed;
+  the same seed and parameters always give the same program.
+
+    tokens        - Approximate number of tokens; functions are added until it is reached
+    depth         - Nesting depth of the generated expressions (conditionals, lets, operators)
+    recursion     - Depth of the recursive calls the program makes at run time
+    width         - Number of components of the tuple the program builds and indexes
+    stringLength  - Length of the string literal the program takes apart
+
+  The program defines a string S, a tuple T and a recursive sum R, then a chain of
+  functions F1 .. Fn of one integer, each calling at most one earlier function so the
+  running time stays linear in n, and prints a tuple using all of them. Division is only
+  by non-zero literals.
+
+ **/
+public class ProgramGenerator {
+    private final Random random;
+    private int tokens = 1000;
+    private int depth = 4;
+    private int recursion = 100;
+    private int width = 8;
+    private int stringLength = 16;
+
+    private StringBuilder program;
+    private int count;              // Tokens emitted so far
+    private int functions;          // Functions defined so far
+    private int locals;             // Let bound names used so far
+    private boolean isCalling;      // Whether the current function already calls another
+
+    public ProgramGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public ProgramGenerator setTokens(int tokens) {
+        this.tokens = tokens;
+        return this;
+    }
+
+    public ProgramGenerator setDepth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    public ProgramGenerator setRecursion(int recursion) {
+        this.recursion = recursion;
+        return this;
+    }
+
+    public ProgramGenerator setWidth(int width) {
+        this.width = Math.max(1, width);
+        return this;
+    }
+
+    public ProgramGenerator setStringLength(int stringLength) {
+        this.stringLength = Math.max(1, stringLength);
+        return this;
+    }
+
+    /**
+
+        @return The text of a new program with the current parameters
+
+     **/
+    public String generate() {
+        this.program = new StringBuilder();
+        this.count = 0;
+        this.functions = 0;
+        this.locals = 0;
+
+        StringBuilder string = new StringBuilder();
+        for (int i = 0; i < this.stringLength; i++) {
+            string.append((char) ('a' + this.random.nextInt(26)));
+        }
+        emit("let", "S", "=", "'" + string + "'", "in\n");
+        emit("let", "T", "=", "(");
+        for (int i = 0; i < this.width; i++) {
+            emit(i == 0 ? "" : ",", Integer.toString(this.random.nextInt(100)));
+        }
+        emit(")", "in\n");
+        emit("let", "rec", "R", "n", "=", "n", "eq", "0", "->", "0", "|", "n", "+", "R", "(", "n", "-", "1", ")", "in\n");
+
+        // The final Print takes about five tokens per function
+        while (this.count + 5 * this.functions < this.tokens || this.functions == 0) {
+            this.functions++;
+            this.isCalling = false;
+            ArrayList<String> names = new ArrayList<String>();
+            names.add("x");
+            emit("let", "F" + this.functions, "x", "=");
+            integer(this.depth, names);
+            emit("in\n");
+        }
+
+        emit("Print", "(", "R", Integer.toString(this.recursion), ",", "Order", "T", ",", "T", Integer.toString(this.width),
+                ",", "Stem", "S", ",", "Conc", "(", "Stern", "S", ")", "S");
+        for (int i = 1; i <= this.functions; i++) {
+            emit(",", "F" + i, Integer.toString(this.random.nextInt(10)));
+        }
+        emit(")\n");
+        return this.program.toString();
+    }
+
+    // An integer expression of the given depth over the integer names in scope
+    private void integer(int depth, ArrayList<String> names) {
+        if (depth <= 0) {
+            if (this.random.nextBoolean()) {
+                emit(names.get(this.random.nextInt(names.size())));
+            } else {
+                emit(Integer.toString(this.random.nextInt(100)));
+            }
+            return;
+        }
+        int choice = this.random.nextInt(6);
+        if (choice == 4 && (this.functions <= 1 || this.isCalling)) {
+            // No function to call here, divide instead
+            choice = 5;
+        }
+        switch (choice) {
+            case 0:
+                emit("(");
+                integer(depth - 1, names);
+                emit(new String[]{"+", "-", "*"}[this.random.nextInt(3)]);
+                integer(depth - 1, names);
+                emit(")");
+                break;
+            case 1:
+                emit("(");
+                truthValue(depth - 1, names);
+                emit("->");
+                integer(depth - 1, names);
+                emit("|");
+                integer(depth - 1, names);
+                emit(")");
+                break;
+            case 2:
+                String name = "v" + (++this.locals);
+                emit("(", "let", name, "=");
+                integer(depth - 1, names);
+                emit("in");
+                names.add(name);
+                integer(depth - 1, names);
+                names.remove(names.size() - 1);
+                emit(")");
+                break;
+            case 3:
+                emit("(", "T", Integer.toString(1 + this.random.nextInt(this.width)), "+", "Order", "T", ")");
+                break;
+            case 4:
+                this.isCalling = true;
+                emit("F" + (1 + this.random.nextInt(this.functions - 1)), "(");
+                integer(depth - 1, names);
+                emit(")");
+                break;
+            default:
+                emit("(");
+                integer(depth - 1, names);
+                emit("/", Integer.toString(1 + this.random.nextInt(9)), ")");
+                break;
+        }
+    }
+
+    // A truth value expression of the given depth over the integer names in scope
+    private void truthValue(int depth, ArrayList<String> names) {
+        switch (depth <= 0 ? 0 : this.random.nextInt(4)) {
+            case 0:
+                emit(names.get(this.random.nextInt(names.size())), new String[]{"ls", "gr", "eq", "ne"}[this.random.nextInt(4)],
+                        Integer.toString(this.random.nextInt(100)));
+                break;
+            case 1:
+                emit("(");
+                truthValue(depth - 1, names);
+                emit(this.random.nextBoolean() ? "&" : "or");
+                truthValue(depth - 1, names);
+                emit(")");
+                break;
+            case 2:
+                emit("not", "(");
+                truthValue(depth - 1, names);
+                emit(")");
+                break;
+            default:
+                emit("(");
+                integer(depth - 1, names);
+                emit(new String[]{"le", "ge"}[this.random.nextInt(2)]);
+                integer(depth - 1, names);
+                emit(")");
+                break;
+        }
+    }
+
+    private void emit(String... tokens) {
+        for (String token : tokens) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            this.program.append(token).append(token.endsWith("\n") ? "" : " ");
+            this.count++;
+        }
+    }
+}
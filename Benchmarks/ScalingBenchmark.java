@@ -0,0 +1,238 @@
+package Benchmarks;
+
+import Builtins.BuiltinRegistry;
+import CSE.CSEEngine;
+import CSE.Interpreter;
+import CSE.PhaseMeter;
+import Output.OutputSink;
+import Standardizer.Pass;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+
+  Runs generated programs (see ProgramGenerator) through Interpreter.runProgram on the CSE
+  machine over a sweep of one generator parameter, measuring each phase with a PhaseMeter.
+  Every point is run once to warm up and then repeat times; the median wall time and
+  allocation and the largest peak heap are reported, with a total row per point.
+
+  Usage: java Benchmarks.ScalingBenchmark [key=value ...]
+
+    sweep=tokens          - Parameter to sweep: tokens, depth, recursion, width or strings
+    values=1000,4000,...  - Its values
+    tokens= depth= recursion= width= strings=
+                          - The other parameters (defaults 1000, 4, 100, 8, 16)
+    seed=1                - Generator seed
+    repeat=5              - Measured runs per point
+    csv=FILE json=FILE    - Write the results as CSV and/or JSON
+    baseline=FILE         - CSV of an earlier run to compare with; exits with status 1 if the
+                            wall time or allocation of a phase grew by more than threshold
+    threshold=0.25        - Allowed relative growth
+    min=1                 - Phases faster than this many milliseconds in the baseline are
+                            too noisy to compare on time
+
+ **/
+public class ScalingBenchmark {
+    private static final String[] PARAMETERS = {"tokens", "depth", "recursion", "width", "strings"};
+    private static final String HEADER = "sweep,value,phase,wall_ms,allocated_bytes,allocation_mb_s,peak_heap_bytes";
+
+    // One row of results
+    private static class Row {
+        String sweep;
+        int value;
+        String phase;
+        double wallMillis;
+        long allocatedBytes;
+        long peakHeapBytes;
+
+        double getAllocationRate() {
+            return this.wallMillis <= 0 || this.allocatedBytes < 0 ? 0 : this.allocatedBytes / 1e6 / (this.wallMillis / 1e3);
+        }
+
+        String getKey() {
+            return this.sweep + "," + this.value + "," + this.phase;
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%d,%s,%.3f,%d,%.1f,%d",
+                    this.sweep, this.value, this.phase, this.wallMillis, this.allocatedBytes, getAllocationRate(), this.peakHeapBytes);
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"sweep\": \"%s\", \"value\": %d, \"phase\": \"%s\", \"wall_ms\": %.3f, \"allocated_bytes\": %d, "
+                            + "\"allocation_mb_s\": %.1f, \"peak_heap_bytes\": %d}",
+                    this.sweep, this.value, this.phase, this.wallMillis, this.allocatedBytes, getAllocationRate(), this.peakHeapBytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        LinkedHashMap<String, String> options = new LinkedHashMap<String, String>();
+        options.put("sweep", "tokens");
+        options.put("values", "1000,4000,16000");
+        options.put("tokens", "1000");
+        options.put("depth", "4");
+        options.put("recursion", "100");
+        options.put("width", "8");
+        options.put("strings", "16");
+        options.put("seed", "1");
+        options.put("repeat", "5");
+        options.put("threshold", "0.25");
+        options.put("min", "1");
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0 || !options.containsKey(arg.substring(0, equals))
+                    && !List.of("csv", "json", "baseline").contains(arg.substring(0, equals))) {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        String sweep = options.get("sweep");
+        if (!List.of(PARAMETERS).contains(sweep)) {
+            throw new IllegalArgumentException("Cannot sweep " + sweep);
+        }
+
+        ArrayList<Row> rows = new ArrayList<Row>();
+        System.out.printf("%-10s %8s %-12s %10s %14s %10s %14s%n",
+                "sweep", "value", "phase", "wall (ms)", "allocated (B)", "MB/s", "peak heap (B)");
+        for (String value : options.get("values").split(",")) {
+            options.put(sweep, value.trim());
+            for (Row row : measure(options)) {
+                rows.add(row);
+                System.out.printf(Locale.ROOT, "%-10s %8d %-12s %10.3f %14d %10.1f %14d%n",
+                        row.sweep, row.value, row.phase, row.wallMillis, row.allocatedBytes, row.getAllocationRate(), row.peakHeapBytes);
+            }
+        }
+
+        if (options.containsKey("csv")) {
+            ArrayList<String> lines = new ArrayList<String>();
+            lines.add(HEADER);
+            for (Row row : rows) {
+                lines.add(row.toCsv());
+            }
+            Files.write(Paths.get(options.get("csv")), lines);
+        }
+        if (options.containsKey("json")) {
+            StringBuilder json = new StringBuilder("[\n");
+            for (int i = 0; i < rows.size(); i++) {
+                json.append("  ").append(rows.get(i).toJson()).append(i < rows.size() - 1 ? ",\n" : "\n");
+            }
+            Files.writeString(Paths.get(options.get("json")), json.append("]\n"));
+        }
+        if (options.containsKey("baseline")) {
+            int regressions = compare(rows, Paths.get(options.get("baseline")),
+                    Double.parseDouble(options.get("threshold")), Double.parseDouble(options.get("min")));
+            if (regressions > 0) {
+                System.out.println(regressions + " regressions");
+                System.exit(1);
+            }
+            System.out.println("No regressions");
+        }
+    }
+
+    // Measures one point of the sweep, returning a row per phase and a total row
+    private static List<Row> measure(HashMap<String, String> options) throws IOException {
+        String program = new ProgramGenerator(Long.parseLong(options.get("seed")))
+                .setTokens(Integer.parseInt(options.get("tokens")))
+                .setDepth(Integer.parseInt(options.get("depth")))
+                .setRecursion(Integer.parseInt(options.get("recursion")))
+                .setWidth(Integer.parseInt(options.get("width")))
+                .setStringLength(Integer.parseInt(options.get("strings")))
+                .generate();
+        Path path = Files.createTempFile("rpal-scaling", ".rpal");
+        Files.writeString(path, program);
+        BuiltinRegistry registry = BuiltinRegistry.withStandardLibrary();
+
+        try {
+            if (Interpreter.runProgram(path.toString(), false, false, new CSEEngine(registry), OutputSink.memory()) == null) {
+                throw new IllegalStateException("Generated program failed:\n" + program);
+            }
+
+            // Measurements of each phase, by phase in the order they ran
+            LinkedHashMap<String, ArrayList<PhaseMeter.Phase>> phases = new LinkedHashMap<String, ArrayList<PhaseMeter.Phase>>();
+            int repeat = Integer.parseInt(options.get("repeat"));
+            for (int i = 0; i < repeat; i++) {
+                PhaseMeter meter = new PhaseMeter();
+                Interpreter.runProgram(path.toString(), false, false, new CSEEngine(registry), OutputSink.memory(),
+                        new ArrayList<Pass>(), meter);
+                for (PhaseMeter.Phase phase : meter.getPhases()) {
+                    phases.computeIfAbsent(phase.getName(), name -> new ArrayList<PhaseMeter.Phase>()).add(phase);
+                }
+            }
+
+            String sweep = options.get("sweep");
+            int value = Integer.parseInt(options.get(sweep));
+            ArrayList<Row> rows = new ArrayList<Row>();
+            Row total = new Row();
+            total.sweep = sweep;
+            total.value = value;
+            total.phase = "total";
+            for (String name : phases.keySet()) {
+                ArrayList<Long> nanos = new ArrayList<Long>();
+                ArrayList<Long> allocated = new ArrayList<Long>();
+                Row row = new Row();
+                row.sweep = sweep;
+                row.value = value;
+                row.phase = name;
+                for (PhaseMeter.Phase phase : phases.get(name)) {
+                    nanos.add(phase.getNanos());
+                    allocated.add(phase.getAllocatedBytes());
+                    row.peakHeapBytes = Math.max(row.peakHeapBytes, phase.getPeakHeapBytes());
+                }
+                row.wallMillis = median(nanos) / 1e6;
+                row.allocatedBytes = median(allocated);
+                rows.add(row);
+                total.wallMillis += row.wallMillis;
+                total.allocatedBytes += row.allocatedBytes;
+                total.peakHeapBytes = Math.max(total.peakHeapBytes, row.peakHeapBytes);
+            }
+            rows.add(total);
+            return rows;
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static long median(ArrayList<Long> values) {
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+
+    // Prints the rows that regressed against the baseline CSV and returns how many did
+    private static int compare(List<Row> rows, Path path, double threshold, double minMillis) throws IOException {
+        HashMap<String, String[]> baseline = new HashMap<String, String[]>();
+        for (String line : Files.readAllLines(path)) {
+            String[] fields = line.split(",");
+            if (!line.equals(HEADER) && fields.length == 7) {
+                baseline.put(fields[0] + "," + fields[1] + "," + fields[2], fields);
+            }
+        }
+
+        int regressions = 0;
+        for (Row row : rows) {
+            String[] fields = baseline.get(row.getKey());
+            if (fields == null) {
+                continue;
+            }
+            double wallMillis = Double.parseDouble(fields[3]);
+            long allocatedBytes = Long.parseLong(fields[4]);
+            if (wallMillis >= minMillis && row.wallMillis > wallMillis * (1 + threshold)) {
+                System.out.printf(Locale.ROOT, "Regression: %s wall time %.3f ms, baseline %.3f ms%n", row.getKey(), row.wallMillis, wallMillis);
+                regressions++;
+            }
+            if (allocatedBytes > 0 && row.allocatedBytes > allocatedBytes * (1 + threshold)) {
+                System.out.printf("Regression: %s allocated %d bytes, baseline %d bytes%n", row.getKey(), row.allocatedBytes, allocatedBytes);
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,94 @@
+package Benchmarks;
+
+import CSE.Interpreter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+
+  Compares the native standard library builtins against equivalent pure RPAL definitions.
+  Each pair of programs is run over tuples of several sizes; both must give the same answer.
+
+  Usage: java Benchmarks.StandardLibraryBenchmark [iterations]
+
+ **/
+public class StandardLibraryBenchmark {
+
+    // Pure RPAL definitions followed by the native call computing the same thing
+    private static final String[][] CASES = {
+        {
+            "Sum",
+            "let rec S (T, N) = N eq 0 -> 0 | S (T, N-1) + T N in S (T, Order T)",
+            "Sum T"
+        },
+        {
+            "Map",
+            "let Sq x = x * x in let rec M (T, N) = N eq 0 -> nil | (M (T, N-1) aug Sq (T N)) in M (T, Order T)",
+            "let Sq x = x * x in Map Sq T"
+        },
+        {
+            "Fold",
+            "let rec F (T, N) = N eq 0 -> 0 | F (T, N-1) - T N in F (T, Order T)",
+            "let Sub a b = a - b in Fold Sub 0 T"
+        },
+        {
+            "Join",
+            "let rec J (T, N) = N eq 1 -> Itos (T 1) | Conc (J (T, N-1)) (Conc '-' (Itos (T N))) in J (T, Order T)",
+            "Join (Map Itos T) '-'"
+        },
+    };
+
+    private static final int[] SIZES = {100, 400, 1600};
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        System.out.printf("%-6s %6s %12s %12s %8s%n", "name", "size", "rpal (ms)", "native (ms)", "speedup");
+        for (String[] benchmark : CASES) {
+            for (int size : SIZES) {
+                Path pure = writeProgram(benchmark[1], size);
+                Path nat = writeProgram(benchmark[2], size);
+
+                String expected = Interpreter.runProgram(pure.toString(), false, false);
+                String actual = Interpreter.runProgram(nat.toString(), false, false);
+                if (expected == null || !expected.equals(actual)) {
+                    throw new IllegalStateException(benchmark[0] + " results differ: " + expected + " / " + actual);
+                }
+
+                double pureTime = time(pure, iterations);
+                double nativeTime = time(nat, iterations);
+                System.out.printf("%-6s %6d %12.3f %12.3f %7.1fx%n",
+                        benchmark[0], size, pureTime, nativeTime, pureTime / nativeTime);
+
+                Files.delete(pure);
+                Files.delete(nat);
+            }
+        }
+    }
+
+    // Binds T to the tuple (1, ..., size) around the program body
+    private static Path writeProgram(String body, int size) throws IOException {
+        StringBuilder program = new StringBuilder("let T = (");
+        for (int i = 1; i <= size; i++) {
+            program.append(i == 1 ? "" : ", ").append(i);
+        }
+        program.append(") in ").append(body);
+
+        Path path = Files.createTempFile("rpal-bench", ".rpal");
+        Files.writeString(path, program);
+        return path;
+    }
+
+    // Mean time per run in milliseconds, after as many warm up runs
+    private static double time(Path program, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            Interpreter.runProgram(program.toString(), false, false);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Interpreter.runProgram(program.toString(), false, false);
+        }
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+}
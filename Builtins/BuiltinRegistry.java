@@ -0,0 +1,174 @@
+package Builtins;
+
+import Output.ValueWriter;
+import Symbols.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+
+  Registry of the builtins visible to a program.
+  Core builtins are always present; native ones are registered before a run and get
+  codes after Builtin.CORE_COUNT, so they share the core builtins' code based dispatch
+  in invoke(), which every engine uses.
+
+ **/
+public class BuiltinRegistry {
+    private HashMap<String, Builtin> builtins = new HashMap<String, Builtin>();
+    private ArrayList<NativeFunction> functions = new ArrayList<NativeFunction>();
+    private ArrayList<String> pure = new ArrayList<String>();
+
+    public BuiltinRegistry() {
+
+    }
+
+    /**
+
+        Creates a registry with the native standard library installed.
+
+        @return A registry containing the core builtins and StandardLibrary
+
+     **/
+    public static BuiltinRegistry withStandardLibrary() {
+        BuiltinRegistry registry = new BuiltinRegistry();
+        StandardLibrary.install(registry);
+        return registry;
+    }
+
+    /**
+
+        Registers a native builtin that may have effects, such as output.
+
+        @param name     Identifier the builtin is bound to
+        @param arity    Number of curried arguments it takes
+        @param function The implementation
+        @throws IllegalArgumentException if the name is already taken or the arity is not positive
+
+     **/
+    public void register(String name, int arity, NativeFunction function) {
+        this.register(name, arity, false, function);
+    }
+
+    /**
+
+        Registers a native builtin.
+
+        @param name     Identifier the builtin is bound to
+        @param arity    Number of curried arguments it takes
+        @param isPure   Whether it has no effects beyond those of the functions it applies
+        @param function The implementation
+        @throws IllegalArgumentException if the name is already taken or the arity is not positive
+
+     **/
+    public void register(String name, int arity, boolean isPure, NativeFunction function) {
+        if (arity < 1) {
+            throw new IllegalArgumentException("Arity of builtin " + name + " must be positive");
+        }
+        if (this.resolve(name) != null) {
+            throw new IllegalArgumentException("Builtin " + name + " is already defined");
+        }
+        this.builtins.put(name, new Builtin(name, Builtin.CORE_COUNT + this.functions.size(), arity));
+        this.functions.add(function);
+        if (isPure) {
+            this.pure.add(name);
+        }
+    }
+
+    /**
+
+        @param name The identifier name
+        @return Whether it names a builtin without effects, which every core builtin but Print is
+
+     **/
+    public boolean isPure(String name) {
+        Builtin builtin = this.resolve(name);
+        if (builtin == null) {
+            return false;
+        }
+        return builtin.getCode() < Builtin.CORE_COUNT ? builtin.getCode() != Builtin.PRINT : this.pure.contains(name);
+    }
+
+    /**
+
+        Resolves a free identifier to a builtin.
+
+        @param name The identifier name
+        @return The builtin value, or null if no builtin has that name
+
+     **/
+    public Builtin resolve(String name) {
+        Builtin builtin = Builtin.forName(name);
+        return builtin != null ? builtin : this.builtins.get(name);
+    }
+
+    /**
+
+        @param code The code of a registered (non-core) builtin
+        @return Its implementation
+
+     **/
+    public NativeFunction get(int code) {
+        return this.functions.get(code - Builtin.CORE_COUNT);
+    }
+
+    /**
+
+        Runs a builtin whose arguments have all been applied.
+
+        @param builtin   The builtin
+        @param args      Its arguments in application order, already evaluated
+        @param evaluator The engine running the program
+        @return The result value
+
+     **/
+    public Symbol invoke(Builtin builtin, ArrayList<Symbol> args, Evaluator evaluator) {
+        Symbol rand = args.get(args.size() - 1);
+        switch (builtin.getCode()) {
+            case Builtin.PRINT:
+                // Print function - stream the value to the output sink
+                try {
+                    ValueWriter.write(rand, evaluator.getOutput());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new Dummy();
+            case Builtin.STEM:
+                // Get first character of string
+                return new Str(rand.getData().substring(0, 1));
+            case Builtin.STERN:
+                // Get string without first character
+                return new Str(rand.getData().substring(1));
+            case Builtin.CONC:
+                // Concatenate two strings
+                return new Str(args.get(0).getData() + rand.getData());
+            case Builtin.ORDER:
+                // Get tuple size/order
+                return new Int(((Tup) rand).symbols.size());
+            case Builtin.NULL:
+                // Check if tuple is empty
+                return new Bool(Boolean.toString(((Tup) rand).symbols.isEmpty()));
+            case Builtin.ITOS:
+                // Convert integer to string
+                return rand instanceof Int ? new Str(rand.getData()) : new Err();
+            // Type predicates
+            case Builtin.ISINTEGER:
+                return new Bool(Boolean.toString(rand instanceof Int));
+            case Builtin.ISSTRING:
+                return new Bool(Boolean.toString(rand instanceof Str));
+            case Builtin.ISTUPLE:
+                return new Bool(Boolean.toString(rand instanceof Tup));
+            case Builtin.ISDUMMY:
+                return new Bool(Boolean.toString(rand instanceof Dummy));
+            case Builtin.ISTRUTHVALUE:
+                return new Bool(Boolean.toString(rand instanceof Bool));
+            case Builtin.ISFUNCTION:
+                // Closures, recursive closures and builtins, whatever the engine represents them by
+                return new Bool(Boolean.toString(rand instanceof Lambda || rand instanceof Eta || rand instanceof Builtin));
+            default:
+                // Registered builtin
+                return this.get(builtin.getCode()).apply(args, evaluator);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package Builtins;
+
+import Output.OutputSink;
+import Symbols.Symbol;
+
+/**
+
+  The engine running a program, as seen by builtins: where Print writes to and how
+  native builtins call back into RPAL functions.
+
+ **/
+public interface Evaluator {
+
+    /**
+
+        @param function A function value (closure, builtin, tuple, ...)
+        @param argument The argument to apply it to
+        @return The result of the application
+
+     **/
+    Symbol apply(Symbol function, Symbol argument);
+
+    /**
+
+        @return The destination of the program's Print output
+
+     **/
+    OutputSink getOutput();
+}
@@ -0,0 +1,23 @@
+package Builtins;
+
+import Symbols.Symbol;
+import java.util.ArrayList;
+
+/**
+
+  A builtin function implemented in Java.
+  Registered in a BuiltinRegistry under a name and an arity, and invoked by the
+  engine once all of its (curried) arguments have been applied.
+
+ **/
+public interface NativeFunction {
+
+    /**
+
+        @param args    The arguments, in application order (args.size() == arity)
+        @param evaluator The running engine, used to call back into RPAL functions
+        @return The result value
+
+     **/
+    Symbol apply(ArrayList<Symbol> args, Evaluator evaluator);
+}
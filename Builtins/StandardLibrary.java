@@ -0,0 +1,107 @@
+package Builtins;
+
+import Symbols.*;
+import java.util.ArrayList;
+
+/**
+
+  Native standard library: tuple and string helpers that would otherwise have to be
+  written (and interpreted) in RPAL.
+
+    Sort T       - T sorted, numerically for integers and lexicographically otherwise
+    Sum T        - Sum of the integers in T
+    Map F T      - (F T1, ..., F Tn)
+    Fold F Z T   - F (... (F (F Z T1) T2) ...) Tn
+    Split S D    - Tuple of the parts of string S separated by string D
+    Join T D     - The strings in T joined with string D
+
+ **/
+public class StandardLibrary {
+
+    private StandardLibrary() {
+
+    }
+
+    /**
+
+        Registers the standard library builtins.
+
+        @param registry The registry to install into
+
+     **/
+    public static void install(BuiltinRegistry registry) {
+        registry.register("Sort", 1, true, (args, evaluator) -> sort((Tup) args.get(0)));
+        registry.register("Sum", 1, true, (args, evaluator) -> sum((Tup) args.get(0)));
+        registry.register("Map", 2, true, (args, evaluator) -> {
+            Tup result = new Tup();
+            for (Symbol symbol : ((Tup) args.get(1)).symbols) {
+                result.symbols.add(evaluator.apply(args.get(0), symbol));
+            }
+            return result;
+        });
+        registry.register("Fold", 3, true, (args, evaluator) -> {
+            Symbol accumulator = args.get(1);
+            for (Symbol symbol : ((Tup) args.get(2)).symbols) {
+                accumulator = evaluator.apply(evaluator.apply(args.get(0), accumulator), symbol);
+            }
+            return accumulator;
+        });
+        registry.register("Split", 2, true, (args, evaluator) -> split(args.get(0).getData(), args.get(1).getData()));
+        registry.register("Join", 2, true, (args, evaluator) -> join((Tup) args.get(0), args.get(1).getData()));
+    }
+
+    private static Tup sort(Tup tup) {
+        boolean numeric = true;
+        for (Symbol symbol : tup.symbols) {
+            numeric &= symbol instanceof Int;
+        }
+        Tup result = new Tup();
+        result.symbols.addAll(tup.symbols);
+        if (numeric) {
+            result.symbols.sort((a, b) -> Integer.compare(Integer.parseInt(a.getData()), Integer.parseInt(b.getData())));
+        } else {
+            result.symbols.sort((a, b) -> a.getData().compareTo(b.getData()));
+        }
+        return result;
+    }
+
+    private static Symbol sum(Tup tup) {
+        int total = 0;
+        for (Symbol symbol : tup.symbols) {
+            if (!(symbol instanceof Int)) {
+                return new Err();
+            }
+            total += Integer.parseInt(symbol.getData());
+        }
+        return new Int(Integer.toString(total));
+    }
+
+    private static Tup split(String string, String delimiter) {
+        Tup result = new Tup();
+        if (delimiter.isEmpty()) {
+            for (int i = 0; i < string.length(); i++) {
+                result.symbols.add(new Str(string.substring(i, i + 1)));
+            }
+            return result;
+        }
+        int start = 0;
+        int end;
+        while ((end = string.indexOf(delimiter, start)) >= 0) {
+            result.symbols.add(new Str(string.substring(start, end)));
+            start = end + delimiter.length();
+        }
+        result.symbols.add(new Str(string.substring(start)));
+        return result;
+    }
+
+    private static Str join(Tup tup, String delimiter) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < tup.symbols.size(); i++) {
+            if (i > 0) {
+                builder.append(delimiter);
+            }
+            builder.append(tup.symbols.get(i).getData());
+        }
+        return new Str(builder.toString());
+    }
+}
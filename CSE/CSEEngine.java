@@ -0,0 +1,176 @@
+package CSE;
+
+import Builtins.BuiltinRegistry;
+import Closure.ClosureEngine;
+import Output.OutputSink;
+import Standardizer.AST;
+import Symbols.Symbol;
+import java.io.PrintStream;
+
+/**
+
+  Engine running programs on the CSE machine, built by a fresh MachineConstructor per run.
+
+ **/
+public class CSEEngine implements Engine {
+    private BuiltinRegistry registry;
+    private boolean isLazy = false;
+    private boolean isParallel = false;
+    private int parallelThreshold = MachineConstructor.DEFAULT_PARALLEL_THRESHOLD;
+    private boolean isTiered = false;
+    private int tierThreshold = Tiering.DEFAULT_THRESHOLD;
+    private PrintStream tierLog = null;
+    private PrintStream cacheReport = null;
+    private boolean isEager = false;
+    private MachineStats stats = null;
+    private Profiler profiler = null;
+    private long maxSteps = 0;
+    private long timeoutMillis = 0;
+    private int maxDepth = 0;
+
+    public CSEEngine(BuiltinRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void setLazy(boolean isLazy) {
+        this.isLazy = isLazy;
+    }
+
+    public void setParallel(boolean isParallel, int threshold) {
+        this.isParallel = isParallel;
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+
+        Enables tiered execution (ignored in the lazy and parallel modes): hot lambdas
+        are compiled in the background and called through their compiled code.
+
+        @param isTiered  Whether to promote hot lambdas
+        @param threshold Invocations plus back-edges after which a lambda is compiled
+        @param log       Destination of the tier-up log, or null for none
+
+     **/
+    public void setTiered(boolean isTiered, int threshold, PrintStream log) {
+        this.isTiered = isTiered;
+        this.tierThreshold = threshold;
+        this.tierLog = log;
+    }
+
+    /**
+
+        @param report Destination of the inline cache report written after each run, or null for none
+
+     **/
+    public void setCacheReport(PrintStream report) {
+        this.cacheReport = report;
+    }
+
+    /**
+
+        @param isEager Whether to build every delta before the run, instead of on first entry
+
+     **/
+    public void setEager(boolean isEager) {
+        this.isEager = isEager;
+    }
+
+    /**
+
+        @param stats Counters the next runs add their steps, environments and flattening to, or null for none
+
+     **/
+    public void setStats(MachineStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+
+        @param profiler Profiler keeping the shadow call stack of the next runs, or null for none.
+                        It keeps one stack, so runs with a profiler ignore the parallel mode
+
+     **/
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+
+        Limits each run, stopping it with a LimitExceededException. 0 is no limit.
+
+        @param maxSteps      Steps a run may take
+        @param timeoutMillis Milliseconds a run may take
+        @param maxDepth      Environments that may be live at once
+
+     **/
+    public void setLimits(long maxSteps, long timeoutMillis, int maxDepth) {
+        this.maxSteps = maxSteps;
+        this.timeoutMillis = timeoutMillis;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public String getName() {
+        return "cse";
+    }
+
+    /**
+
+        @param ast The standardized tree of the program
+        @return A machine ready to execute the program
+
+     **/
+    public CSEMachine getCSEMachine(AST ast) {
+        return this.getCSEMachine(ast, this.getMachineConstructor());
+    }
+
+    private MachineConstructor getMachineConstructor() {
+        MachineConstructor csemfac = new MachineConstructor(this.registry);
+        csemfac.setLazy(this.isLazy);
+        csemfac.setParallel(this.isParallel && this.profiler == null, this.parallelThreshold);
+        csemfac.setEager(this.isEager);
+        csemfac.setStats(this.stats);
+        return csemfac;
+    }
+
+    private CSEMachine getCSEMachine(AST ast, MachineConstructor csemfac) {
+        CSEMachine csemachine = csemfac.getCSEMachine(ast);
+        if (this.isTieredMode()) {
+            csemachine.setTiering(new Tiering(this.tierThreshold, this.tierLog));
+        }
+        csemachine.setProfiler(this.profiler);
+        if (this.maxSteps > 0 || this.timeoutMillis > 0 || this.maxDepth > 0) {
+            csemachine.setLimits(new Limits(this.maxSteps, this.timeoutMillis, this.maxDepth));
+        }
+        return csemachine;
+    }
+
+    private boolean isTieredMode() {
+        return this.isTiered && !this.isLazy && !this.isParallel;
+    }
+
+    @Override
+    public Symbol execute(AST ast, OutputSink output) {
+        MachineConstructor csemfac = this.getMachineConstructor();
+        CSEMachine csemachine = this.getCSEMachine(ast, csemfac);
+        csemachine.setOutput(output);
+        Symbol result;
+        if (this.isTieredMode()) {
+            // The compiled tier recurses in Java
+            result = ClosureEngine.evaluateOnLargeStack(() -> {
+                csemachine.execute();
+                return csemachine.getResult();
+            });
+        } else {
+            csemachine.execute();
+            result = csemachine.getResult();
+        }
+        if (this.cacheReport != null) {
+            csemfac.getCallSites().report(this.cacheReport);
+        }
+        if (this.stats != null) {
+            this.stats.setDeltas(this.stats.getDeltas() + csemfac.getBuiltCount());
+        }
+        return result;
+    }
+}
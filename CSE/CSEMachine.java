@@ -9,14 +9,35 @@
 
 package CSE;
 
+import Builtins.BuiltinRegistry;
+import Builtins.Evaluator;
+import Closure.CompiledLambda;
+import Closure.FunctionValue;
+import Output.OutputSink;
+import Output.ValueFormat;
+import Output.ValueWriter;
 import Symbols.*;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinTask;
 
 
-public class CSEMachine {
+public class CSEMachine implements Evaluator {
     private ArrayList<Symbol> control;     // Control stack - contains expressions to evaluate
     private ArrayList<Symbol> stack;       // Value stack - contains computed values
-    private ArrayList<E> environment;      // Environment chain - contains variable bindings
+    private ArrayList<E> environment;      // Environment chain - live environments, innermost last
+    private E currentEnvironment;          // Environment the control is currently evaluated in
+    private int j = 1;                     // Environment counter for creating new environments
+    private BuiltinRegistry registry = new BuiltinRegistry();  // Resolves registered builtin codes
+    private OutputSink output = OutputSink.stdout();           // Destination of Print
+    private boolean isLazy = false;                            // Call-by-need mode, values may be thunks
+    private Tiering tiering = null;                            // Promotes hot lambdas to compiled code, null when off
+    private boolean isCached = true;                           // Uses the inline caches of the control's sites
+    private MachineStats stats = null;                         // Counts the steps taken, null when off
+    private Profiler profiler = null;                          // Keeps the shadow RPAL call stack, null when off
+    private MachineEvents events = null;                       // Emits JFR events, null when not recorded
+    private Limits limits = null;                              // Stops runs going past their limits, null when unlimited
+    private int depth = 0;                                     // Environments live in the machines this one was forked from
 
     public CSEMachine(ArrayList<Symbol> control, ArrayList<Symbol> stack, ArrayList<E> environment) {
         this.setControl(control);
@@ -36,46 +57,259 @@ public class CSEMachine {
         this.environment = environment;
     }
 
+    public void setRegistry(BuiltinRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void setOutput(OutputSink output) {
+        this.output = output;
+    }
+
+    public OutputSink getOutput() {
+        return this.output;
+    }
+
+    public void setLazy(boolean isLazy) {
+        this.isLazy = isLazy;
+    }
+
+    public void setTiering(Tiering tiering) {
+        this.tiering = tiering;
+    }
+
+    public void setStats(MachineStats stats) {
+        this.stats = stats;
+    }
+
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public void setLimits(Limits limits) {
+        this.limits = limits;
+    }
+
     /**
      * Main execution loop - processes control stack until empty
      * Implements all CSE machine transition rules
      */
     public void execute() {
-        E currentEnvironment = this.environment.get(0);
-        int j = 1; // Environment counter for creating new environments
-        
-        while (!control.isEmpty()) {
+        this.currentEnvironment = this.environment.get(0);
+        this.events = MachineEvents.start();
+        if (this.profiler != null) {
+            this.profiler.start();
+        }
+        try {
+            this.run(0);
+            if (this.isLazy) {
+                this.stack.set(0, this.forceAll(this.stack.get(0)));
+            }
+        } finally {
+            if (this.profiler != null) {
+                this.profiler.finish();
+            }
+            // Output Printed before an error is still written
+            this.output.flush();
+        }
+    }
+
+    /**
+     * Apply a function value to an argument and return the result
+     * Runs the machine re-entrantly, so native builtins can call back into RPAL functions
+     * Compiled functions and lambdas promoted to the compiled tier are called directly
+     */
+    @Override
+    public Symbol apply(Symbol function, Symbol argument) {
+        if (function instanceof FunctionValue) {
+            return ((FunctionValue) function).call(argument);
+        } else if (this.tiering != null && function instanceof Lambda) {
+            CompiledLambda compiled = this.tiering.getCompiled(((Lambda) function).getIndex());
+            if (compiled != null) {
+                return compiled.call(argument, ((Lambda) function).getEnvironment());
+            }
+        } else if (this.tiering != null && function instanceof Eta
+                && this.tiering.getCompiled(((Eta) function).getLambda().getIndex()) != null) {
+            // Rule 13 without going through the control
+            Eta eta = (Eta) function;
+            return this.apply(this.apply(eta.getLambda(), eta), argument);
+        }
+        this.stack.add(0, argument);
+        this.stack.add(0, function);
+        this.control.add(new Gamma());
+        this.run(this.control.size() - 1);
+        Symbol result = this.stack.get(0);
+        this.stack.remove(0);
+        return result;
+    }
+
+    /**
+     * Force a value of the lazy mode: evaluate a thunk in its captured environment, the
+     * first time only, and return its value. Any other value is returned as is
+     */
+    public Symbol force(Symbol value) {
+        while (value instanceof Thunk) {
+            Thunk thunk = (Thunk) value;
+            if (!thunk.isForced()) {
+                // Enter the thunk's environment like rule 4, so rule 5 restores the current one
+                E e = new E(this.j++);
+                e.setParent(thunk.getEnvironment());
+                this.currentEnvironment = e;
+                this.control.add(e);
+                this.control.add(thunk.getDelta());
+                this.stack.add(0, e);
+                this.environment.add(e);
+                if (this.stats != null) {
+                    this.stats.environmentCreated(this.depth + this.environment.size());
+                }
+                this.run(this.control.size() - 2);
+                thunk.setValue(this.stack.get(0));
+                this.stack.remove(0);
+            }
+            value = thunk.getValue();
+        }
+        return value;
+    }
+
+    /**
+     * Lazy mode: if the value at a position of the stack is a thunk not yet forced, start
+     * forcing it on this machine's own control, the thunk after its environment marker
+     * so that it is updated with the value (see run), and the symbol after that to be
+     * retried. Chains of thunks forced by the machine's rules then take no Java stack
+     */
+    private boolean isDelayed(Symbol symbol, int position) {
+        Symbol value = this.stack.get(position);
+        while (value instanceof Thunk && ((Thunk) value).isForced()) {
+            value = ((Thunk) value).getValue();
+        }
+        if (!(value instanceof Thunk)) {
+            return false;
+        }
+        Thunk thunk = (Thunk) value;
+        this.control.add(symbol);
+        this.control.add(thunk);
+        // Enter the thunk's environment like rule 4, so rule 5 restores the current one
+        E e = new E(this.j++);
+        e.setParent(thunk.getEnvironment());
+        this.currentEnvironment = e;
+        this.control.add(e);
+        this.control.add(thunk.getDelta());
+        this.stack.add(0, e);
+        this.environment.add(e);
+        if (this.stats != null) {
+            this.stats.environmentCreated(this.depth + this.environment.size());
+        }
+        return true;
+    }
+
+    /**
+     * Whether applying a rator needs the value of its rand: a tuple selects by it, Y* takes
+     * a lambda, and a lambda with several parameters takes a tuple apart
+     */
+    private static boolean isStrict(Symbol rator) {
+        return rator instanceof Tup || rator instanceof Ystar
+                || (rator instanceof Lambda && ((Lambda) rator).identifiers.size() > 1);
+    }
+
+    /**
+     * Force a value and, for tuples, all of their components, so it can be printed
+     */
+    public Symbol forceAll(Symbol value) {
+        value = this.force(value);
+        ArrayList<Tup> tuples = new ArrayList<Tup>();
+        if (value instanceof Tup) {
+            tuples.add((Tup) value);
+        }
+        while (!tuples.isEmpty()) {
+            Tup tup = tuples.remove(tuples.size()-1);
+            for (int i = 0; i < tup.symbols.size(); i++) {
+                Symbol symbol = this.force(tup.symbols.get(i));
+                tup.symbols.set(i, symbol);
+                if (symbol instanceof Tup) {
+                    tuples.add((Tup) symbol);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Process the control stack until it shrinks back to the given height
+     */
+    private void run(int floor) {
+        while (control.size() > floor) {
             // Pop the top symbol from control stack for processing
             Symbol currentSymbol = control.get(control.size()-1);
             control.remove(control.size()-1);
+            if (this.stats != null && !(currentSymbol instanceof Gamma)) {
+                // Applications are counted once the rule they take is known
+                this.stats.step(getRule(currentSymbol), this.control.size() + 1, this.stack.size());
+            }
+            if (this.events != null) {
+                this.events.step(this.control.size(), this.stack.size(), this.depth + this.environment.size());
+            }
+            if (this.limits != null) {
+                this.limits.step(this.depth + this.environment.size());
+            }
             
             // CSE RULE 1: Variable Lookup
             // If symbol is an identifier, look up its value in current environment
             // Transition: <Id, S, E> → <S[E(Id)], E>
             if (currentSymbol instanceof Id) {
-                this.stack.add(0, currentEnvironment.lookup((Id) currentSymbol));
+                this.stack.add(0, this.currentEnvironment.lookup((Id) currentSymbol));
                 
             // CSE RULE 2: Lambda Abstraction
             // Lambda expressions are closures - capture current environment
             // Transition: <λ, S, E> → <S[λ[E]], E>
             } else if (currentSymbol instanceof Lambda) {
                 Lambda lambda = (Lambda) currentSymbol;
-                lambda.setEnvironment(currentEnvironment.getIndex());
-                this.stack.add(0, lambda);
+                this.stack.add(0, lambda.getClosure(this.currentEnvironment));
                 
             // CSE RULE 3: Gamma Application
             // Function application - handles multiple cases based on operator type
             } else if (currentSymbol instanceof Gamma) {
-                Symbol nextSymbol = this.stack.get(0); // Get function/operator from stack
+                if (this.isLazy && (this.isDelayed(currentSymbol, 0)
+                        || (isStrict(this.force(this.stack.get(0))) && this.isDelayed(currentSymbol, 1)))) {
+                    continue;
+                }
+                Symbol nextSymbol = this.force(this.stack.get(0)); // Get function/operator from stack
                 this.stack.remove(0);
+
+                // Kind of the rator, from the site's inline cache when it has seen its class
+                Gamma gamma = (Gamma) currentSymbol;
+                int kind = this.isCached ? gamma.getKind(nextSymbol) : -1;
+                if (kind < 0) {
+                    kind = getKind(nextSymbol);
+                    if (this.isCached) {
+                        gamma.record(nextSymbol, kind);
+                    }
+                }
+                if (this.stats != null) {
+                    this.stats.step(getRule(kind, nextSymbol), this.control.size() + 1, this.stack.size() + 1);
+                }
                 
                 // CSE RULE 4: Lambda Application (Single Parameter)
                 // CSE RULE 11: Lambda Application (Multiple Parameters - Tuple)
                 // Apply lambda function by creating new environment with parameter bindings
                 // Transition: <γ, S[λ[k]][v], Ek> → <Ej, S[Ej], Ej+E_lambda>
-                if (nextSymbol instanceof Lambda) {
+                // Functions of the compiled tier are called directly
+                if (kind == Gamma.FUNCTION) {
+                    Symbol rand = this.stack.get(0);
+                    this.stack.remove(0);
+                    this.stack.add(0, ((FunctionValue) nextSymbol).call(rand));
+
+                } else if (kind == Gamma.LAMBDA && this.tiering != null && this.tierUp((Lambda) nextSymbol)) {
+                    // Applied in the compiled tier
+
+                } else if (kind == Gamma.LAMBDA) {
                     Lambda lambda = (Lambda) nextSymbol;
-                    E e = new E(j++);
+                    if (lambda.identifiers.size() > 1) {
+                        // The tuple must be forced before numbering the new environment
+                        this.stack.set(0, this.force(this.stack.get(0)));
+                    }
+                    E e = new E(this.j++);
+                    // Rule 13 applying the lambda of a rec to its own eta, to unroll it once
+                    boolean isUnrolling = this.stack.get(0) instanceof Eta
+                            && ((Eta) this.stack.get(0)).getLambda().getIndex() == lambda.getIndex();
                     
                     // Single parameter binding
                     if (lambda.identifiers.size() == 1) {
@@ -92,32 +326,37 @@ public class CSEMachine {
                     }
                     
                     // Link new environment to lambda's captured environment
-                    for (E environment: this.environment) {
-                        if (environment.getIndex() == lambda.getEnvironment()) {
-                            e.setParent(environment);
-                        }
-                    }
+                    e.setParent(lambda.getEnvironment());
                     
-                    currentEnvironment = e;
+                    this.currentEnvironment = e;
                     this.control.add(e);                    // Add environment marker to control
                     this.control.add(lambda.getDelta());    // Add lambda body to control
                     this.stack.add(0, e);                   // Push environment to stack
                     this.environment.add(e);                // Add to environment chain
+                    if (this.stats != null) {
+                        this.stats.environmentCreated(this.depth + this.environment.size());
+                    }
+                    if (this.profiler != null && !isUnrolling) {
+                        this.profiler.enter(lambda, e);
+                    }
+                    if (this.events != null) {
+                        this.events.enter(lambda, this.depth + this.environment.size());
+                    }
                     
                 // CSE RULE 10: Tuple Selection
                 // Select nth element from tuple using integer index
                 // Transition: <γ, S[τ][n], E> → <S[τ_n], E>
-                } else if (nextSymbol instanceof Tup) {
+                } else if (kind == Gamma.TUP) {
                     Tup tup = (Tup) nextSymbol;
-                    int i = Integer.parseInt(this.stack.get(0).getData());
+                    int i = Integer.parseInt(this.force(this.stack.get(0)).getData());
                     this.stack.remove(0);
                     this.stack.add(0, tup.symbols.get(i-1)); // 1-based indexing
                     
                 // CSE RULE 12: Y* Combinator (Fixed Point)
                 // Implements recursive function definitions
                 // Transition: <γ, S[Y*][λ], E> → <S[η], E>
-                } else if (nextSymbol instanceof Ystar) {
-                    Lambda lambda = (Lambda) this.stack.get(0);
+                } else if (kind == Gamma.YSTAR) {
+                    Lambda lambda = (Lambda) this.force(this.stack.get(0));
                     this.stack.remove(0);
                     Eta eta = new Eta();
                     eta.setIndex(lambda.getIndex());
@@ -129,168 +368,94 @@ public class CSEMachine {
                 // CSE RULE 13: Eta Reduction
                 // Handle recursive function calls through eta abstraction
                 // Transition: <γ, S[η][v], E> → <γγ, S[η][λ][v], E>
-                } else if (nextSymbol instanceof Eta) {
+                } else if (kind == Gamma.ETA) {
                     Eta eta = (Eta) nextSymbol;
                     Lambda lambda = eta.getLambda();
+                    if (this.tiering != null) {
+                        this.tiering.recordBackEdge(lambda, this);
+                    }
                     this.control.add(new Gamma());
                     this.control.add(new Gamma());
                     this.stack.add(0, eta);
                     this.stack.add(0, lambda);
                     
 
-                // Handle primitive operations and predicates
-                } else {
-                    if ("Print".equals(nextSymbol.getData())) {
-                        // Print function - output value (implementation specific)
-                        
-                    } else if ("Stem".equals(nextSymbol.getData())) {
-                        // Get first character of string
-                        Symbol s = this.stack.get(0);
-                        this.stack.remove(0);
-                        s.setData(s.getData().substring(0, 1));
-                        this.stack.add(0, s);
-                        
-                    } else if ("Stern".equals(nextSymbol.getData())) {
-                        // Get string without first character
-                        Symbol s = this.stack.get(0);
-                        this.stack.remove(0);
-                        s.setData(s.getData().substring(1));
-                        this.stack.add(0, s);
-                        
-                    } else if ("Conc".equals(nextSymbol.getData())) {
-                        // Concatenate two strings
-                        Symbol s1 = this.stack.get(0);
-                        Symbol s2 = this.stack.get(1);
-                        this.stack.remove(0);
-                        this.stack.remove(0);
-                        s1.setData(s1.getData() + s2.getData());
-                        this.stack.add(0, s1);
-                        
-                    } else if ("Order".equals(nextSymbol.getData())) {
-                        // Get tuple size/order
-                        Tup tup = (Tup) this.stack.get(0);
-                        this.stack.remove(0);
-                        Int n = new Int(Integer.toString(tup.symbols.size()));
-                        this.stack.add(0, n);
-                        
-                    } else if ("Null".equals(nextSymbol.getData())) {
-                        // Check if tuple is empty
-                        Tup tup = (Tup) this.stack.get(0);
-                        this.stack.remove(0);
-                        this.stack.add(0, new Bool(Boolean.toString(tup.symbols.isEmpty())));
-                        
-                    } else if ("Itos".equals(nextSymbol.getData())) {
-                        // Convert integer to string
-                        Symbol s = this.stack.get(0);
-                        this.stack.remove(0);
-                        if (s instanceof Int) {
-                            this.stack.add(0, new Str(s.getData()));
-                        } else {
-                            this.stack.add(0, new Err());
-                        }
-                        
-                    } else if ("Isinteger".equals(nextSymbol.getData())) {
-                        // Type predicate: check if value is integer
-                        if (this.stack.get(0) instanceof Int) {
-                            this.stack.add(0, new Bool("true"));
-                        } else {
-                            this.stack.add(0, new Bool("false"));
-                        }
-                        this.stack.remove(1);
-                        
-                    } else if ("Isstring".equals(nextSymbol.getData())) {
-                        // Type predicate: check if value is string
-                        if (this.stack.get(0) instanceof Str) {
-                            this.stack.add(0, new Bool("true"));
-                        } else {
-                            this.stack.add(0, new Bool("false"));
-                        }
-                        this.stack.remove(1);
-                        
-                    } else if ("Istuple".equals(nextSymbol.getData())) {
-                        // Type predicate: check if value is tuple
-                        if (this.stack.get(0) instanceof Tup) {
-                            this.stack.add(0, new Bool("true"));
-                        } else {
-                            this.stack.add(0, new Bool("false"));
-                        }
-                        this.stack.remove(1);
-                        
-                    } else if ("Isdummy".equals(nextSymbol.getData())) {
-                        // Type predicate: check if value is dummy
-                        if (this.stack.get(0) instanceof Dummy) {
-                            this.stack.add(0, new Bool("true"));
-                        } else {
-                            this.stack.add(0, new Bool("false"));
-                        }
-                        this.stack.remove(1);
-                        
-                    } else if ("Istruthvalue".equals(nextSymbol.getData())) {
-                        // Type predicate: check if value is boolean
-                        if (this.stack.get(0) instanceof Bool) {
-                            this.stack.add(0, new Bool("true"));
-                        } else {
-                            this.stack.add(0, new Bool("false"));
-                        }
-                        this.stack.remove(1);
-                        
-                    } else if ("Isfunction".equals(nextSymbol.getData())) {
-                        // Type predicate: check if value is function
-                        if (this.stack.get(0) instanceof Lambda) {
-                            this.stack.add(0, new Bool("true"));
-                        } else {
-                            this.stack.add(0, new Bool("false"));
-                        }
-                        this.stack.remove(1);
-                    }
+                // Builtin functions, resolved by the MachineConstructor
+                } else if (kind == Gamma.BUILTIN) {
+                    this.applyBuiltin((Builtin) nextSymbol);
                 }
-                
+                // Any other rator (e.g. an unbound identifier) is dropped, leaving its rand
+
             // CSE RULE 5: Environment Removal
             // Remove environment from stack and restore previous environment
             // Transition: <E, S[E][v], E'> → <S[v], E_prev>
             } else if (currentSymbol instanceof E) {
                 this.stack.remove(1); // Remove environment from stack
+                if (this.profiler != null) {
+                    this.profiler.exit((E) currentSymbol);
+                }
                 
                 // Mark current environment as removed
-                this.environment.get(((E) currentSymbol).getIndex()).setIsRemoved(true);
+                ((E) currentSymbol).setIsRemoved(true);
                 
-                // Find most recent non-removed environment
-                int y = this.environment.size();
-                while (y > 0) {
-                    if (!this.environment.get(y-1).getIsRemoved()) {
-                        currentEnvironment = this.environment.get(y-1);
-                        break;
-                    } else {
-                        y--;
-                    }
+                // Environments are entered and left in stack order, so the most recent
+                // non-removed environment is the one below it in the chain
+                this.environment.remove(this.environment.size()-1);
+                if (!this.environment.isEmpty()) {
+                    this.currentEnvironment = this.environment.get(this.environment.size()-1);
                 }
                 
             // CSE RULE 6: Unary Operator Application  
             // CSE RULE 7: Binary Operator Application
             // Apply primitive operators to operands
             } else if (currentSymbol instanceof Rator) {
+                if (this.isLazy && (this.isDelayed(currentSymbol, 0)
+                        || (currentSymbol instanceof Bop && this.isDelayed(currentSymbol, 1)))) {
+                    continue;
+                }
                 if (currentSymbol instanceof Uop) {
                     // Unary operation: <uop, S[v], E> → <S[uop(v)], E>
                     Symbol rator = currentSymbol;
-                    Symbol rand = this.stack.get(0);
+                    Symbol rand = this.force(this.stack.get(0));
                     this.stack.remove(0);
-                    stack.add(0, this.applyUnaryOperation(rator, rand));
+                    if (((Uop) rator).isTyped()) {
+                        // Rand proven to be of the expected type
+                        stack.add(0, ((Uop) rator).applyTyped(rand));
+                    } else {
+                        stack.add(0, applyUnaryOperation(rator, rand));
+                    }
                 }
                 if (currentSymbol instanceof Bop) {
                     // Binary operation: <bop, S[v2][v1], E> → <S[bop(v1,v2)], E>
                     Symbol rator = currentSymbol;
-                    Symbol rand1 = this.stack.get(0);
-                    Symbol rand2 = this.stack.get(1);
+                    Symbol rand1 = this.force(this.stack.get(0));
+                    Symbol rand2 = this.force(this.stack.get(1));
                     this.stack.remove(0);
                     this.stack.remove(0);
-                    this.stack.add(0, this.applyBinaryOperation(rator, rand1, rand2));
+                    Bop bop = (Bop) currentSymbol;
+                    if (bop.isTyped()) {
+                        // Rands proven to be of the expected types
+                        this.stack.add(0, bop.applyTyped(rand1, rand2));
+                    } else if (this.isCached && bop.isIntHit(rand1, rand2)) {
+                        // Monomorphic integer site
+                        this.stack.add(0, bop.applyInt(((Int) rand1).getValue(), ((Int) rand2).getValue()));
+                    } else {
+                        this.stack.add(0, applyBinaryOperation(rator, rand1, rand2));
+                    }
+                    if (this.events != null && rand1 instanceof Tup && this.stack.get(0) instanceof Tup) {
+                        // aug
+                        this.events.tuple(((Tup) this.stack.get(0)).symbols.size(), ((Tup) rand1).symbols.size(), "aug");
+                    }
                 }
                 
             // CSE RULE 8: Conditional Evaluation (Beta)
             // Select branch based on boolean condition
             // Transition: <β, S[b], E> with controls [then, else] → execute selected branch
             } else if (currentSymbol instanceof Beta) {
-                if (Boolean.parseBoolean(this.stack.get(0).getData())) {
+                if (this.isLazy && this.isDelayed(currentSymbol, 0)) {
+                    continue;
+                }
+                if (Boolean.parseBoolean(this.force(this.stack.get(0)).getData())) {
                     // Condition is true - remove else branch, execute then branch
                     this.control.remove(control.size()-1);
                 } else {
@@ -310,11 +475,27 @@ public class CSEMachine {
                     this.stack.remove(0);
                 }
                 this.stack.add(0, tup);
+                if (this.events != null) {
+                    this.events.tuple(tup.symbols.size(), 0, "tau");
+                }
                 
 
+            // Lazy mode: suspend the delta as a thunk over the current environment
+            } else if (currentSymbol instanceof Delay) {
+                this.stack.add(0, new Thunk(((Delay) currentSymbol).getDelta(), this.currentEnvironment));
+
+            // Lazy mode: a thunk forced on the control takes the value its delta left
+            } else if (currentSymbol instanceof Thunk) {
+                ((Thunk) currentSymbol).setValue(this.stack.get(0));
+                this.stack.remove(0);
+
+            // Parallel mode: tuple whose components are evaluated by sub-machines
+            } else if (currentSymbol instanceof Fork) {
+                this.stack.add(0, this.fork((Fork) currentSymbol));
+
             // Expand delta (function body) into control stack
             } else if (currentSymbol instanceof Delta) {
-                this.control.addAll(((Delta) currentSymbol).symbols);
+                this.control.addAll(((Delta) currentSymbol).getSymbols());
                 
  
             // Expand conditional branch into control stack
@@ -330,6 +511,150 @@ public class CSEMachine {
         }
     }
 
+    /**
+     * Evaluate the components of a parallel tuple, each on a sub-machine sharing the
+     * current environment. Heavy components are forked onto the common ForkJoinPool.
+     * Results, Print output and errors are taken in the order the sequential machine
+     * evaluates the components (last to first), so they do not depend on scheduling.
+     * Sub-machines run under the limits of this one, are counted in its stats and emit
+     * its JFR events. Once one fails the others are cancelled through their limits
+     */
+    private Tup fork(Fork fork) {
+        int n = fork.components.size();
+        CSEMachine[] machines = new CSEMachine[n];
+        Limits limits = (this.limits != null ? this.limits : new Limits(0, 0, 0)).fork();
+        ArrayList<ForkJoinTask<Symbol>> tasks = new ArrayList<ForkJoinTask<Symbol>>();
+        for (int i = 0; i < n; i++) {
+            ArrayList<Symbol> control = new ArrayList<Symbol>();
+            control.add(fork.components.get(i));
+            ArrayList<E> environment = new ArrayList<E>();
+            environment.add(this.currentEnvironment);
+            machines[i] = new CSEMachine(control, new ArrayList<Symbol>(), environment);
+            machines[i].setRegistry(this.registry);
+            machines[i].setOutput(OutputSink.memory());
+            machines[i].isCached = false;    // The caches are not thread safe
+            machines[i].setLimits(limits.fork());
+            // The current environment is live in both machines
+            machines[i].depth = this.depth + this.environment.size() - 1;
+            machines[i].stats = this.stats != null ? new MachineStats() : null;
+            machines[i].events = this.events != null ? MachineEvents.start() : null;
+            tasks.add(fork.isHeavy.get(i) ? ForkJoinTask.adapt(machines[i]::evaluate).fork() : null);
+        }
+
+        Tup tup = new Tup();
+        for (int i = n-1; i >= 0; i--) {
+            try {
+                tup.symbols.add(0, tasks.get(i) != null ? tasks.get(i).join() : machines[i].evaluate());
+            } catch (RuntimeException e) {
+                // Components the sequential machine would not have reached are abandoned
+                limits.cancel();
+                for (ForkJoinTask<Symbol> task : tasks) {
+                    if (task != null) {
+                        task.cancel(false);
+                    }
+                }
+                throw e;
+            } finally {
+                this.output.append(machines[i].output.getContents());
+                if (this.stats != null) {
+                    this.stats.add(machines[i].stats);
+                }
+            }
+        }
+        return tup;
+    }
+
+    /**
+     * Classify a rator for rule 3, on inline cache misses
+     */
+    private static int getKind(Symbol rator) {
+        if (rator instanceof FunctionValue) {
+            return Gamma.FUNCTION;
+        } else if (rator instanceof Lambda) {
+            return Gamma.LAMBDA;
+        } else if (rator instanceof Tup) {
+            return Gamma.TUP;
+        } else if (rator instanceof Ystar) {
+            return Gamma.YSTAR;
+        } else if (rator instanceof Eta) {
+            return Gamma.ETA;
+        } else if (rator instanceof Builtin) {
+            return Gamma.BUILTIN;
+        }
+        return Gamma.OTHER;
+    }
+
+    /**
+     * Rule a popped symbol other than gamma takes, for the statistics
+     */
+    private static int getRule(Symbol symbol) {
+        if (symbol instanceof Id) {
+            return MachineStats.LOOKUP;
+        } else if (symbol instanceof Lambda) {
+            return MachineStats.CLOSURE;
+        } else if (symbol instanceof E) {
+            return MachineStats.EXIT;
+        } else if (symbol instanceof Uop) {
+            return MachineStats.UNARY;
+        } else if (symbol instanceof Bop) {
+            return MachineStats.BINARY;
+        } else if (symbol instanceof Beta) {
+            return MachineStats.CONDITIONAL;
+        } else if (symbol instanceof Tau) {
+            return MachineStats.TUPLE;
+        } else if (symbol instanceof Delay || symbol instanceof Thunk || symbol instanceof Fork) {
+            return MachineStats.OTHER;
+        } else if (symbol instanceof Delta || symbol instanceof B) {
+            return MachineStats.EXPAND;
+        }
+        return MachineStats.LOOKUP;
+    }
+
+    /**
+     * Rule a gamma takes on a rator of the given kind, for the statistics
+     */
+    private static int getRule(int kind, Symbol rator) {
+        if (kind == Gamma.FUNCTION) {
+            return MachineStats.APPLY;
+        } else if (kind == Gamma.LAMBDA) {
+            return ((Lambda) rator).identifiers.size() > 1 ? MachineStats.APPLY_TUPLE : MachineStats.APPLY;
+        } else if (kind == Gamma.TUP) {
+            return MachineStats.SELECT;
+        } else if (kind == Gamma.YSTAR) {
+            return MachineStats.YSTAR;
+        } else if (kind == Gamma.ETA) {
+            return MachineStats.ETA;
+        } else if (kind == Gamma.BUILTIN) {
+            return MachineStats.BUILTIN;
+        }
+        return MachineStats.OTHER;
+    }
+
+    /**
+     * Tiered mode: apply a lambda to the rand on top of the stack through its compiled
+     * code, if there is any yet. Otherwise count the invocation and leave it to rule 4
+     */
+    private boolean tierUp(Lambda lambda) {
+        CompiledLambda compiled = this.tiering.getCompiled(lambda.getIndex());
+        if (compiled == null) {
+            this.tiering.recordInvocation(lambda, this);
+            return false;
+        }
+        Symbol rand = this.stack.get(0);
+        this.stack.remove(0);
+        this.stack.add(0, compiled.call(rand, lambda.getEnvironment()));
+        return true;
+    }
+
+    /**
+     * Run a sub-machine to completion and return its value
+     */
+    private Symbol evaluate() {
+        this.currentEnvironment = this.environment.get(0);
+        this.run(0);
+        return this.stack.get(0);
+    }
+
     /**
      * Debug method: Print current control stack state
      */
@@ -378,7 +703,7 @@ public class CSEMachine {
     public void printEnvironment() {
         for (Symbol symbol: this.environment) {
             System.out.print("e"+((E) symbol).getIndex()+ " --> ");
-            if (((E) symbol).getIndex()!=0) {
+            if (((E) symbol).getParent()!=null) {
                 System.out.println("e"+((E) symbol).getParent().getIndex());
             } else {
                 System.out.println();
@@ -386,11 +711,38 @@ public class CSEMachine {
         }
     }
 
+    /**
+     * Apply a builtin function to the rand on top of the stack
+     * Builtins of arity > 1 are curried: until all arguments are present a partial
+     * application is pushed, otherwise the registry dispatches the builtin on its code
+     */
+    public void applyBuiltin(Builtin builtin) {
+        Symbol rand = this.stack.get(0);
+        this.stack.remove(0);
+        if (builtin.args.size() + 1 < builtin.getArity()) {
+            this.stack.add(0, builtin.bind(rand));
+            return;
+        }
+        // Builtins are strict; Print and native ones look into tuples as well
+        if (builtin.getCode() == Builtin.PRINT || builtin.getCode() >= Builtin.CORE_COUNT) {
+            rand = this.forceAll(rand);
+        } else {
+            rand = this.force(rand);
+        }
+
+        ArrayList<Symbol> args = new ArrayList<Symbol>();
+        for (Symbol arg : builtin.args) {
+            args.add(builtin.getCode() == Builtin.CONC ? this.force(arg) : this.forceAll(arg));
+        }
+        args.add(rand);
+        this.stack.add(0, this.registry.invoke(builtin, args, this));
+    }
+
     /**
      * Apply unary operations (negation, logical not)
      * Supports: neg (arithmetic negation), not (logical negation)
      */
-    public Symbol applyUnaryOperation(Symbol rator, Symbol rand) {
+    public static Symbol applyUnaryOperation(Symbol rator, Symbol rand) {
         if ("neg".equals(rator.getData())) {
             int val = Integer.parseInt(rand.getData());
             return new Int(Integer.toString(-1*val));
@@ -406,7 +758,7 @@ public class CSEMachine {
      * Apply binary operations (arithmetic, logical, comparison, tuple operations)
      * Supports: +, -, *, /, **, &, or, eq, ne, ls, le, gr, ge, aug
      */
-    public Symbol applyBinaryOperation(Symbol rator, Symbol rand1, Symbol rand2) {
+    public static Symbol applyBinaryOperation(Symbol rator, Symbol rand1, Symbol rand2) {
         if ("+".equals(rator.getData())) {
             int val1 = Integer.parseInt(rand1.getData());
             int val2 = Integer.parseInt(rand2.getData());
@@ -461,32 +813,33 @@ public class CSEMachine {
             int val2 = Integer.parseInt(rand2.getData());
             return new Bool(Boolean.toString(val1 >= val2));
         } else if ("aug".equals(rator.getData())) {
-            // Tuple augmentation - add element to tuple
+            // Tuple augmentation - a new tuple with the element added, the rand may be shared.
+            // The new tuple shares the rand's components, and copies them only if the rand
+            // has been extended before (see TupleList)
+            Tup tup = ((Tup) rand1).share();
             if (rand2 instanceof Tup) {
-                ((Tup) rand1).symbols.addAll(((Tup) rand2).symbols);
+                tup.symbols.addAll(((Tup) rand2).symbols);
             } else {
-                ((Tup) rand1).symbols.add(rand2);
+                tup.symbols.add(rand2);
             }
-            return rand1;
+            return tup;
         } else {
             return new Err();
         }
     }
 
     /**
-     * Convert tuple to string representation for output
+     * Final value of the program, once execute() has run
      */
-    public String getTupleValue(Tup tup) {
-        String temp = "(";
-        for (Symbol symbol: tup.symbols) {
-            if (symbol instanceof Tup) {
-                temp = temp + this.getTupleValue((Tup) symbol) + ", ";
-            } else {
-                temp = temp + symbol.getData() + ", ";
-            }
-        }
-        temp = temp.substring(0, temp.length()-2) + ")";
-        return temp;
+    public Symbol getResult() {
+        return this.stack.get(0);
+    }
+
+    /**
+     * Stream the final value of the program in the given format, once execute() has run
+     */
+    public void writeResult(ValueFormat format) throws IOException {
+        ValueWriter.write(this.getResult(), format);
     }
 
     /**
@@ -494,9 +847,6 @@ public class CSEMachine {
      */
     public String getAnswer() {
         this.execute();
-        if (stack.get(0) instanceof Tup) {
-            return this.getTupleValue((Tup) stack.get(0));
-        }
-        return stack.get(0).getData();
+        return ValueWriter.toString(this.getResult());
     }
 }
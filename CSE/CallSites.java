@@ -0,0 +1,95 @@
+package CSE;
+
+import Symbols.Bop;
+import Symbols.Gamma;
+import Symbols.Symbol;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+
+  The gamma and binary operator occurrences built by a MachineConstructor, with the
+  lambda each belongs to, for the debug report of their inline caches.
+
+ **/
+public class CallSites {
+    private final ArrayList<Symbol> sites = new ArrayList<Symbol>();
+    private final ArrayList<Integer> lambdas = new ArrayList<Integer>();
+
+    /**
+
+        @param site   A Gamma or Bop of the control
+        @param lambda Index of the lambda whose body holds it, 0 for the program
+
+     **/
+    public void add(Symbol site, int lambda) {
+        this.sites.add(site);
+        this.lambdas.add(lambda);
+    }
+
+    /**
+
+        @return The number of gamma and binary operator applications made so far
+
+     **/
+    public long getApplications() {
+        long applications = 0;
+        for (Symbol site : this.sites) {
+            if (site instanceof Gamma) {
+                Gamma gamma = (Gamma) site;
+                applications += gamma.getHits() + gamma.getMisses() + gamma.getGeneric();
+            } else {
+                Bop bop = (Bop) site;
+                applications += bop.getHits() + bop.getMisses() + bop.getGeneric();
+            }
+        }
+        return applications;
+    }
+
+    /**
+
+        Writes the hits, misses and generic (megamorphic) dispatches of every site that
+        was reached, followed by the totals of each kind of site.
+
+        @param out Destination of the report
+
+     **/
+    public void report(PrintStream out) {
+        long[] gammas = new long[3];
+        long[] bops = new long[3];
+        out.println(String.format("%-10s %6s %-24s %10s %8s %8s %8s", "site", "lambda", "cached", "hits", "misses", "generic", "hit rate"));
+        for (int i = 0; i < this.sites.size(); i++) {
+            Symbol site = this.sites.get(i);
+            long[] counts;
+            String cached;
+            if (site instanceof Gamma) {
+                Gamma gamma = (Gamma) site;
+                counts = new long[] {gamma.getHits(), gamma.getMisses(), gamma.getGeneric()};
+                cached = gamma.isMegamorphic() ? "megamorphic" : gamma.getCachedClasses();
+                add(gammas, counts);
+            } else {
+                Bop bop = (Bop) site;
+                counts = new long[] {bop.getHits(), bop.getMisses(), bop.getGeneric()};
+                cached = bop.isMegamorphic() ? "megamorphic" : bop.getCachedClasses();
+                add(bops, counts);
+            }
+            if (counts[0] + counts[1] + counts[2] > 0) {
+                out.println(String.format("%-10s %6d %-24s %10d %8d %8d %7.1f%%", site.getData() + " #" + i, this.lambdas.get(i), cached,
+                        counts[0], counts[1], counts[2], getHitRate(counts)));
+            }
+        }
+        out.println(String.format("%-41s %10d %8d %8d %7.1f%%", "total gamma", gammas[0], gammas[1], gammas[2], getHitRate(gammas)));
+        out.println(String.format("%-41s %10d %8d %8d %7.1f%%", "total binary operator", bops[0], bops[1], bops[2], getHitRate(bops)));
+    }
+
+    private static void add(long[] totals, long[] counts) {
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] += counts[i];
+        }
+    }
+
+    private static double getHitRate(long[] counts) {
+        long total = counts[0] + counts[1] + counts[2];
+        return total == 0 ? 0 : 100.0 * counts[0] / total;
+    }
+}
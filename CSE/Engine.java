@@ -0,0 +1,32 @@
+package CSE;
+
+import Output.OutputSink;
+import Standardizer.AST;
+import Symbols.Symbol;
+
+/**
+
+  An execution engine for standardized programs. The CSE machine is the reference
+  engine; others must produce the same results and Print output.
+
+ **/
+public interface Engine {
+
+    /**
+
+        @return The name the engine is selected by (e.g. on the command line)
+
+     **/
+    String getName();
+
+    /**
+
+        Evaluates a standardized program.
+
+        @param ast    The standardized tree of the program
+        @param output Destination of the program's Print output, flushed when it ends
+        @return The final value of the program
+
+     **/
+    Symbol execute(AST ast, OutputSink output);
+}
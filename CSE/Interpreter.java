@@ -3,16 +3,29 @@ package CSE;
 import java.util.ArrayList;
 import java.util.List;
 
+import Builtins.BuiltinRegistry;
 import Exceptions.InterpreterException;
 import Parser.Node;
 import Parser.Parser;
 import Standardizer.AST;
 import Standardizer.ASTConstructor;
+import Standardizer.Pass;
 import Lexer.LexicalAnalyser;
 import Lexer.Token;
+import Output.OutputSink;
+import Output.ValueWriter;
+import Jfr.PhaseEvent;
 
 public class Interpreter {
 
+    /**
+
+        Version of the interpreter, part of the key of cached results (Api.ResultCache):
+        to be raised with any change that may change the output of a program.
+
+     **/
+    public static final String VERSION = "1.0";
+
     /**
 
         Runs the program by reading the source file, lexing, parsing,
@@ -26,15 +39,68 @@ public class Interpreter {
      **/
 
     public static String runProgram(String filename, boolean isPrintAST, boolean isPrintST){
+        return runProgram(filename, isPrintAST, isPrintST, new CSEEngine(BuiltinRegistry.withStandardLibrary()), OutputSink.stdout());
+    }
+
+    /**
+
+        Runs the program on the given engine and output sink, without tree passes.
+
+        @param filename   The path to the source code file
+        @param isPrintAST Whether to print the serialized AST
+        @param isPrintST  Whether to print the standardized AST
+        @param engine     The engine to evaluate with, configured with the builtins and evaluation mode
+        @param output     Destination of the program's Print output, flushed when it ends
+        @return The final result of the program evaluation as a String
+
+     **/
+
+    public static String runProgram(String filename, boolean isPrintAST, boolean isPrintST, Engine engine, OutputSink output){
+        return runProgram(filename, isPrintAST, isPrintST, engine, output, new ArrayList<Pass>());
+    }
+
+    /**
+
+        Runs the program on the given engine and output sink, transforming the
+        standardized tree with the given passes first.
+
+        @param filename   The path to the source code file
+        @param isPrintAST Whether to print the serialized AST
+        @param isPrintST  Whether to print the standardized AST, after the passes
+        @param engine     The engine to evaluate with, configured with the builtins and evaluation mode
+        @param output     Destination of the program's Print output, flushed when it ends
+        @param passes     Transformations of the standardized tree, in order; each prints its summary to stderr
+        @return The final result of the program evaluation as a String
+
+     **/
+
+    public static String runProgram(String filename, boolean isPrintAST, boolean isPrintST, Engine engine, OutputSink output, List<Pass> passes){
+        return runProgram(filename, isPrintAST, isPrintST, engine, output, passes, null);
+    }
+
+    /**
+
+        Runs the program as above, reporting each phase to a listener as it starts and ends.
+
+        @param listener   Observer of the phases, or null
+        @return The final result of the program evaluation as a String
+
+     **/
+
+    public static String runProgram(String filename, boolean isPrintAST, boolean isPrintST, Engine engine, OutputSink output, List<Pass> passes, PhaseListener listener){
 
         // Initialize lexical analyser with the input filename
         LexicalAnalyser scanner = new LexicalAnalyser(filename);
         List<Token> tokens;
         List<Node> AST;
+        Phases phases = new Phases(filename, listener);
 
         try {
             // Perform lexical analysis to get tokens
+            phases.start("lex");
             tokens = scanner.scan();
+            phases.end();
+            phases.count("tokens", tokens.size());
 
             // If token list is empty, program is empty
             if(tokens.isEmpty()){
@@ -43,11 +109,16 @@ public class Interpreter {
             }
 
             // Initialize parser with tokens and parse into AST nodes
+            phases.start("parse");
             Parser parser = new Parser(tokens);
             AST = parser.parse();
+            phases.end();
 
             // Serialize the AST to list of strings for further processing
+            phases.start("serialize");
             ArrayList<String> stringAST = parser.serializeAST();
+            phases.end();
+            phases.count("nodes", stringAST.size());
 
             // Print serialized AST if requested
             if(isPrintAST){
@@ -57,30 +128,87 @@ public class Interpreter {
             }
 
             // Create ASTConstructor instance to generate abstract syntax tree object
+            phases.start("ast");
             ASTConstructor astconstructor = new ASTConstructor();
             AST ast = astconstructor.getAbstractSyntaxTree(stringAST);
+            phases.end();
 
             // Standardize the AST for uniform structure
+            phases.start("standardize");
             ast.standardize();
+            phases.end();
+
+            // Optimize the standardized tree
+            for(Pass pass : passes){
+                phases.start(pass.getName());
+                String summary = pass.apply(ast);
+                phases.end();
+                System.err.println(pass.getName() + ": " + summary);
+            }
 
             // Print standardized AST if requested
             if(isPrintST) ast.printAst();
 
-            // Create a MachineConstructor (CSE machine factory)
-            MachineConstructor csemfac = new MachineConstructor();
-
-            // Generate CSE machine from the AST
-            CSEMachine csemachine = csemfac.getCSEMachine(ast);
-
-            // Return the answer/result of the evaluation from CSE machine
-            return csemachine.getAnswer();
+            // Evaluate the standardized tree and return its result
+            phases.start("execute");
+            String result = ValueWriter.toString(engine.execute(ast, output));
+            phases.end();
+            return result;
 
         } catch (InterpreterException e) {
             // Print custom exception message if any error occurs
             System.out.println(e.getMessage());
+        } finally {
+            // End the phase an exception left running
+            phases.end();
         }
 
         // Return null if evaluation fails
         return null;
     }
+
+    // Reports phases to an optional listener and as JFR events, remembering the running one
+    private static class Phases {
+        private final String filename;
+        private final PhaseListener listener;
+        private String running;
+        private PhaseEvent event;
+
+        Phases(String filename, PhaseListener listener) {
+            this.filename = filename;
+            this.listener = listener;
+        }
+
+        void start(String phase) {
+            PhaseEvent event = new PhaseEvent();
+            if (event.isEnabled()) {
+                event.phase = phase;
+                event.program = this.filename;
+                event.begin();
+                this.event = event;
+            }
+            if (this.listener != null) {
+                this.running = phase;
+                this.listener.phaseStarted(phase);
+            }
+        }
+
+        void count(String name, long count) {
+            if (this.listener != null) {
+                this.listener.counted(name, count);
+            }
+        }
+
+        void end() {
+            if (this.event != null) {
+                this.event.commit();
+                this.event = null;
+            }
+            if (this.running != null) {
+                String phase = this.running;
+                this.running = null;
+                this.listener.phaseEnded(phase);
+            }
+        }
+    }
 }
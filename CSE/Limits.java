@@ -0,0 +1,136 @@
+package CSE;
+
+import Exceptions.LimitExceededException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+
+  Resource limits of one CSE machine run, checked on every step: the number of steps,
+  the time since the run started and the number of live environments (the depth of
+  nested calls). The clock and the thread's interrupt flag are looked at every
+  CLOCK_INTERVAL steps, so an interrupted run stops soon after. A limit of 0 is none.
+
+  Sub-machines of a parallel tuple run under limits made by fork(). They share the
+  deadline and the step budget of the run, taking steps from it CLOCK_INTERVAL at a
+  time (so a parallel run may go up to that many steps per sub-machine past the limit),
+  and stop soon after the thread that forked them is interrupted or the limits they
+  were made from are cancelled.
+
+ **/
+public class Limits {
+    private static final int CLOCK_INTERVAL = 4096;
+
+    private final long maxSteps;
+    private final long timeoutMillis;
+    private final long deadline;
+    private final int maxDepth;
+    private long steps = 0;
+
+    // Steps taken by the run and its sub-machines, counted CLOCK_INTERVAL at a time
+    private final AtomicLong spent;
+
+    // The limits these were forked from, and the thread that forked them
+    private final Limits parent;
+    private final Thread thread;
+    private volatile boolean isCancelled = false;
+
+    /**
+
+        Starts the clock of a run.
+
+        @param maxSteps      Steps the run may take
+        @param timeoutMillis Milliseconds the run may take
+        @param maxDepth      Environments that may be live at once
+
+     **/
+    public Limits(long maxSteps, long timeoutMillis, int maxDepth) {
+        this.maxSteps = maxSteps > 0 ? maxSteps : Long.MAX_VALUE;
+        this.timeoutMillis = timeoutMillis;
+        this.deadline = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1000000 : 0;
+        this.maxDepth = maxDepth > 0 ? maxDepth : Integer.MAX_VALUE;
+        this.spent = new AtomicLong();
+        this.parent = null;
+        this.thread = null;
+    }
+
+    private Limits(Limits parent) {
+        this.maxSteps = parent.maxSteps;
+        this.timeoutMillis = parent.timeoutMillis;
+        this.deadline = parent.deadline;
+        this.maxDepth = parent.maxDepth;
+        this.spent = parent.spent;
+        this.parent = parent;
+        this.thread = Thread.currentThread();
+    }
+
+    /**
+
+        @return Limits for a sub-machine forked by the current thread, sharing the
+                deadline and step budget of these and cancelled along with them
+
+     **/
+    public Limits fork() {
+        return new Limits(this);
+    }
+
+    /**
+
+        Stops the runs under these limits and those forked from them, at their next
+        look at the clock.
+
+     **/
+    public void cancel() {
+        this.isCancelled = true;
+    }
+
+    /**
+
+        Counts a step.
+
+        @param environments The number of live environments, including those of the
+                            machines this one was forked from
+        @throws LimitExceededException if the run went past a limit
+
+     **/
+    public void step(int environments) {
+        if (++this.steps > this.maxSteps) {
+            throw new LimitExceededException("steps", "Step limit of " + this.maxSteps + " exceeded");
+        }
+        if (environments > this.maxDepth) {
+            throw new LimitExceededException("depth", "Depth limit of " + this.maxDepth + " environments exceeded");
+        }
+        if (this.steps % CLOCK_INTERVAL == 0) {
+            if (this.spent.addAndGet(CLOCK_INTERVAL) > this.maxSteps) {
+                throw new LimitExceededException("steps", "Step limit of " + this.maxSteps + " exceeded");
+            }
+            if (this.deadline != 0 && System.nanoTime() - this.deadline > 0) {
+                throw new LimitExceededException("time", "Time limit of " + this.timeoutMillis + " ms exceeded");
+            }
+            if (Thread.currentThread().isInterrupted() || this.isInterrupted()) {
+                throw new LimitExceededException("interrupted", "Run interrupted");
+            }
+            if (this.isCancelled()) {
+                throw new LimitExceededException("cancelled", "Run abandoned");
+            }
+        }
+    }
+
+    // Whether a thread that forked these limits, waiting for the sub-machines, was interrupted
+    private boolean isInterrupted() {
+        for (Limits limits = this; limits != null; limits = limits.parent) {
+            if (limits.thread != null && limits.thread.isInterrupted()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isCancelled() {
+        for (Limits limits = this; limits != null; limits = limits.parent) {
+            if (limits.isCancelled) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
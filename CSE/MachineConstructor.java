@@ -1,5 +1,6 @@
 package CSE;
 
+import Builtins.BuiltinRegistry;
 import Symbols.*;
 import java.util.ArrayList;
 
@@ -14,9 +15,119 @@ public class MachineConstructor {
     private int i = 1;
     private int j = 0;
 
-    // Default constructor
+    // Identifiers bound by the enclosing lambdas, innermost first
+    private Bound bound = null;
+
+    // Gamma and Bop occurrences with their inline caches, and the lambda being built
+    private CallSites sites = new CallSites();
+    private int lambda = 0;
+
+    // Builtins that free identifiers are resolved against
+    private BuiltinRegistry registry;
+
+    // Call-by-need mode: rands and tuple components are delayed instead of evaluated
+    private boolean isLazy = false;
+
+    // Parallel mode: tuples with several heavy components are evaluated by forked sub-machines
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 24;
+    private boolean isParallel = false;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    // Whether no function of the program has effects, so its components may be forked
+    private boolean isPure = false;
+
+    // Eager mode: every delta is built up front instead of when the machine first enters it
+    private boolean isEager = false;
+
+    // Deltas built so far
+    private int built = 0;
+
+    // Name for the lambda about to be built, from the binding it is the value of
+    private String naming = null;
+
+    // Receives the time and allocation spent building deltas, null when off
+    private MachineStats stats = null;
+
+    /**
+
+        An identifier bound by a lambda, linked to those of the enclosing lambdas. Deltas
+        built later keep the list of the place they are built for.
+
+     **/
+    private static class Bound {
+        final String name;
+        final Bound next;
+
+        Bound(String name, Bound next) {
+            this.name = name;
+            this.next = next;
+        }
+    }
+
+    // Default constructor, only the core builtins are available
     public MachineConstructor() {
+        this(new BuiltinRegistry());
+    }
+
+    public MachineConstructor(BuiltinRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void setLazy(boolean isLazy) {
+        this.isLazy = isLazy;
+    }
+
+    /**
+
+        Enables the parallel mode (ignored in lazy mode, where thunks are shared state).
+
+        @param isParallel Whether to fork independent tuple components
+        @param threshold  Minimum number of nodes of a component worth forking
+
+     **/
+    public void setParallel(boolean isParallel, int threshold) {
+        this.isParallel = isParallel;
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+
+        Selects between building the deltas when the machine first enters them (the
+        default), so parts of the program a run never reaches are never built, and
+        building the whole control before the run starts.
 
+        @param isEager Whether to build every delta up front
+
+     **/
+    public void setEager(boolean isEager) {
+        this.isEager = isEager;
+    }
+
+    /**
+
+        @param stats Counters given the time and allocation spent flattening the tree, and to the machine
+
+     **/
+    public void setStats(MachineStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+
+        @return The number of deltas built so far
+
+     **/
+    public int getBuiltCount() {
+        return this.built;
+    }
+
+    /**
+
+        @return The gamma and binary operator occurrences built so far
+
+     **/
+    public CallSites getCallSites() {
+        return this.sites;
     }
 
     /**
@@ -33,7 +144,9 @@ public class MachineConstructor {
             // Unary operators
             case "not":
             case "neg":
-                return new Uop(node.getData());
+                Uop uop = new Uop(node.getData());
+                uop.setTyped(node.isTyped);
+                return uop;
             // Binary operators
             case "+":
             case "-":
@@ -49,10 +162,15 @@ public class MachineConstructor {
             case "gr":
             case "ge":
             case "aug":
-                return new Bop(node.getData());
+                Bop bop = new Bop(node.getData());
+                bop.setTyped(node.isTyped);
+                this.sites.add(bop, this.lambda);
+                return bop;
             // Gamma operator
             case "gamma":
-                return new Gamma();
+                Gamma gamma = new Gamma();
+                this.sites.add(gamma, this.lambda);
+                return gamma;
             // Tau operator, number of children passed to constructor
             case "tau":
                 return new Tau(node.children.size());
@@ -63,7 +181,13 @@ public class MachineConstructor {
             default:
                 if (node.getData().startsWith("<ID:")) {
                     // Extract identifier name without <ID: and >
-                    return new Id(node.getData().substring(4, node.getData().length() - 1));
+                    String name = node.getData().substring(4, node.getData().length() - 1);
+                    // Free identifiers naming a builtin are resolved here, once
+                    Builtin builtin = this.registry.resolve(name);
+                    if (builtin != null && !this.isBound(name)) {
+                        return builtin;
+                    }
+                    return new Id(name);
                 } else if (node.getData().startsWith("<INT:")) {
                     return new Int(node.getData().substring(5, node.getData().length() - 1));
                 } else if (node.getData().startsWith("<STR:")) {
@@ -112,20 +236,50 @@ public class MachineConstructor {
 
     public Lambda getLambda(Node node) {
         Lambda lambda = new Lambda(this.i++);  // assign unique id to lambda
-        lambda.setDelta(this.getDelta(node.children.get(1)));  // set delta from second child
+        lambda.setName(this.naming);
+        this.naming = null;
 
         // If multiple identifiers separated by ",", add each identifier separately
         if (",".equals(node.children.get(0).getData())) {
             for (Node identifier : node.children.get(0).children) {
-                lambda.identifiers.add(new Id(identifier.getData().substring(4, node.getData().length() - 1)));
+                lambda.identifiers.add(new Id(identifier.getData().substring(4, identifier.getData().length() - 1)));
             }
         } else {
             // Single identifier case
             lambda.identifiers.add(new Id(node.children.get(0).getData().substring(4, node.children.get(0).getData().length() - 1)));
         }
+
+        // The identifiers shadow any builtin of the same name inside the body
+        Bound enclosingBound = this.bound;
+        for (Id id : lambda.identifiers) {
+            this.bound = new Bound(id.getData(), this.bound);
+        }
+        int enclosing = this.lambda;
+        this.lambda = lambda.getIndex();
+        if ("lambda".equals(node.children.get(1).getData())) {
+            // The inner lambdas of a curried function share its name
+            this.naming = lambda.getName();
+        }
+        lambda.setDelta(this.getDelta(node.children.get(1)));  // set delta from second child
+        this.naming = null;
+        this.lambda = enclosing;
+        this.bound = enclosingBound;
         return lambda;
     }
 
+    private boolean isBound(String name) {
+        return isBound(this.bound, name);
+    }
+
+    private static boolean isBound(Bound bound, String name) {
+        for (Bound b = bound; b != null; b = b.next) {
+            if (b.name.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
 
         Performs pre-order traversal of the AST node tree,
@@ -148,21 +302,177 @@ public class MachineConstructor {
             symbols.add(this.getDelta(node.children.get(2)));
             symbols.add(new Beta());
             symbols.add(this.getB(node.children.get(0)));
+        } else if (this.isParallel && !this.isLazy && "tau".equals(node.getData()) && this.getHeavyCount(node) > 1) {
+            // Parallel mode: components become deltas for sub-machines
+            Fork fork = new Fork();
+            for (Node child : node.children) {
+                fork.components.add(this.getDelta(child));
+                fork.isHeavy.add(this.isHeavy(child));
+            }
+            symbols.add(fork);
+        } else if (this.isLazy && ("gamma".equals(node.getData()) || "tau".equals(node.getData()))) {
+            // Lazy mode: the rand of an application and tuple components become thunks
+            symbols.add(this.getSymbol(node));
+            for (int n = 0; n < node.children.size(); n++) {
+                Node child = node.children.get(n);
+                if (("tau".equals(node.getData()) || n == 1) && !this.isValue(child)) {
+                    symbols.add(new Delay(this.getDelta(child)));
+                } else {
+                    this.naming = n == 1 ? this.getBindingName(node) : null;
+                    symbols.addAll(this.getPreOrderTraverse(child));
+                }
+            }
         } else {
             // Regular node: add its symbol and recurse on children
             symbols.add(this.getSymbol(node));
-            for (Node child : node.children) {
-                symbols.addAll(this.getPreOrderTraverse(child));
+            for (int n = 0; n < node.children.size(); n++) {
+                this.naming = n == 1 ? this.getBindingName(node) : null;
+                symbols.addAll(this.getPreOrderTraverse(node.children.get(n)));
             }
         }
 
         return symbols;
     }
 
+    /**
+
+        Finds the name a gamma binds its lambda rand to: f in gamma(lambda f. E, lambda x. B)
+        from let f x = B in E, and in gamma(Y*, lambda f. lambda x. B) from rec f x = B.
+
+        @param node A node whose second child is about to be built
+        @return The name, or null if the node binds no lambda to a single identifier
+
+     **/
+    private String getBindingName(Node node) {
+        if (!"gamma".equals(node.getData()) || !"lambda".equals(node.children.get(1).getData())) {
+            return null;
+        }
+        Node rator = node.children.get(0);
+        Node binder;
+        if ("<Y*>".equals(rator.getData())) {
+            binder = node.children.get(1).children.get(0);
+        } else if ("lambda".equals(rator.getData())) {
+            binder = rator.children.get(0);
+        } else {
+            return null;
+        }
+        String data = binder.getData();
+        return data.startsWith("<ID:") ? data.substring(4, data.length() - 1) : null;
+    }
+
+    /**
+
+        Checks whether a node evaluates in a single cheap step (literals, identifiers
+        and lambdas), in which case delaying it in lazy mode would not pay off.
+
+        @param node The Node to check
+        @return Whether the node is a value
+
+     **/
+    private boolean isValue(Node node) {
+        return "lambda".equals(node.getData()) || node.getData().startsWith("<");
+    }
+
+    /**
+
+        Counts the components of a tau worth evaluating in parallel.
+
+     **/
+    private int getHeavyCount(Node tau) {
+        int n = 0;
+        for (Node child : tau.children) {
+            if (this.isHeavy(child)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+
+        Cost heuristic of the parallel mode: a component is heavy if it contains an
+        application and has at least the threshold number of nodes. Only the components
+        of pure programs that do not mention Print are forked, so no forked component
+        has effects.
+
+     **/
+    private boolean isHeavy(Node node) {
+        if (!this.isPure) {
+            return false;
+        }
+        int size = 0;
+        boolean isApplication = false;
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        nodes.add(node);
+        while (!nodes.isEmpty()) {
+            Node current = nodes.remove(nodes.size()-1);
+            size++;
+            isApplication |= "gamma".equals(current.getData());
+            if ("<ID:Print>".equals(current.getData())) {
+                return false;
+            }
+            nodes.addAll(current.children);
+        }
+        return isApplication && size >= this.parallelThreshold;
+    }
+
+    /**
+
+        Checks that no function of a program has effects: Print is only applied outside
+        of lambdas (other than those of lets), and every free identifier names a pure
+        builtin. Unknown identifiers are taken to be impure.
+
+        @param node       The Node to check
+        @param bound      The identifiers bound at the node
+        @param isInLambda Whether the node is in the body of a lambda
+        @return Whether the subtree is pure
+
+     **/
+    private boolean isPure(Node node, Bound bound, boolean isInLambda) {
+        if ("lambda".equals(node.getData())) {
+            return this.isPureBody(node, bound, true);
+        }
+        if (node.getData().startsWith("<ID:")) {
+            String name = node.getData().substring(4, node.getData().length() - 1);
+            return isBound(bound, name) || this.registry.isPure(name);
+        }
+        for (int n = 0; n < node.children.size(); n++) {
+            Node child = node.children.get(n);
+            if ("gamma".equals(node.getData()) && n == 0 && "<ID:Print>".equals(child.getData()) && !isInLambda) {
+                // Printing outside of any function happens on the machine that runs the program
+                continue;
+            }
+            boolean isLet = "gamma".equals(node.getData()) && n == 0 && "lambda".equals(child.getData());
+            // The body of let x = E in B runs once, where the let is
+            if (!(isLet ? this.isPureBody(child, bound, isInLambda) : this.isPure(child, bound, isInLambda))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPureBody(Node lambda, Bound bound, boolean isInLambda) {
+        Node binder = lambda.children.get(0);
+        ArrayList<Node> identifiers = new ArrayList<Node>();
+        if (",".equals(binder.getData())) {
+            identifiers.addAll(binder.children);
+        } else {
+            identifiers.add(binder);
+        }
+        for (Node identifier : identifiers) {
+            if (identifier.getData().startsWith("<ID:")) {
+                bound = new Bound(identifier.getData().substring(4, identifier.getData().length() - 1), bound);
+            }
+        }
+        return this.isPure(lambda.children.get(1), bound, isInLambda);
+    }
+
     /**
 
         Creates a Delta symbol for the given node by
         collecting symbols from pre-order traversal.
+        Unless in eager mode the traversal is left to the first entry into the
+        delta, with the bound identifiers and enclosing lambda of this place.
 
         @param node The Node to convert to Delta
         @return Delta symbol containing subtree symbols
@@ -170,10 +480,40 @@ public class MachineConstructor {
      **/
     public Delta getDelta(Node node) {
         Delta delta = new Delta(this.j++);
-        delta.symbols = this.getPreOrderTraverse(node);
+        if (this.isEager) {
+            delta.setSymbols(this.getPreOrderTraverse(node));
+            this.built++;
+        } else {
+            Bound bound = this.bound;
+            int lambda = this.lambda;
+            String naming = this.naming;
+            delta.setSource(() -> this.build(node, bound, lambda, naming));
+        }
         return delta;
     }
 
+    // Builds the symbols of a delta as if at the place it was created
+    private synchronized ArrayList<Symbol> build(Node node, Bound bound, int lambda, String naming) {
+        Bound enclosingBound = this.bound;
+        int enclosing = this.lambda;
+        this.bound = bound;
+        this.lambda = lambda;
+        this.naming = naming;
+        long start = this.stats != null ? System.nanoTime() : 0;
+        long allocated = this.stats != null ? PhaseMeter.getAllocatedBytes() : 0;
+        try {
+            this.built++;
+            return this.getPreOrderTraverse(node);
+        } finally {
+            this.bound = enclosingBound;
+            this.lambda = enclosing;
+            this.naming = null;
+            if (this.stats != null) {
+                this.stats.addFlatten(System.nanoTime() - start, PhaseMeter.getAllocatedBytes() - allocated);
+            }
+        }
+    }
+
     /**
 
         Builds the control list for the CSE machine from the AST.
@@ -184,6 +524,7 @@ public class MachineConstructor {
      */
 
     public ArrayList<Symbol> getControl(AST ast) {
+        this.isPure = this.isParallel && this.isPure(ast.getRoot(), null, false);
         ArrayList<Symbol> control = new ArrayList<Symbol>();
         control.add(this.e0);  // initial environment symbol
         control.add(this.getDelta(ast.getRoot()));  // delta representing the program
@@ -228,6 +569,15 @@ public class MachineConstructor {
 
      **/
     public CSEMachine getCSEMachine(AST ast) {
-        return new CSEMachine(this.getControl(ast), this.getStack(), this.getEnvironment());
+        long start = this.stats != null ? System.nanoTime() : 0;
+        long allocated = this.stats != null ? PhaseMeter.getAllocatedBytes() : 0;
+        CSEMachine machine = new CSEMachine(this.getControl(ast), this.getStack(), this.getEnvironment());
+        machine.setRegistry(this.registry);
+        machine.setLazy(this.isLazy);
+        if (this.stats != null) {
+            this.stats.addFlatten(System.nanoTime() - start, PhaseMeter.getAllocatedBytes() - allocated);
+            machine.setStats(this.stats);
+        }
+        return machine;
     }
 }
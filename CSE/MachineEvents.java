@@ -0,0 +1,123 @@
+package CSE;
+
+import Jfr.DeepRecursionEvent;
+import Jfr.LargeTupleEvent;
+import Jfr.MachineSampleEvent;
+import Symbols.Lambda;
+
+/**
+
+  Emits the JFR events of a CSE machine run: a MachineSampleEvent about every
+  SAMPLE_PERIOD_MILLIS, a DeepRecursionEvent each time the live environments reach a new
+  multiple of the recursion threshold and a LargeTupleEvent for each tuple reaching the
+  tuple threshold, by tau or by aug on a smaller tuple. A machine only gets one when
+  Flight Recorder has one of the events enabled at the start of the run, so otherwise it
+  costs a null check per step.
+
+ **/
+public class MachineEvents {
+    public static final long SAMPLE_PERIOD_MILLIS = 20;
+    public static final int DEFAULT_RECURSION_THRESHOLD = 10000;
+    public static final int DEFAULT_TUPLE_THRESHOLD = 100000;
+
+    // Steps between looking at the clock
+    private static final int CLOCK_INTERVAL = 4096;
+
+    private static int recursionThreshold = DEFAULT_RECURSION_THRESHOLD;
+    private static int tupleThreshold = DEFAULT_TUPLE_THRESHOLD;
+
+    private long steps = 0;
+    private long nextSample;
+    private int nextDepth = recursionThreshold;
+
+    private MachineEvents() {
+        this.nextSample = System.nanoTime() + SAMPLE_PERIOD_MILLIS * 1000000;
+    }
+
+    /**
+
+        @return The events of a new run, or null if Flight Recorder records none of them
+
+     **/
+    public static MachineEvents start() {
+        if (new MachineSampleEvent().isEnabled() || new DeepRecursionEvent().isEnabled() || new LargeTupleEvent().isEnabled()) {
+            return new MachineEvents();
+        }
+        return null;
+    }
+
+    /**
+
+        Sets the thresholds of the runs started from now on.
+
+        @param recursion Live environments reported as deep recursion, and each multiple of it
+        @param tuple     Size of the tuples reported as large
+
+     **/
+    public static void setThresholds(int recursion, int tuple) {
+        recursionThreshold = recursion;
+        tupleThreshold = tuple;
+    }
+
+    /**
+
+        Counts a step, sampling the machine when the period has passed.
+
+     **/
+    public void step(int control, int stack, int environments) {
+        if (++this.steps % CLOCK_INTERVAL != 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - this.nextSample < 0) {
+            return;
+        }
+        this.nextSample = now + SAMPLE_PERIOD_MILLIS * 1000000;
+        MachineSampleEvent event = new MachineSampleEvent();
+        if (event.shouldCommit()) {
+            event.steps = this.steps;
+            event.controlDepth = control;
+            event.stackDepth = stack;
+            event.liveEnvironments = environments;
+            event.commit();
+        }
+    }
+
+    /**
+
+        Reports a function entered with the given number of live environments, if deep enough.
+
+     **/
+    public void enter(Lambda lambda, int environments) {
+        if (environments < this.nextDepth) {
+            return;
+        }
+        this.nextDepth += recursionThreshold;
+        DeepRecursionEvent event = new DeepRecursionEvent();
+        if (event.shouldCommit()) {
+            event.depth = environments;
+            event.function = (lambda.getName() != null ? lambda.getName() : "lambda") + "[" + lambda.getIndex() + "]";
+            event.commit();
+        }
+    }
+
+    /**
+
+        Reports a tuple built by an operation, if it is large and its rand was not.
+
+        @param size     Size of the tuple built
+        @param previous Size of the tuple it was built from (0 for tau)
+
+     **/
+    public void tuple(int size, int previous, String operation) {
+        if (size < tupleThreshold || previous >= tupleThreshold) {
+            return;
+        }
+        LargeTupleEvent event = new LargeTupleEvent();
+        if (event.shouldCommit()) {
+            event.size = size;
+            event.operation = operation;
+            event.commit();
+        }
+    }
+}
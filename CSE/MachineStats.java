@@ -0,0 +1,161 @@
+package CSE;
+
+import java.io.PrintStream;
+
+/**
+
+  Counters of a CSE machine run, kept when the machine is given one (-stats):
+  the steps taken per rule, the largest control and value stacks, the environments
+  created and the most of them live at once. It also accumulates the time and
+  allocation spent flattening the tree into deltas, up front and as deltas are first
+  entered. Sub-machines of parallel tuples count into their own, added to those of the
+  machine that forked them once they finish, so that steps are counted without locks.
+
+ **/
+public class MachineStats {
+    public static final int LOOKUP = 0;          // Rule 1, identifiers and literals
+    public static final int CLOSURE = 1;         // Rule 2
+    public static final int BUILTIN = 2;         // Rule 3
+    public static final int APPLY = 3;           // Rule 4, including calls of compiled functions
+    public static final int EXIT = 4;            // Rule 5
+    public static final int UNARY = 5;           // Rule 6
+    public static final int BINARY = 6;          // Rule 7
+    public static final int CONDITIONAL = 7;     // Rule 8
+    public static final int TUPLE = 8;           // Rule 9
+    public static final int SELECT = 9;          // Rule 10
+    public static final int APPLY_TUPLE = 10;    // Rule 11
+    public static final int YSTAR = 11;          // Rule 12
+    public static final int ETA = 12;            // Rule 13
+    public static final int EXPAND = 13;         // Deltas and branches moved onto the control
+    public static final int OTHER = 14;          // Thunks, parallel tuples and dropped rators
+
+    private static final String[] NAMES = {
+        "1  lookup", "2  closure", "3  builtin", "4  apply", "5  exit environment", "6  unary operator",
+        "7  binary operator", "8  conditional", "9  tuple", "10 select", "11 apply to tuple", "12 Y*",
+        "13 eta", "-  expand delta", "-  other"
+    };
+
+    private final long[] steps = new long[NAMES.length];
+    private int maxControl = 0;
+    private int maxStack = 0;
+    private long environments = 0;
+    private int maxEnvironments = 0;
+    private long flattenNanos = 0;
+    private long flattenBytes = 0;
+    private int deltas = 0;
+
+    /**
+
+        Counts a step, sampling the depths of the stacks it started with.
+
+        @param rule    The rule applied, one of the constants above
+        @param control Size of the control
+        @param stack   Size of the value stack
+
+     **/
+    public void step(int rule, int control, int stack) {
+        this.steps[rule]++;
+        this.maxControl = Math.max(this.maxControl, control);
+        this.maxStack = Math.max(this.maxStack, stack);
+    }
+
+    /**
+
+        Counts an environment created.
+
+        @param live The number of environments live now, including it
+
+     **/
+    public void environmentCreated(int live) {
+        this.environments++;
+        this.maxEnvironments = Math.max(this.maxEnvironments, live);
+    }
+
+    /**
+
+        Adds time and allocation spent flattening the tree.
+
+     **/
+    public synchronized void addFlatten(long nanos, long bytes) {
+        this.flattenNanos += nanos;
+        this.flattenBytes += Math.max(0, bytes);
+    }
+
+    /**
+
+        Adds the counters of a sub-machine that has finished: its steps and environments
+        are added, and its deepest stacks taken if deeper, as they are separate stacks.
+
+     **/
+    public void add(MachineStats other) {
+        for (int i = 0; i < this.steps.length; i++) {
+            this.steps[i] += other.steps[i];
+        }
+        this.maxControl = Math.max(this.maxControl, other.maxControl);
+        this.maxStack = Math.max(this.maxStack, other.maxStack);
+        this.environments += other.environments;
+        this.maxEnvironments = Math.max(this.maxEnvironments, other.maxEnvironments);
+    }
+
+    public void setDeltas(int deltas) {
+        this.deltas = deltas;
+    }
+
+    public int getDeltas() {
+        return this.deltas;
+    }
+
+    public long getFlattenNanos() {
+        return this.flattenNanos;
+    }
+
+    public long getFlattenBytes() {
+        return this.flattenBytes;
+    }
+
+    public long getSteps(int rule) {
+        return this.steps[rule];
+    }
+
+    public long getTotalSteps() {
+        long total = 0;
+        for (long count : this.steps) {
+            total += count;
+        }
+        return total;
+    }
+
+    public int getMaxControl() {
+        return this.maxControl;
+    }
+
+    public int getMaxStack() {
+        return this.maxStack;
+    }
+
+    public long getEnvironments() {
+        return this.environments;
+    }
+
+    public int getMaxEnvironments() {
+        return this.maxEnvironments;
+    }
+
+    /**
+
+        Writes the counters, one line each.
+
+        @param out Destination of the report
+
+     **/
+    public void report(PrintStream out) {
+        out.printf("steps %d%n", this.getTotalSteps());
+        for (int i = 0; i < NAMES.length; i++) {
+            if (this.steps[i] > 0) {
+                out.printf("  %-20s %12d%n", NAMES[i], this.steps[i]);
+            }
+        }
+        out.printf("max control depth %d, max stack depth %d%n", this.maxControl, this.maxStack);
+        out.printf("environments created %d, peak live %d%n", this.environments, this.maxEnvironments);
+    }
+}
@@ -0,0 +1,40 @@
+package CSE;
+
+/**
+
+  Observes the phases of Interpreter.runProgram: lex, parse, serialize, ast (rebuilding
+  the tree from its serialized form), standardize, one phase per tree pass named after
+  it, and execute. Phases are reported in order on the thread running the program and
+  never overlap; a phase that throws is still ended. Sizes of the phases' results are
+  reported as well.
+
+ **/
+public interface PhaseListener {
+
+    /**
+
+        @param phase The name of the phase about to run
+
+     **/
+    void phaseStarted(String phase);
+
+    /**
+
+        @param phase The name of the phase that just finished
+
+     **/
+    void phaseEnded(String phase);
+
+    /**
+
+        Reports the size of what a phase produced: "tokens" after lex and "nodes" (of the
+        syntax tree) after serialize.
+
+        @param name  What was counted
+        @param count How many there are
+
+     **/
+    default void counted(String name, long count) {
+
+    }
+}
@@ -0,0 +1,131 @@
+package CSE;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+
+  A PhaseListener measuring each phase: wall time, bytes allocated by the running
+  thread (com.sun.management.ThreadMXBean, -1 where the JVM does not support it) and
+  peak heap use, the sum of the peaks of the heap memory pools since the phase started.
+  Work an engine hands to other threads (-parallel, -tiered) is timed but its
+  allocation is not counted.
+
+ **/
+public class PhaseMeter implements PhaseListener {
+
+    /**
+
+        The measurements of one run of a phase.
+
+     **/
+    public static class Phase {
+        private final String name;
+        private final long nanos;
+        private final long allocatedBytes;
+        private final long peakHeapBytes;
+
+        public Phase(String name, long nanos, long allocatedBytes, long peakHeapBytes) {
+            this.name = name;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        public long getPeakHeapBytes() {
+            return this.peakHeapBytes;
+        }
+    }
+
+    // Allocation counter of threads, null where the JVM has none
+    private static final com.sun.management.ThreadMXBean THREADS = getThreads();
+
+    private final ArrayList<Phase> phases = new ArrayList<Phase>();
+    private final List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+    private String current;
+    private long start;
+    private long allocated;
+
+    public PhaseMeter() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                this.pools.add(pool);
+            }
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getThreads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    /**
+
+        @return The bytes the current thread allocated since it started, or -1 if unknown
+
+     **/
+    public static long getAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    @Override
+    public void phaseStarted(String phase) {
+        for (MemoryPoolMXBean pool : this.pools) {
+            pool.resetPeakUsage();
+        }
+        this.current = phase;
+        this.allocated = getAllocatedBytes();
+        this.start = System.nanoTime();
+    }
+
+    @Override
+    public void phaseEnded(String phase) {
+        long nanos = System.nanoTime() - this.start;
+        long allocated = this.allocated < 0 ? -1 : getAllocatedBytes() - this.allocated;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : this.pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        this.phases.add(new Phase(this.current, nanos, allocated, peak));
+        this.current = null;
+    }
+
+    /**
+
+        @return The phases measured so far, in the order they ran
+
+     **/
+    public List<Phase> getPhases() {
+        return this.phases;
+    }
+
+    /**
+
+        Forgets the phases measured so far.
+
+     **/
+    public void clear() {
+        this.phases.clear();
+    }
+}
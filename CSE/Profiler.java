@@ -0,0 +1,208 @@
+package CSE;
+
+import Symbols.E;
+import Symbols.Id;
+import Symbols.Lambda;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+
+  Profiles a program at the level of its RPAL functions. The CSE machine keeps a shadow
+  call stack through it: a frame is pushed when rule 4 (or 11) enters a lambda's
+  environment and popped when rule 5 leaves that environment. Frames are labeled
+  name[index](parameters), where the name is the identifier a let or rec binds the
+  lambda to (lambda for anonymous ones) and the index the lambda's number.
+
+  Time is measured per frame with System.nanoTime: the self time of a frame is its time
+  less that of the frames it called. It is accumulated per call path, written as
+  collapsed stacks (main;F[1](x);G[2](y) nanoseconds, one path per line, as taken by
+  flamegraph.pl and similar tools), and per function for a table of the top ones.
+  Environments entered to force thunks (-lazy) are not frames, nor are those of the
+  lambda a rec wraps its function in (entered once per call to unroll the recursion),
+  nor are calls of compiled code (-tiered), whose time goes to the caller. Runs of a
+  machine are bracketed by start() and finish(); several runs accumulate.
+
+ **/
+public class Profiler {
+
+    // A function, the lambdas of one index
+    private static class Function {
+        final String label;
+        long calls = 0;
+        long selfNanos = 0;
+        long totalNanos = 0;    // Time in outermost activations, so recursion is not counted twice
+        int active = 0;         // Activations on the shadow stack
+
+        Function(String label) {
+            this.label = label;
+        }
+    }
+
+    // A call path, below the path of its caller
+    private static class Path {
+        final Function function;
+        final Path caller;
+        final HashMap<Function, Path> callees = new HashMap<Function, Path>();
+        long selfNanos = 0;
+
+        Path(Function function, Path caller) {
+            this.function = function;
+            this.caller = caller;
+        }
+    }
+
+    // An activation on the shadow stack
+    private static class Frame {
+        final E environment;
+        final Path path;
+        final long start;
+        long calleeNanos = 0;
+
+        Frame(E environment, Path path, long start) {
+            this.environment = environment;
+            this.path = path;
+            this.start = start;
+        }
+    }
+
+    private final HashMap<Integer, Function> functions = new HashMap<Integer, Function>();
+    private final Function main = new Function("main");
+    private final Path root = new Path(this.main, null);
+    private final ArrayList<Frame> frames = new ArrayList<Frame>();
+
+    /**
+
+        Starts timing the program, in the main frame.
+
+     **/
+    public void start() {
+        this.frames.add(new Frame(null, this.root, System.nanoTime()));
+        this.main.calls++;
+        this.main.active++;
+    }
+
+    /**
+
+        Pushes a frame for a lambda whose environment has just been entered.
+
+        @param lambda      The lambda applied
+        @param environment The environment created for its body
+
+     **/
+    public void enter(Lambda lambda, E environment) {
+        Function function = this.functions.get(lambda.getIndex());
+        if (function == null) {
+            function = new Function(getLabel(lambda));
+            this.functions.put(lambda.getIndex(), function);
+        }
+        Path caller = this.frames.get(this.frames.size() - 1).path;
+        Path path = caller.callees.get(function);
+        if (path == null) {
+            path = new Path(function, caller);
+            caller.callees.put(function, path);
+        }
+        function.calls++;
+        function.active++;
+        this.frames.add(new Frame(environment, path, System.nanoTime()));
+    }
+
+    /**
+
+        Pops the frame of an environment being left, if it has one.
+
+        @param environment The environment rule 5 removes
+
+     **/
+    public void exit(E environment) {
+        if (this.frames.size() > 1 && this.frames.get(this.frames.size() - 1).environment == environment) {
+            this.pop(System.nanoTime());
+        }
+    }
+
+    /**
+
+        Pops every frame still open, at the end of the run or after an error.
+
+     **/
+    public void finish() {
+        long now = System.nanoTime();
+        while (!this.frames.isEmpty()) {
+            this.pop(now);
+        }
+    }
+
+    private void pop(long now) {
+        Frame frame = this.frames.remove(this.frames.size() - 1);
+        long nanos = now - frame.start;
+        Function function = frame.path.function;
+        frame.path.selfNanos += nanos - frame.calleeNanos;
+        function.selfNanos += nanos - frame.calleeNanos;
+        if (--function.active == 0) {
+            function.totalNanos += nanos;
+        }
+        if (!this.frames.isEmpty()) {
+            this.frames.get(this.frames.size() - 1).calleeNanos += nanos;
+        }
+    }
+
+    private static String getLabel(Lambda lambda) {
+        StringBuilder label = new StringBuilder(lambda.getName() != null ? lambda.getName() : "lambda");
+        label.append('[').append(lambda.getIndex()).append("](");
+        for (int i = 0; i < lambda.identifiers.size(); i++) {
+            Id id = lambda.identifiers.get(i);
+            label.append(i > 0 ? "," : "").append(id.getData());
+        }
+        return label.append(')').toString();
+    }
+
+    /**
+
+        Writes the self time of every call path as collapsed stacks, frames separated by
+        semicolons and followed by the nanoseconds spent in the last one, once the runs have finished.
+
+        @param out Destination of the stacks
+        @throws IOException if the destination fails
+
+     **/
+    public void writeCollapsed(Appendable out) throws IOException {
+        ArrayList<Path> paths = new ArrayList<Path>();
+        paths.add(this.root);
+        while (!paths.isEmpty()) {
+            Path path = paths.remove(paths.size() - 1);
+            paths.addAll(path.callees.values());
+            if (path.selfNanos <= 0) {
+                continue;
+            }
+            ArrayList<String> labels = new ArrayList<String>();
+            for (Path p = path; p != null; p = p.caller) {
+                labels.add(0, p.function.label);
+            }
+            out.append(String.join(";", labels)).append(' ').append(Long.toString(path.selfNanos)).append('\n');
+        }
+    }
+
+    /**
+
+        Writes the functions with the most self time, with their calls and total time,
+        once the runs have finished.
+
+        @param out   Destination of the table
+        @param count The number of functions to list
+
+     **/
+    public void report(PrintStream out, int count) {
+        ArrayList<Function> ranked = new ArrayList<Function>(this.functions.values());
+        ranked.add(this.main);
+        ranked.sort((a, b) -> Long.compare(b.selfNanos, a.selfNanos));
+        long total = Math.max(1, this.main.totalNanos);
+        out.printf("%-32s %10s %12s %7s %12s%n", "function", "calls", "self (ms)", "self %", "total (ms)");
+        for (int i = 0; i < Math.min(count, ranked.size()); i++) {
+            Function function = ranked.get(i);
+            out.printf("%-32s %10d %12.3f %6.1f%% %12.3f%n", function.label, function.calls,
+                    function.selfNanos / 1e6, 100.0 * function.selfNanos / total, function.totalNanos / 1e6);
+        }
+    }
+}
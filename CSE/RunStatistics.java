@@ -0,0 +1,84 @@
+package CSE;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+
+/**
+
+  The -stats report of a run: the time and allocation of each phase, the sizes of the
+  token list and syntax tree, and, on the CSE machine, the deltas built and the
+  MachineStats of the run. Flattening the tree into deltas happens inside the execute
+  phase (on first entry of each delta, unless -eager), so it is measured there and
+  reported as its own phase, taken out of execute.
+
+ **/
+public class RunStatistics implements PhaseListener {
+    private final PhaseMeter meter = new PhaseMeter();
+    private final MachineStats machine = new MachineStats();
+    private final LinkedHashMap<String, Long> counts = new LinkedHashMap<String, Long>();
+
+    @Override
+    public void phaseStarted(String phase) {
+        this.meter.phaseStarted(phase);
+    }
+
+    @Override
+    public void phaseEnded(String phase) {
+        this.meter.phaseEnded(phase);
+    }
+
+    @Override
+    public void counted(String name, long count) {
+        this.counts.put(name, count);
+    }
+
+    /**
+
+        @return The counters to give the CSE engine
+
+     **/
+    public MachineStats getMachineStats() {
+        return this.machine;
+    }
+
+    /**
+
+        Writes the report.
+
+        @param out         Destination of the report
+        @param isCSEEngine Whether the program ran on the CSE machine, so the machine counters apply
+
+     **/
+    public void report(PrintStream out, boolean isCSEEngine) {
+        long totalNanos = 0;
+        long totalBytes = 0;
+        out.printf("%-12s %10s %14s%n", "phase", "time (ms)", "allocated (B)");
+        for (PhaseMeter.Phase phase : this.meter.getPhases()) {
+            long nanos = phase.getNanos();
+            long bytes = phase.getAllocatedBytes();
+            if (isCSEEngine && phase.getName().equals("execute")) {
+                long flattenBytes = bytes < 0 ? -1 : this.machine.getFlattenBytes();
+                out.printf("%-12s %10.3f %14d%n", "flatten", this.machine.getFlattenNanos() / 1e6, flattenBytes);
+                nanos -= this.machine.getFlattenNanos();
+                bytes = bytes < 0 ? -1 : Math.max(0, bytes - flattenBytes);
+                totalNanos += this.machine.getFlattenNanos();
+                totalBytes += Math.max(0, flattenBytes);
+            }
+            out.printf("%-12s %10.3f %14d%n", phase.getName(), nanos / 1e6, bytes);
+            totalNanos += nanos;
+            totalBytes += Math.max(0, bytes);
+        }
+        out.printf("%-12s %10.3f %14d%n", "total", totalNanos / 1e6, totalBytes);
+
+        StringBuilder sizes = new StringBuilder();
+        sizes.append("tokens ").append(this.counts.getOrDefault("tokens", 0L));
+        sizes.append(", AST nodes ").append(this.counts.getOrDefault("nodes", 0L));
+        if (isCSEEngine) {
+            sizes.append(", deltas ").append(this.machine.getDeltas());
+        }
+        out.println(sizes);
+        if (isCSEEngine) {
+            this.machine.report(out);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package CSE;
+
+import Builtins.BuiltinRegistry;
+import Output.OutputSink;
+import Standardizer.AST;
+import Standardizer.LambdaLifter;
+import Standardizer.Node;
+import Standardizer.NodeConstructor;
+import Standardizer.Pass;
+import Symbols.Bool;
+import Symbols.Dummy;
+import Symbols.Int;
+import Symbols.Str;
+import Symbols.Symbol;
+import Symbols.Tup;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+
+  Partial evaluation of a program against known values of some of its identifiers.
+
+  The given values replace the definitions of top-level let bindings of the same name,
+  and are bound around the program for free identifiers. The tree is then walked with
+  the bindings known so far: an expression whose identifiers are all bound to known
+  values or functions (or name builtins the registry says are pure, so not Print) is
+  static, and is evaluated on the CSE machine together with the definitions it uses. If
+  its value is an integer, string, truth value, dummy or tuple of these it replaces the
+  expression in the residual program. Conditionals with a static condition are reduced to their branch,
+  and let bindings no longer used are dropped.
+
+  Only expressions the program evaluates whenever it runs are evaluated this way, so
+  specializing does not run code the program itself would not. The tree is walked in
+  the order the CSE machine evaluates it (rands before rators, right to left), and once
+  one of these expressions fails the ones after it are not certain to be reached.
+  Elsewhere (in function bodies and conditional branches, and after a failure) only
+  expressions without calls to functions other than builtins are evaluated, which
+  always terminate. Expressions whose evaluation fails are left in the residual
+  program, to fail when it runs.
+
+ **/
+public class Specializer implements Pass {
+    // Largest value, in nodes, put in the residual program in place of an expression
+    private static final int MAX_VALUE_SIZE = 10000;
+
+    private final BuiltinRegistry registry;
+    private final LinkedHashMap<String, Symbol> values;
+    private int evaluated;
+    private boolean isFailed;    // A static expression the program evaluates failed, later ones may not be reached
+
+    /**
+
+        A let binding or lambda parameter in scope, linked to the enclosing ones.
+
+     **/
+    private static class Binding {
+        final String name;
+        final Node definition;    // The specialized definition, null for parameters
+        final boolean isStatic;   // Bound to a known value or function
+        final Binding parent;
+
+        Binding(String name, Node definition, boolean isStatic, Binding parent) {
+            this.name = name;
+            this.definition = definition;
+            this.isStatic = isStatic;
+            this.parent = parent;
+        }
+    }
+
+    /**
+
+        @param registry Builtins the static parts are evaluated with
+        @param values   Known values of identifiers: integers, strings, truth values, dummy or tuples of these
+
+     **/
+    public Specializer(BuiltinRegistry registry, Map<String, Symbol> values) {
+        this.registry = registry;
+        this.values = new LinkedHashMap<String, Symbol>(values);
+    }
+
+    @Override
+    public String getName() {
+        return "specialize";
+    }
+
+    @Override
+    public String getFingerprint() {
+        StringBuilder fingerprint = new StringBuilder(this.getName()).append('(');
+        for (Map.Entry<String, Symbol> value : this.values.entrySet()) {
+            fingerprint.append(value.getKey()).append('=');
+            appendValue(fingerprint, value.getValue());
+            fingerprint.append(';');
+        }
+        return fingerprint.append(')').toString();
+    }
+
+    // A known value with its type, so that 1 and '1' differ
+    private static void appendValue(StringBuilder fingerprint, Symbol value) {
+        if (value instanceof Tup) {
+            fingerprint.append('(');
+            for (Symbol component : ((Tup) value).symbols) {
+                appendValue(fingerprint, component);
+                fingerprint.append(',');
+            }
+            fingerprint.append(')');
+        } else {
+            String data = value.getData();
+            fingerprint.append(value.getClass().getSimpleName()).append(':').append(data.length()).append(':').append(data);
+        }
+    }
+
+    @Override
+    public String apply(AST ast) {
+        Node root = ast.getRoot();
+        int before = getSize(root);
+        this.evaluated = 0;
+        this.isFailed = false;
+
+        // Known values replace the definitions of top-level lets, or are bound around the program
+        LinkedHashMap<String, Symbol> unbound = new LinkedHashMap<String, Symbol>(this.values);
+        for (Node let = root; isLet(let); let = let.children.get(0).children.get(1)) {
+            Node variables = let.children.get(0).children.get(0);
+            Node definition = let.children.get(1);
+            if (variables.getData().startsWith("<ID:")) {
+                this.bindValue(let, 1, getName(variables), unbound);
+            } else if ("tau".equals(definition.getData()) && definition.children.size() == variables.children.size()) {
+                for (int i = 0; i < variables.children.size(); i++) {
+                    this.bindValue(definition, i, getName(variables.children.get(i)), unbound);
+                }
+            }
+        }
+        ArrayList<String> free = new ArrayList<String>();
+        getFree(root, new ArrayList<String>(), free);
+        for (Map.Entry<String, Symbol> entry : unbound.entrySet()) {
+            if (free.contains(entry.getKey())) {
+                root = gamma(lambda(entry.getKey(), root), toNode(entry.getValue()));
+            }
+        }
+
+        root = this.specialize(root, null, true);
+        LambdaLifter.relink(root, null, 0);
+        ast.setRoot(root);
+        return this.evaluated + " expressions evaluated, " + before + " nodes reduced to " + getSize(root);
+    }
+
+    private void bindValue(Node parent, int index, String name, Map<String, Symbol> unbound) {
+        if (unbound.containsKey(name)) {
+            parent.children.set(index, toNode(unbound.remove(name)));
+        }
+    }
+
+    // Specializes node under the given bindings; isCertain if the program evaluates it whenever it runs
+    private Node specialize(Node node, Binding bindings, boolean isCertain) {
+        isCertain &= !this.isFailed;
+        if (node.getData().startsWith("<ID:")) {
+            Binding binding = lookup(getName(node), bindings);
+            if (binding != null && binding.isStatic && isValue(binding.definition)) {
+                return copy(binding.definition);
+            }
+            return node;
+        }
+        if (!isValue(node) && !"lambda".equals(node.getData())
+                && this.isStatic(node, bindings) && (isCertain || this.isTerminating(node, bindings))) {
+            Node value = this.evaluate(node, bindings, isCertain);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        if (isLet(node)) {
+            Node lambda = node.children.get(0);
+            String name = getName(lambda.children.get(0));
+            Node definition = this.specialize(node.children.get(1), bindings, isCertain);
+            boolean isStatic = (isValue(definition) || isFunction(definition)) && this.isStatic(definition, bindings);
+            Node body = this.specialize(lambda.children.get(1), new Binding(name, definition, isStatic, bindings), isCertain);
+
+            ArrayList<String> free = new ArrayList<String>();
+            getFree(body, new ArrayList<String>(), free);
+            if (!free.contains(name) && (isValue(definition) || isFunction(definition))) {
+                return body;
+            }
+            return gamma(lambda(name, body), definition);
+        } else if ("lambda".equals(node.getData())) {
+            Binding inner = bindings;
+            for (String parameter : getParameters(node)) {
+                inner = new Binding(parameter, null, false, inner);
+            }
+            node.children.set(1, this.specialize(node.children.get(1), inner, false));
+            return node;
+        } else if ("->".equals(node.getData())) {
+            Node condition = this.specialize(node.children.get(0), bindings, isCertain);
+            if ("<true>".equals(condition.getData())) {
+                return this.specialize(node.children.get(1), bindings, isCertain);
+            } else if ("<false>".equals(condition.getData())) {
+                return this.specialize(node.children.get(2), bindings, isCertain);
+            }
+            node.children.set(0, condition);
+            node.children.set(1, this.specialize(node.children.get(1), bindings, false));
+            node.children.set(2, this.specialize(node.children.get(2), bindings, false));
+            return node;
+        }
+        for (int i = node.children.size()-1; i >= 0; i--) {
+            node.children.set(i, this.specialize(node.children.get(i), bindings, isCertain));
+        }
+        return node;
+    }
+
+    // Whether every identifier used by node is bound statically, or names a pure builtin, so
+    // that evaluating it has no effect that would be lost from the residual program
+    private boolean isStatic(Node node, Binding bindings) {
+        ArrayList<String> free = new ArrayList<String>();
+        getFree(node, new ArrayList<String>(), free);
+        for (String name : free) {
+            Binding binding = lookup(name, bindings);
+            if (binding == null ? !this.registry.isPure(name) : !binding.isStatic) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Whether evaluating node certainly terminates: it applies nothing but builtins
+    private boolean isTerminating(Node node, Binding bindings) {
+        if ("<Y*>".equals(node.getData())) {
+            return false;
+        } else if ("gamma".equals(node.getData())) {
+            Node rator = node.children.get(0);
+            while ("gamma".equals(rator.getData())) {
+                rator = rator.children.get(0);
+            }
+            if (!rator.getData().startsWith("<ID:") || lookup(getName(rator), bindings) != null) {
+                return false;
+            }
+        }
+        for (Node child : node.children) {
+            if (!"lambda".equals(child.getData()) && !this.isTerminating(child, bindings)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Evaluates a static expression with the definitions it uses, null if it fails or has no residual form
+    private Node evaluate(Node node, Binding bindings, boolean isCertain) {
+        // The definitions used, directly or through other definitions
+        IdentityHashMap<Binding, Boolean> used = new IdentityHashMap<Binding, Boolean>();
+        this.addUsed(node, bindings, used);
+        Node program = node;
+        for (Binding binding = bindings; binding != null; binding = binding.parent) {
+            if (used.containsKey(binding)) {
+                program = gamma(lambda(binding.name, program), binding.definition);
+            }
+        }
+
+        Symbol value;
+        try {
+            value = new CSEEngine(this.registry).execute(new AST(program), OutputSink.memory());
+        } catch (RuntimeException | StackOverflowError e) {
+            this.isFailed |= isCertain;
+            return null;
+        }
+        Node residual = toNode(value);
+        if (residual == null || getSize(residual) > MAX_VALUE_SIZE) {
+            return null;
+        }
+        this.evaluated++;
+        return residual;
+    }
+
+    private void addUsed(Node node, Binding bindings, IdentityHashMap<Binding, Boolean> used) {
+        ArrayList<String> free = new ArrayList<String>();
+        getFree(node, new ArrayList<String>(), free);
+        for (String name : free) {
+            Binding binding = lookup(name, bindings);
+            if (binding != null && !used.containsKey(binding)) {
+                used.put(binding, true);
+                this.addUsed(binding.definition, binding.parent, used);
+            }
+        }
+    }
+
+    /**
+
+        @param value A value of the program
+        @return The tree of an expression evaluating to it, or null if it is not a tuple of atoms
+
+     **/
+    private static Node toNode(Symbol value) {
+        if (value instanceof Int) {
+            return getNode("<INT:" + value.getData() + ">");
+        } else if (value instanceof Str) {
+            return getNode("<STR:'" + value.getData() + "'>");
+        } else if (value instanceof Bool) {
+            return getNode(((Bool) value).getValue() ? "<true>" : "<false>");
+        } else if (value instanceof Dummy) {
+            return getNode("<dummy>");
+        } else if (value instanceof Tup) {
+            List<Symbol> symbols = ((Tup) value).symbols;
+            if (symbols.isEmpty()) {
+                return getNode("<nil>");
+            }
+            Node tau = getNode(symbols.size() == 1 ? "aug" : "tau");
+            if (symbols.size() == 1) {
+                tau.children.add(getNode("<nil>"));
+            }
+            for (Symbol symbol : symbols) {
+                Node child = toNode(symbol);
+                if (child == null) {
+                    return null;
+                }
+                tau.children.add(child);
+            }
+            return tau;
+        }
+        return null;
+    }
+
+    // Literals and tuples of them
+    private static boolean isValue(Node node) {
+        String data = node.getData();
+        if ("tau".equals(data) || "aug".equals(data) && "<nil>".equals(node.children.get(0).getData())) {
+            for (Node child : node.children) {
+                if (!isValue(child)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return data.startsWith("<INT:") || data.startsWith("<STR:")
+                || "<true>".equals(data) || "<false>".equals(data) || "<nil>".equals(data) || "<dummy>".equals(data);
+    }
+
+    // A lambda, or a recursive one
+    private static boolean isFunction(Node node) {
+        return "lambda".equals(node.getData())
+                || "gamma".equals(node.getData()) && "<Y*>".equals(node.children.get(0).getData())
+                && "lambda".equals(node.children.get(1).getData());
+    }
+
+    // gamma (lambda x. P) E, binding a single identifier
+    private static boolean isLet(Node node) {
+        return "gamma".equals(node.getData())
+                && "lambda".equals(node.children.get(0).getData())
+                && node.children.get(0).children.get(0).getData().startsWith("<ID:");
+    }
+
+    private static Binding lookup(String name, Binding bindings) {
+        for (Binding binding = bindings; binding != null; binding = binding.parent) {
+            if (binding.name.equals(name)) {
+                return binding;
+            }
+        }
+        return null;
+    }
+
+    // Collects the identifiers used below node and not bound inside it
+    private static void getFree(Node node, ArrayList<String> bound, ArrayList<String> free) {
+        if ("lambda".equals(node.getData())) {
+            ArrayList<String> parameters = getParameters(node);
+            bound.addAll(parameters);
+            getFree(node.children.get(1), bound, free);
+            for (int i = 0; i < parameters.size(); i++) {
+                bound.remove(bound.size()-1);
+            }
+        } else if (node.getData().startsWith("<ID:")) {
+            String name = getName(node);
+            if (!bound.contains(name) && !free.contains(name)) {
+                free.add(name);
+            }
+        } else {
+            for (Node child : node.children) {
+                getFree(child, bound, free);
+            }
+        }
+    }
+
+    private static int getSize(Node node) {
+        int size = 1;
+        for (Node child : node.children) {
+            size += getSize(child);
+        }
+        return size;
+    }
+
+    private static String getName(Node identifier) {
+        return identifier.getData().substring(4, identifier.getData().length() - 1);
+    }
+
+    private static ArrayList<String> getParameters(Node lambda) {
+        ArrayList<String> parameters = new ArrayList<String>();
+        Node variables = lambda.children.get(0);
+        if (",".equals(variables.getData())) {
+            for (Node identifier : variables.children) {
+                parameters.add(getName(identifier));
+            }
+        } else if (variables.getData().startsWith("<ID:")) {
+            parameters.add(getName(variables));
+        }
+        return parameters;
+    }
+
+    private static Node copy(Node node) {
+        Node copy = getNode(node.getData());
+        for (Node child : node.children) {
+            copy.children.add(copy(child));
+        }
+        return copy;
+    }
+
+    private static Node getNode(String data) {
+        return NodeConstructor.getNode(data, 0, null, new ArrayList<Node>(), true);
+    }
+
+    private static Node gamma(Node rator, Node rand) {
+        Node gamma = getNode("gamma");
+        gamma.children.add(rator);
+        gamma.children.add(rand);
+        return gamma;
+    }
+
+    private static Node lambda(String parameter, Node body) {
+        Node lambda = getNode("lambda");
+        lambda.children.add(getNode("<ID:" + parameter + ">"));
+        lambda.children.add(body);
+        return lambda;
+    }
+}
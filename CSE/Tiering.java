@@ -0,0 +1,122 @@
+package CSE;
+
+import Builtins.Evaluator;
+import Closure.CompiledLambda;
+import Closure.DeltaCompiler;
+import Symbols.Lambda;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+
+  Profile of a CSE machine's lambdas, promoting hot ones to compiled code.
+  Each lambda (by index) counts its invocations (rule 4) and back-edges (recursive
+  calls through an eta, rule 13). Once their sum reaches the threshold the lambda
+  is compiled by the DeltaCompiler on a background thread; the machine keeps
+  interpreting it until the compiled code is published, and calls that from then on.
+
+ **/
+public class Tiering {
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    // Shared by all machines, a daemon so it never keeps the JVM alive
+    private static final ExecutorService COMPILER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rpal-tier-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int threshold;
+    private final PrintStream log;
+    private final long start = System.nanoTime();
+
+    // Touched by the machine's thread only
+    private int[] invocations = new int[16];
+    private int[] backEdges = new int[16];
+    private final HashSet<Integer> queued = new HashSet<Integer>();
+
+    // Published by the compiler thread
+    private final ConcurrentHashMap<Integer, CompiledLambda> compiled = new ConcurrentHashMap<Integer, CompiledLambda>();
+
+    /**
+
+        @param threshold Invocations plus back-edges after which a lambda is compiled
+        @param log       Destination of the tier-up log, or null for none
+
+     **/
+    public Tiering(int threshold, PrintStream log) {
+        this.threshold = threshold;
+        this.log = log;
+    }
+
+    /**
+
+        @param index A lambda index
+        @return The compiled code of the lambda, or null while it is interpreted
+
+     **/
+    public CompiledLambda getCompiled(int index) {
+        return this.compiled.get(index);
+    }
+
+    /**
+
+        Counts an interpreted application of a lambda.
+
+        @param lambda    The lambda applied
+        @param evaluator The machine the compiled code applies other values with
+
+     **/
+    public void recordInvocation(Lambda lambda, Evaluator evaluator) {
+        this.grow(lambda.getIndex());
+        this.invocations[lambda.getIndex()]++;
+        this.check(lambda, evaluator);
+    }
+
+    /**
+
+        Counts a recursive call of a lambda through its eta.
+
+     **/
+    public void recordBackEdge(Lambda lambda, Evaluator evaluator) {
+        this.grow(lambda.getIndex());
+        this.backEdges[lambda.getIndex()]++;
+        this.check(lambda, evaluator);
+    }
+
+    private void check(Lambda lambda, Evaluator evaluator) {
+        int index = lambda.getIndex();
+        if (this.invocations[index] + this.backEdges[index] < this.threshold || !this.queued.add(index)) {
+            return;
+        }
+        this.log("lambda %d queued after %d invocations and %d back-edges", index, this.invocations[index], this.backEdges[index]);
+        COMPILER.execute(() -> {
+            try {
+                this.compiled.put(index, new DeltaCompiler(evaluator).compile(lambda));
+                this.log("lambda %d compiled", index);
+            } catch (RuntimeException e) {
+                // Stays interpreted
+                this.log("lambda %d not compiled: %s", index, e.getMessage());
+            }
+        });
+    }
+
+    private void grow(int index) {
+        if (index >= this.invocations.length) {
+            int length = Math.max(index + 1, this.invocations.length * 2);
+            this.invocations = Arrays.copyOf(this.invocations, length);
+            this.backEdges = Arrays.copyOf(this.backEdges, length);
+        }
+    }
+
+    private void log(String format, Object... args) {
+        if (this.log != null) {
+            double elapsed = (System.nanoTime() - this.start) / 1e6;
+            this.log.println(String.format("[tier %9.3f ms] ", elapsed) + String.format(format, args));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package Closure;
+
+import Builtins.Evaluator;
+import Symbols.Symbol;
+
+/**
+
+  An application (gamma). The rand is evaluated before the rator, as on the CSE machine.
+  Calls of closures take a direct path, anything else goes through the evaluator.
+
+ **/
+class Apply extends Code {
+    private final Code rator;
+    private final Code rand;
+    private final Evaluator evaluator;
+
+    Apply(Code rator, Code rand, Evaluator evaluator) {
+        this.rator = rator;
+        this.rand = rand;
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        Symbol argument = this.rand.eval(frame);
+        Symbol function = this.rator.eval(frame);
+        if (function instanceof FunctionValue) {
+            return ((FunctionValue) function).call(argument);
+        }
+        return this.evaluator.apply(function, argument);
+    }
+}
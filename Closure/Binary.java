@@ -0,0 +1,51 @@
+package Closure;
+
+import CSE.CSEMachine;
+import Symbols.Bop;
+import Symbols.Int;
+import Symbols.Symbol;
+
+/**
+
+  A binary operator. The right rand is evaluated first, as on the CSE machine.
+  Arithmetic and comparison sites specialize themselves to unboxed integer operations
+  once they have seen integer rands; a site that later sees anything else rewrites
+  itself to the CSE machine's generic operation for good. Sites typed by type inference
+  apply their operation without checks from the start.
+
+ **/
+class Binary extends Code {
+    private static final int UNINITIALIZED = 0;
+    private static final int INT = 1;
+    private static final int GENERIC = 2;
+    private static final int TYPED = 3;
+
+    private final Bop rator;
+    private final Code left;
+    private final Code right;
+    private int state;
+
+    Binary(Bop rator, Code left, Code right) {
+        this.rator = rator;
+        this.left = left;
+        this.right = right;
+        this.state = rator.isTyped() ? TYPED : UNINITIALIZED;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        Symbol value2 = this.right.eval(frame);
+        Symbol value1 = this.left.eval(frame);
+        if (this.state == TYPED) {
+            return this.rator.applyTyped(value1, value2);
+        } else if (this.state == INT) {
+            if (value1 instanceof Int && value2 instanceof Int) {
+                return this.rator.applyInt(((Int) value1).getValue(), ((Int) value2).getValue());
+            }
+            this.state = GENERIC;
+        } else if (this.state == UNINITIALIZED) {
+            this.state = this.rator.getOperation() >= 0 && value1 instanceof Int && value2 instanceof Int ? INT : GENERIC;
+        }
+        return CSEMachine.applyBinaryOperation(this.rator, value1, value2);
+    }
+}
@@ -0,0 +1,145 @@
+package Closure;
+
+import Builtins.BuiltinRegistry;
+import CSE.MachineConstructor;
+import Standardizer.AST;
+import Standardizer.Node;
+import Symbols.*;
+import java.util.ArrayList;
+
+/**
+
+  Compiles a standardized tree into Code for the closure engine.
+  Identifiers are resolved to frame positions here, so evaluation never searches
+  environments; free identifiers become builtins or, as on the CSE machine, plain names.
+
+ **/
+public class ClosureCompiler {
+    private final BuiltinRegistry registry;
+    private final ClosureRuntime runtime;
+
+    // Decodes literals and operators the same way as for the CSE machine
+    private final MachineConstructor symbols;
+
+    // Counter for Lambda identifiers, numbered in the same order as by the MachineConstructor
+    private int i = 1;
+
+    public ClosureCompiler(BuiltinRegistry registry, ClosureRuntime runtime) {
+        this.registry = registry;
+        this.runtime = runtime;
+        this.symbols = new MachineConstructor(registry);
+    }
+
+    /**
+
+        Names bound by one lambda (or rec), linked to the enclosing scope.
+
+     **/
+    private static class Scope {
+        final ArrayList<String> names;
+        final Scope parent;
+
+        Scope(ArrayList<String> names, Scope parent) {
+            this.names = names;
+            this.parent = parent;
+        }
+    }
+
+    /**
+
+        @param ast The standardized tree
+        @return The compiled program, evaluated with an empty frame
+
+     **/
+    public Code compile(AST ast) {
+        return this.compile(ast.getRoot(), null);
+    }
+
+    private Code compile(Node node, Scope scope) {
+        switch (node.getData()) {
+            case "lambda":
+                return this.compileLambda(node, scope);
+            case "gamma": {
+                Node rator = node.children.get(0);
+                Node rand = node.children.get(1);
+                if (this.isRec(rator, rand)) {
+                    // Y* (lambda f. lambda ...): bind f to the inner closure directly
+                    this.i++;
+                    ArrayList<String> names = this.getIdentifiers(rand);
+                    return new Rec(this.compile(rand.children.get(1), new Scope(names, scope)));
+                }
+                Code ratorCode = this.compile(rator, scope);
+                return new Apply(ratorCode, this.compile(rand, scope), this.runtime);
+            }
+            case "->": {
+                // Branches first, like the MachineConstructor's deltas
+                Code then = this.compile(node.children.get(1), scope);
+                Code otherwise = this.compile(node.children.get(2), scope);
+                return new Conditional(this.compile(node.children.get(0), scope), then, otherwise);
+            }
+            case "tau": {
+                Code[] components = new Code[node.children.size()];
+                for (int n = 0; n < components.length; n++) {
+                    components[n] = this.compile(node.children.get(n), scope);
+                }
+                return new Tuple(components);
+            }
+            default:
+                if (node.getData().startsWith("<ID:")) {
+                    return this.compileIdentifier(node.getData().substring(4, node.getData().length() - 1), scope);
+                }
+                Symbol symbol = this.symbols.getSymbol(node);
+                if (symbol instanceof Uop) {
+                    return new Unary((Uop) symbol, this.compile(node.children.get(0), scope));
+                } else if (symbol instanceof Bop) {
+                    Code left = this.compile(node.children.get(0), scope);
+                    return new Binary((Bop) symbol, left, this.compile(node.children.get(1), scope));
+                }
+                return new Literal(symbol);
+        }
+    }
+
+    private Code compileLambda(Node node, Scope scope) {
+        LambdaCode lambda = new LambdaCode(this.i++, new ArrayList<Id>());
+        ArrayList<String> names = this.getIdentifiers(node);
+        for (String name : names) {
+            lambda.identifiers.add(new Id(name));
+        }
+        lambda.body = this.compile(node.children.get(1), new Scope(names, scope));
+        return lambda;
+    }
+
+    private Code compileIdentifier(String name, Scope scope) {
+        int depth = 0;
+        for (Scope s = scope; s != null; s = s.parent, depth++) {
+            int index = s.names.lastIndexOf(name);
+            if (index >= 0) {
+                return new Local(depth, index);
+            }
+        }
+        Builtin builtin = this.registry.resolve(name);
+        return new Literal(builtin != null ? builtin : new Symbol(name));
+    }
+
+    // Parameter names of a lambda node, one or a comma separated list
+    private ArrayList<String> getIdentifiers(Node lambda) {
+        ArrayList<String> names = new ArrayList<String>();
+        Node parameters = lambda.children.get(0);
+        if (",".equals(parameters.getData())) {
+            for (Node identifier : parameters.children) {
+                names.add(identifier.getData().substring(4, identifier.getData().length() - 1));
+            }
+        } else {
+            names.add(parameters.getData().substring(4, parameters.getData().length() - 1));
+        }
+        return names;
+    }
+
+    // rec's standardized form: gamma(<Y*>, lambda(f, lambda(...)))
+    private boolean isRec(Node rator, Node rand) {
+        return "<Y*>".equals(rator.getData())
+                && "lambda".equals(rand.getData())
+                && !",".equals(rand.children.get(0).getData())
+                && "lambda".equals(rand.children.get(1).getData());
+    }
+}
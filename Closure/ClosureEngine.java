@@ -0,0 +1,80 @@
+package Closure;
+
+import Builtins.BuiltinRegistry;
+import CSE.Engine;
+import Output.OutputSink;
+import Standardizer.AST;
+import Symbols.Symbol;
+import java.util.function.Supplier;
+
+/**
+
+  Engine compiling the standardized tree into a tree of self-evaluating Code objects
+  (closures) instead of flattening it for the CSE machine. Recursion in the program is
+  recursion in Java, so programs run on a thread with a large stack.
+
+ **/
+public class ClosureEngine implements Engine {
+    public static final long STACK_SIZE = 1L << 30;
+
+    private BuiltinRegistry registry;
+
+    public ClosureEngine(BuiltinRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public String getName() {
+        return "closure";
+    }
+
+    @Override
+    public Symbol execute(AST ast, OutputSink output) {
+        ClosureRuntime runtime = new ClosureRuntime(this.registry, output);
+        Code program = new ClosureCompiler(this.registry, runtime).compile(ast);
+
+        try {
+            return evaluateOnLargeStack(() -> program.eval(new Frame(0, null)));
+        } finally {
+            // Output Printed before an error is still written
+            output.flush();
+        }
+    }
+
+    /**
+
+        Runs a compiled program on a thread with a stack of STACK_SIZE bytes, since
+        compiled engines recurse in Java where the CSE machine grows its own stacks.
+
+        @param program Evaluates the program
+        @return The value of the program
+        @throws RuntimeException whatever the program throws
+
+     **/
+    public static Symbol evaluateOnLargeStack(Supplier<Symbol> program) {
+        Symbol[] result = new Symbol[1];
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                result[0] = program.get();
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        }, "rpal-program", STACK_SIZE);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the program", e);
+        }
+
+        if (failure[0] instanceof RuntimeException) {
+            throw (RuntimeException) failure[0];
+        } else if (failure[0] instanceof Error) {
+            throw (Error) failure[0];
+        }
+        return result[0];
+    }
+}
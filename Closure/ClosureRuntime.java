@@ -0,0 +1,59 @@
+package Closure;
+
+import Builtins.BuiltinRegistry;
+import Builtins.Evaluator;
+import Output.OutputSink;
+import Symbols.*;
+import java.util.ArrayList;
+
+/**
+
+  State of one run of the closure engine, and the generic application of any function
+  value (the cases of CSE rule 3 other than calling a closure).
+
+ **/
+public class ClosureRuntime implements Evaluator {
+    private final BuiltinRegistry registry;
+    private final OutputSink output;
+
+    public ClosureRuntime(BuiltinRegistry registry, OutputSink output) {
+        this.registry = registry;
+        this.output = output;
+    }
+
+    @Override
+    public OutputSink getOutput() {
+        return this.output;
+    }
+
+    @Override
+    public Symbol apply(Symbol function, Symbol argument) {
+        if (function instanceof FunctionValue) {
+            return ((FunctionValue) function).call(argument);
+        } else if (function instanceof Tup) {
+            // Tuple selection, 1-based
+            return ((Tup) function).symbols.get(Integer.parseInt(argument.getData()) - 1);
+        } else if (function instanceof Ystar) {
+            // Fixed point of a lambda that is not rec's form, through an eta
+            Lambda lambda = (Lambda) argument;
+            Eta eta = new Eta();
+            eta.setIndex(lambda.getIndex());
+            eta.setIdentifier(lambda.identifiers.get(0));
+            eta.setLambda(lambda);
+            return eta;
+        } else if (function instanceof Eta) {
+            Eta eta = (Eta) function;
+            return this.apply(this.apply(eta.getLambda(), eta), argument);
+        } else if (function instanceof Builtin) {
+            Builtin builtin = (Builtin) function;
+            if (builtin.args.size() + 1 < builtin.getArity()) {
+                return builtin.bind(argument);
+            }
+            ArrayList<Symbol> args = new ArrayList<Symbol>(builtin.args);
+            args.add(argument);
+            return this.registry.invoke(builtin, args, this);
+        }
+        // Any other rator (e.g. an unbound identifier) is dropped, leaving its rand
+        return argument;
+    }
+}
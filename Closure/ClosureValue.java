@@ -0,0 +1,25 @@
+package Closure;
+
+import Symbols.Symbol;
+
+/**
+
+  Function value of the closure engine: a compiled lambda and the frame it was closed over.
+
+ **/
+public class ClosureValue extends FunctionValue {
+    private final LambdaCode code;
+    private final Frame frame;
+
+    ClosureValue(LambdaCode code, Frame frame) {
+        super(code.index);
+        this.identifiers = code.identifiers;
+        this.code = code;
+        this.frame = frame;
+    }
+
+    @Override
+    public Symbol call(Symbol argument) {
+        return this.code.body.eval(this.bind(argument, this.frame));
+    }
+}
@@ -0,0 +1,20 @@
+package Closure;
+
+import Symbols.Symbol;
+
+/**
+
+  A node of the closure engine: a standardized tree node compiled once into an object
+  that evaluates itself. Variables are resolved at compile time to frame positions.
+
+ **/
+public abstract class Code {
+
+    /**
+
+        @param frame The frame of the innermost enclosing lambda
+        @return The value of the node
+
+     **/
+    public abstract Symbol eval(Frame frame);
+}
@@ -0,0 +1,29 @@
+package Closure;
+
+import Symbols.E;
+import Symbols.Symbol;
+
+/**
+
+  A lambda of the CSE machine compiled by the DeltaCompiler, called with the
+  environment its closure was created in.
+
+ **/
+public class CompiledLambda {
+    private final LambdaCode code;
+
+    CompiledLambda(LambdaCode code) {
+        this.code = code;
+    }
+
+    /**
+
+        @param argument    The rand of the application
+        @param environment The environment of the closure
+        @return The value of the body
+
+     **/
+    public Symbol call(Symbol argument, E environment) {
+        return new ClosureValue(this.code, new Frame(environment)).call(argument);
+    }
+}
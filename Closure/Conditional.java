@@ -0,0 +1,28 @@
+package Closure;
+
+import Symbols.Symbol;
+
+/**
+
+  A conditional (->): evaluates the test, then only the selected branch.
+
+ **/
+class Conditional extends Code {
+    private final Code test;
+    private final Code then;
+    private final Code otherwise;
+
+    Conditional(Code test, Code then, Code otherwise) {
+        this.test = test;
+        this.then = then;
+        this.otherwise = otherwise;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        if (Boolean.parseBoolean(this.test.eval(frame).getData())) {
+            return this.then.eval(frame);
+        }
+        return this.otherwise.eval(frame);
+    }
+}
@@ -0,0 +1,127 @@
+package Closure;
+
+import Builtins.Evaluator;
+import Symbols.*;
+import java.util.ArrayList;
+
+/**
+
+  Compiles a lambda of the CSE machine (its delta, as built by the MachineConstructor)
+  into Code, for a machine that promotes hot lambdas to a faster tier. The control list
+  is decoded once, in the order the machine runs it, into nodes whose operator sites
+  specialize themselves; identifiers bound outside the lambda are looked up in the
+  machine environment of its closure. Other values are applied through the machine.
+
+ **/
+public class DeltaCompiler {
+    private final Evaluator evaluator;
+
+    public DeltaCompiler(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+
+        Names bound by one lambda (or rec), linked to the enclosing scope.
+
+     **/
+    private static class Scope {
+        final ArrayList<Id> names;
+        final Scope parent;
+
+        Scope(ArrayList<Id> names, Scope parent) {
+            this.names = names;
+            this.parent = parent;
+        }
+    }
+
+    /**
+
+        @param lambda A lambda of the machine's control
+        @return The compiled lambda
+        @throws UnsupportedOperationException if the delta holds symbols of the lazy or parallel modes
+
+     **/
+    public CompiledLambda compile(Lambda lambda) {
+        return new CompiledLambda(this.compileLambda(lambda, new Scope(new ArrayList<Id>(), null)));
+    }
+
+    private LambdaCode compileLambda(Lambda lambda, Scope scope) {
+        LambdaCode code = new LambdaCode(lambda.getIndex(), lambda.identifiers);
+        code.body = this.compile(lambda.getDelta().getSymbols(), new Scope(lambda.identifiers, scope));
+        return code;
+    }
+
+    // Decodes a control list from its end, as the machine runs it, keeping the values as Code
+    private Code compile(ArrayList<Symbol> symbols, Scope scope) {
+        ArrayList<Code> stack = new ArrayList<Code>();
+        for (int k = symbols.size()-1; k >= 0; k--) {
+            Symbol symbol = symbols.get(k);
+            if (symbol instanceof Id) {
+                stack.add(this.compileIdentifier((Id) symbol, scope));
+            } else if (symbol instanceof Lambda) {
+                Lambda lambda = (Lambda) symbol;
+                if (k >= 2 && symbols.get(k-1) instanceof Ystar && symbols.get(k-2) instanceof Gamma && this.isRec(lambda)) {
+                    // gamma Y* (lambda f. lambda ...)
+                    Lambda inner = (Lambda) lambda.getDelta().getSymbols().get(0);
+                    stack.add(new Rec(this.compileLambda(inner, new Scope(lambda.identifiers, scope))));
+                    k -= 2;
+                } else {
+                    stack.add(this.compileLambda(lambda, scope));
+                }
+            } else if (symbol instanceof Gamma) {
+                Code rator = stack.remove(stack.size()-1);
+                Code rand = stack.remove(stack.size()-1);
+                stack.add(new Apply(rator, rand, this.evaluator));
+            } else if (symbol instanceof Uop) {
+                stack.add(new Unary((Uop) symbol, stack.remove(stack.size()-1)));
+            } else if (symbol instanceof Bop) {
+                Code left = stack.remove(stack.size()-1);
+                Code right = stack.remove(stack.size()-1);
+                stack.add(new Binary((Bop) symbol, left, right));
+            } else if (symbol instanceof B) {
+                stack.add(this.compile(((B) symbol).symbols, scope));
+            } else if (symbol instanceof Beta && k >= 2) {
+                // Preceded by the deltas of the then and else branches
+                Code test = stack.remove(stack.size()-1);
+                Code then = this.compile(((Delta) symbols.get(k-2)).getSymbols(), scope);
+                Code otherwise = this.compile(((Delta) symbols.get(k-1)).getSymbols(), scope);
+                stack.add(new Conditional(test, then, otherwise));
+                k -= 2;
+            } else if (symbol instanceof Tau) {
+                // The first component is on top
+                Code[] components = new Code[((Tau) symbol).getN()];
+                for (int n = 0; n < components.length; n++) {
+                    components[n] = stack.remove(stack.size()-1);
+                }
+                stack.add(new Tuple(components));
+            } else if (symbol instanceof Int || symbol instanceof Str || symbol instanceof Bool || symbol instanceof Dummy
+                    || symbol instanceof Tup || symbol instanceof Ystar || symbol instanceof Builtin) {
+                stack.add(new Literal(symbol));
+            } else {
+                throw new UnsupportedOperationException("Cannot compile " + symbol.getData());
+            }
+        }
+        return stack.get(0);
+    }
+
+    // The slot of the innermost binding, or a lookup in the machine environment
+    private Code compileIdentifier(Id id, Scope scope) {
+        int depth = 0;
+        for (Scope s = scope; s.parent != null; s = s.parent, depth++) {
+            for (int index = s.names.size()-1; index >= 0; index--) {
+                if (s.names.get(index).getData().equals(id.getData())) {
+                    return new Local(depth, index);
+                }
+            }
+        }
+        return new Free(depth, id);
+    }
+
+    // rec's form: lambda f. lambda ...
+    private boolean isRec(Lambda lambda) {
+        return lambda.identifiers.size() == 1
+                && lambda.getDelta().getSymbols().size() == 1
+                && lambda.getDelta().getSymbols().get(0) instanceof Lambda;
+    }
+}
@@ -0,0 +1,30 @@
+package Closure;
+
+import Symbols.E;
+import Symbols.Symbol;
+
+/**
+
+  Activation record of the closure engine: the values of one lambda's parameters
+  (or of one rec binding) and the frame the lambda was closed over.
+  Code compiled from a lambda of a running CSE machine starts from a root frame
+  holding the machine environment its free identifiers are looked up in.
+
+ **/
+public class Frame {
+    public final Symbol[] slots;
+    public final Frame parent;
+    public final E environment;
+
+    public Frame(int size, Frame parent) {
+        this.slots = new Symbol[size];
+        this.parent = parent;
+        this.environment = null;
+    }
+
+    public Frame(E environment) {
+        this.slots = new Symbol[0];
+        this.parent = null;
+        this.environment = environment;
+    }
+}
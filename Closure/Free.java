@@ -0,0 +1,28 @@
+package Closure;
+
+import Symbols.Id;
+import Symbols.Symbol;
+
+/**
+
+  An identifier free in a lambda compiled from a running CSE machine, looked up in
+  the machine environment held by the root frame, depth frames up.
+
+ **/
+class Free extends Code {
+    private final int depth;
+    private final Id id;
+
+    Free(int depth, Id id) {
+        this.depth = depth;
+        this.id = id;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        for (int d = this.depth; d > 0; d--) {
+            frame = frame.parent;
+        }
+        return frame.environment.lookup(this.id);
+    }
+}
@@ -0,0 +1,51 @@
+package Closure;
+
+import Symbols.Lambda;
+import Symbols.Symbol;
+import Symbols.Tup;
+
+/**
+
+  A function value of a compiled engine, called directly instead of through the
+  CSE machine's rules. A Lambda, so builtins and printing treat it like the CSE
+  machine's closures.
+
+ **/
+public abstract class FunctionValue extends Lambda {
+
+    protected FunctionValue(int index) {
+        super(index);
+    }
+
+    /**
+
+        @param argument The rand of the application
+        @return The result of applying this function to it
+
+     **/
+    public abstract Symbol call(Symbol argument);
+
+    /**
+
+        Binds the argument to the parameters in a new frame, destructuring a tuple
+        for several parameters.
+
+        @param argument The rand of the application
+        @param parent   The frame the function was closed over
+        @return The frame of the call
+
+     **/
+    protected Frame bind(Symbol argument, Frame parent) {
+        int n = this.identifiers.size();
+        Frame callee = new Frame(n, parent);
+        if (n == 1) {
+            callee.slots[0] = argument;
+        } else {
+            Tup tup = (Tup) argument;
+            for (int i = 0; i < n; i++) {
+                callee.slots[i] = tup.symbols.get(i);
+            }
+        }
+        return callee;
+    }
+}
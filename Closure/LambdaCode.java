@@ -0,0 +1,26 @@
+package Closure;
+
+import Symbols.Id;
+import Symbols.Symbol;
+import java.util.ArrayList;
+
+/**
+
+  A lambda: evaluates to a closure over the current frame.
+
+ **/
+class LambdaCode extends Code {
+    final int index;
+    final ArrayList<Id> identifiers;
+    Code body;
+
+    LambdaCode(int index, ArrayList<Id> identifiers) {
+        this.index = index;
+        this.identifiers = identifiers;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        return new ClosureValue(this, frame);
+    }
+}
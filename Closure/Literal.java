@@ -0,0 +1,21 @@
+package Closure;
+
+import Symbols.Symbol;
+
+/**
+
+  A constant: literals, builtins and (like the CSE machine) unbound identifiers.
+
+ **/
+class Literal extends Code {
+    private final Symbol value;
+
+    Literal(Symbol value) {
+        this.value = value;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        return this.value;
+    }
+}
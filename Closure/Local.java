@@ -0,0 +1,26 @@
+package Closure;
+
+import Symbols.Symbol;
+
+/**
+
+  A variable bound by an enclosing lambda, depth frames up from the current one.
+
+ **/
+class Local extends Code {
+    private final int depth;
+    private final int index;
+
+    Local(int depth, int index) {
+        this.depth = depth;
+        this.index = index;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        for (int d = this.depth; d > 0; d--) {
+            frame = frame.parent;
+        }
+        return frame.slots[this.index];
+    }
+}
@@ -0,0 +1,26 @@
+package Closure;
+
+import Symbols.Symbol;
+
+/**
+
+  Y* applied to a lambda whose body is itself a lambda (what rec standardizes to).
+  Instead of building an eta, the recursive name is bound in its own frame to the
+  closure created in that frame.
+
+ **/
+class Rec extends Code {
+    private final Code body;
+
+    Rec(Code body) {
+        this.body = body;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        Frame self = new Frame(1, frame);
+        Symbol value = this.body.eval(self);
+        self.slots[0] = value;
+        return value;
+    }
+}
@@ -0,0 +1,31 @@
+package Closure;
+
+import Symbols.Symbol;
+import Symbols.Tup;
+
+/**
+
+  A tuple (tau). Components are evaluated last to first, as on the CSE machine.
+
+ **/
+class Tuple extends Code {
+    private final Code[] components;
+
+    Tuple(Code[] components) {
+        this.components = components;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        Symbol[] values = new Symbol[this.components.length];
+        for (int i = values.length - 1; i >= 0; i--) {
+            values[i] = this.components[i].eval(frame);
+        }
+        Tup tup = new Tup();
+        tup.symbols.ensureCapacity(values.length);
+        for (Symbol value : values) {
+            tup.symbols.add(value);
+        }
+        return tup;
+    }
+}
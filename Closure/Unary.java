@@ -0,0 +1,46 @@
+package Closure;
+
+import CSE.CSEMachine;
+import Symbols.Int;
+import Symbols.Symbol;
+import Symbols.Uop;
+
+/**
+
+  A unary operator. Specializes itself to integer negation once it has seen an integer
+  rand, and falls back to the CSE machine's generic operation otherwise. Typed sites
+  apply the operation without checks.
+
+ **/
+class Unary extends Code {
+    private static final int UNINITIALIZED = 0;
+    private static final int INT = 1;
+    private static final int GENERIC = 2;
+    private static final int TYPED = 3;
+
+    private final Uop rator;
+    private final Code rand;
+    private int state;
+
+    Unary(Uop rator, Code rand) {
+        this.rator = rator;
+        this.rand = rand;
+        this.state = rator.isTyped() ? TYPED : UNINITIALIZED;
+    }
+
+    @Override
+    public Symbol eval(Frame frame) {
+        Symbol value = this.rand.eval(frame);
+        if (this.state == TYPED) {
+            return this.rator.applyTyped(value);
+        } else if (this.state == INT) {
+            if (value instanceof Int) {
+                return new Int(-((Int) value).getValue());
+            }
+            this.state = GENERIC;
+        } else if (this.state == UNINITIALIZED) {
+            this.state = "neg".equals(this.rator.getData()) && value instanceof Int ? INT : GENERIC;
+        }
+        return CSEMachine.applyUnaryOperation(this.rator, value);
+    }
+}
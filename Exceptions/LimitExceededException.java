@@ -0,0 +1,27 @@
+package Exceptions;
+@SuppressWarnings("serial")
+
+/**
+
+  Thrown by a machine that exceeded a resource limit of its run: "steps", "time" or
+  "depth" (live environments), or that was interrupted ("interrupted") or abandoned
+  ("cancelled").
+
+ **/
+public class LimitExceededException extends RuntimeException {
+    private final String limit;
+
+    public LimitExceededException(String limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+
+        @return The name of the limit exceeded
+
+     **/
+    public String getLimit() {
+        return this.limit;
+    }
+}
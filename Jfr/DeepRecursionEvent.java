@@ -0,0 +1,29 @@
+package Jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+
+  The number of live environments of a CSE machine reached a multiple of the recursion
+  threshold, on entering a function.
+
+ **/
+@Name("rpal.DeepRecursion")
+@Label("RPAL Deep Recursion")
+@Category({"RPAL"})
+@Description("A CSE machine run has very many nested function calls")
+@StackTrace(false)
+public class DeepRecursionEvent extends Event {
+    @Label("Depth")
+    @Description("Live environments")
+    public int depth;
+
+    @Label("Function")
+    @Description("Name the function entered is bound to, or lambda with its index")
+    public String function;
+}
@@ -0,0 +1,28 @@
+package Jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+
+  A CSE machine built a tuple of at least the tuple threshold, by tau or aug from a
+  tuple below it.
+
+ **/
+@Name("rpal.LargeTuple")
+@Label("RPAL Large Tuple")
+@Category({"RPAL"})
+@Description("A CSE machine run built a very large tuple")
+@StackTrace(false)
+public class LargeTupleEvent extends Event {
+    @Label("Size")
+    public int size;
+
+    @Label("Operation")
+    @Description("tau or aug")
+    public String operation;
+}
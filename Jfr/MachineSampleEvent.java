@@ -0,0 +1,34 @@
+package Jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+
+  The state of a running CSE machine, committed by the machine about every
+  MachineEvents.SAMPLE_PERIOD_MILLIS milliseconds.
+
+ **/
+@Name("rpal.MachineSample")
+@Label("RPAL Machine Sample")
+@Category({"RPAL"})
+@Description("Progress of a CSE machine run")
+@StackTrace(false)
+public class MachineSampleEvent extends Event {
+    @Label("Steps")
+    @Description("Steps taken since the run started")
+    public long steps;
+
+    @Label("Control Depth")
+    public int controlDepth;
+
+    @Label("Stack Depth")
+    public int stackDepth;
+
+    @Label("Live Environments")
+    public int liveEnvironments;
+}
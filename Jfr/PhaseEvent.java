@@ -0,0 +1,28 @@
+package Jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+
+  A phase of Interpreter.runProgram (lex, parse, serialize, ast, standardize, a tree
+  pass or execute), lasting as long as the phase.
+
+ **/
+@Name("rpal.Phase")
+@Label("RPAL Phase")
+@Category({"RPAL"})
+@Description("A phase of running an RPAL program")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("Program")
+    @Description("Path of the source file")
+    public String program;
+}
@@ -0,0 +1,18 @@
+package Jmh;
+
+import Standardizer.AST;
+import Standardizer.ASTConstructor;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+
+  ASTConstructor.getAbstractSyntaxTree from the serialized tree.
+
+ **/
+public class ASTConstructorBenchmark extends PhaseBenchmark {
+
+    @Benchmark
+    public AST construct() {
+        return new ASTConstructor().getAbstractSyntaxTree(this.serialized);
+    }
+}
@@ -0,0 +1,87 @@
+package Jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+
+  Representative RPAL programs for the phase benchmarks, generated at a given size.
+  The size is both the size of the data written into the program (so the front end
+  phases grow with it) and the amount of work done on it at run time.
+
+    recursion     - Sum 1 .. size by non-tail recursion, and Fib 15
+    tuples        - A literal tuple of size integers, rebuilt doubled with aug and summed
+    strings       - A literal string of size characters, reversed by recursion
+    higherorder   - Map and fold written with curried functions and composition over a
+                    literal tuple of size integers
+
+ **/
+public class Corpus {
+    public static final String[] KINDS = {"recursion", "tuples", "strings", "higherorder"};
+
+    private Corpus() {
+
+    }
+
+    /**
+
+        @param kind One of KINDS
+        @param size Size of the data and work
+        @return The program text
+
+     **/
+    public static String getProgram(String kind, int size) {
+        switch (kind) {
+            case "recursion":
+                return "let rec Sum n = n eq 0 -> 0 | n + Sum (n-1) in\n"
+                        + "let rec Fib n = n ls 2 -> n | Fib (n-1) + Fib (n-2) in\n"
+                        + "Print (Sum " + size + ", Fib 15)\n";
+            case "tuples":
+                return "let T = " + getTuple(size) + " in\n"
+                        + "let rec Double (T, N) = N eq 0 -> nil | (Double (T, N-1) aug T N * 2) in\n"
+                        + "let rec Total (T, N) = N eq 0 -> 0 | T N + Total (T, N-1) in\n"
+                        + "let D = Double (T, Order T) in\n"
+                        + "Print (Order D, Total (D, Order D))\n";
+            case "strings":
+                StringBuilder string = new StringBuilder();
+                for (int i = 0; i < size; i++) {
+                    string.append((char) ('a' + i % 26));
+                }
+                return "let S = '" + string + "' in\n"
+                        + "let rec Rev s = s eq '' -> '' | Conc (Rev (Stern s)) (Stem s) in\n"
+                        + "Print (Rev S)\n";
+            case "higherorder":
+                return "let T = " + getTuple(size) + " in\n"
+                        + "let Compose f g x = f (g x) in\n"
+                        + "let Twice f = Compose f f in\n"
+                        + "let rec MapT F T N = N eq 0 -> nil | (MapT F T (N-1) aug F (T N)) in\n"
+                        + "let rec FoldT F Z T N = N eq 0 -> Z | F (FoldT F Z T (N-1)) (T N) in\n"
+                        + "Print (FoldT (fn a. fn b. a + b) 0 (MapT (Twice (fn x. x + 1)) T (Order T)) (Order T))\n";
+            default:
+                throw new IllegalArgumentException("Unknown program kind " + kind);
+        }
+    }
+
+    /**
+
+        Writes the program to a temporary file, as the lexer reads from files.
+
+        @return The path of the file, deleted when the JVM exits
+
+     **/
+    public static Path write(String kind, int size) throws IOException {
+        Path path = Files.createTempFile("rpal-" + kind + "-" + size, ".rpal");
+        Files.writeString(path, getProgram(kind, size));
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    private static String getTuple(int size) {
+        StringBuilder tuple = new StringBuilder("(");
+        for (int i = 1; i <= size; i++) {
+            tuple.append(i == 1 ? "" : ", ").append(i);
+        }
+        return tuple.append(")").toString();
+    }
+}
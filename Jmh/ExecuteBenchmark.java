@@ -0,0 +1,43 @@
+package Jmh;
+
+import Builtins.BuiltinRegistry;
+import CSE.CSEMachine;
+import CSE.MachineConstructor;
+import Output.OutputSink;
+import Standardizer.AST;
+import Symbols.Symbol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+
+  CSEMachine.execute. A machine runs once, so every invocation gets a fresh one, built
+  eagerly so that building deltas is not measured here.
+
+ **/
+public class ExecuteBenchmark extends PhaseBenchmark {
+    private AST ast;
+    private BuiltinRegistry registry;
+    private CSEMachine machine;
+
+    @Setup
+    public void standardize() {
+        this.ast = this.getStandardizedTree();
+        this.registry = BuiltinRegistry.withStandardLibrary();
+    }
+
+    @Setup(Level.Invocation)
+    public void construct() {
+        MachineConstructor csemfac = new MachineConstructor(this.registry);
+        csemfac.setEager(true);
+        this.machine = csemfac.getCSEMachine(this.ast);
+        this.machine.setOutput(OutputSink.memory());
+    }
+
+    @Benchmark
+    public Symbol execute() {
+        this.machine.execute();
+        return this.machine.getResult();
+    }
+}
@@ -0,0 +1,20 @@
+package Jmh;
+
+import Exceptions.InterpreterException;
+import Lexer.LexicalAnalyser;
+import Lexer.Token;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+
+  LexicalAnalyser.scan, including reading the program file.
+
+ **/
+public class LexerBenchmark extends PhaseBenchmark {
+
+    @Benchmark
+    public List<Token> scan() throws InterpreterException {
+        return new LexicalAnalyser(this.path.toString()).scan();
+    }
+}
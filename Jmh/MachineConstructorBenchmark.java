@@ -0,0 +1,36 @@
+package Jmh;
+
+import Builtins.BuiltinRegistry;
+import CSE.CSEMachine;
+import CSE.MachineConstructor;
+import Standardizer.AST;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+
+  MachineConstructor.getCSEMachine, building the whole control up front (eager) or
+  only the program's delta (lazy, the default).
+
+ **/
+public class MachineConstructorBenchmark extends PhaseBenchmark {
+    @Param({"true", "false"})
+    public boolean eager;
+
+    private AST ast;
+    private BuiltinRegistry registry;
+
+    @Setup
+    public void standardize() {
+        this.ast = this.getStandardizedTree();
+        this.registry = BuiltinRegistry.withStandardLibrary();
+    }
+
+    @Benchmark
+    public CSEMachine getCSEMachine() {
+        MachineConstructor csemfac = new MachineConstructor(this.registry);
+        csemfac.setEager(this.eager);
+        return csemfac.getCSEMachine(this.ast);
+    }
+}
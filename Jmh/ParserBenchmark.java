@@ -0,0 +1,22 @@
+package Jmh;
+
+import Lexer.Token;
+import Parser.Parser;
+import java.util.ArrayList;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+
+  Parser.parse followed by serializeAST. The parser consumes its token list, so each
+  invocation parses a copy of it.
+
+ **/
+public class ParserBenchmark extends PhaseBenchmark {
+
+    @Benchmark
+    public ArrayList<String> parse() {
+        Parser parser = new Parser(new ArrayList<Token>(this.tokens));
+        parser.parse();
+        return parser.serializeAST();
+    }
+}
@@ -0,0 +1,63 @@
+package Jmh;
+
+import Exceptions.InterpreterException;
+import Lexer.LexicalAnalyser;
+import Lexer.Token;
+import Parser.Parser;
+import Standardizer.AST;
+import Standardizer.ASTConstructor;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+
+  Common state of the phase benchmarks: a program of the corpus, written to a file,
+  and the output of every phase up to the one measured, computed once per trial.
+
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class PhaseBenchmark {
+    @Param({"recursion", "tuples", "strings", "higherorder"})
+    public String kind;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    protected Path path;
+    protected List<Token> tokens;
+    protected ArrayList<String> serialized;
+
+    @Setup
+    public void prepare() throws IOException, InterpreterException {
+        this.path = Corpus.write(this.kind, this.size);
+        this.tokens = new LexicalAnalyser(this.path.toString()).scan();
+        Parser parser = new Parser(new ArrayList<Token>(this.tokens));
+        parser.parse();
+        this.serialized = parser.serializeAST();
+    }
+
+    // A fresh standardized tree, the phases after standardizing do not change it
+    protected AST getStandardizedTree() {
+        AST ast = new ASTConstructor().getAbstractSyntaxTree(this.serialized);
+        ast.standardize();
+        return ast;
+    }
+}
@@ -0,0 +1,28 @@
+package Jmh;
+
+import Standardizer.AST;
+import Standardizer.ASTConstructor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+
+  AST.standardize. Standardizing rewrites the tree in place, so every invocation gets
+  a fresh tree.
+
+ **/
+public class StandardizeBenchmark extends PhaseBenchmark {
+    private AST ast;
+
+    @Setup(Level.Invocation)
+    public void construct() {
+        this.ast = new ASTConstructor().getAbstractSyntaxTree(this.serialized);
+    }
+
+    @Benchmark
+    public AST standardize() {
+        this.ast.standardize();
+        return this.ast;
+    }
+}
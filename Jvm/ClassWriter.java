@@ -0,0 +1,189 @@
+package Jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+
+  Minimal writer of JVM class files: a constant pool, and methods written with
+  MethodWriter. Classes are written in version 49 (Java 5), the last one verified
+  without stack map frames, so no frames have to be computed for branches.
+
+ **/
+public class ClassWriter {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    private static final int VERSION = 49;
+
+    // Constant pool tags
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int CLASS = 7;
+    private static final int FIELD = 9;
+    private static final int METHOD = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final String name;
+    private final String superName;
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(this.pool);
+    private final HashMap<String, Integer> entries = new HashMap<String, Integer>();
+    private int poolCount = 1;
+    private final ArrayList<MethodWriter> methods = new ArrayList<MethodWriter>();
+
+    /**
+
+        @param name      Internal name of the class (e.g. "Jvm/Program")
+        @param superName Internal name of its superclass
+
+     **/
+    public ClassWriter(String name, String superName) {
+        this.name = name;
+        this.superName = superName;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+
+        Adds a method; its code is written through the returned writer.
+
+        @param access     Access flags
+        @param name       Method name
+        @param descriptor Method descriptor
+        @param maxLocals  Number of local variable slots, including this and the parameters
+        @return The writer of the method's code
+
+     **/
+    public MethodWriter addMethod(int access, String name, String descriptor, int maxLocals) {
+        MethodWriter method = new MethodWriter(this, access, this.utf8(name), this.utf8(descriptor), maxLocals);
+        this.methods.add(method);
+        return method;
+    }
+
+    int utf8(String value) {
+        Integer index = this.entries.get("U" + value);
+        if (index != null) {
+            return index;
+        }
+        try {
+            this.poolOut.writeByte(UTF8);
+            this.poolOut.writeUTF(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return this.add("U" + value);
+    }
+
+    int integer(int value) {
+        Integer index = this.entries.get("I" + value);
+        if (index != null) {
+            return index;
+        }
+        this.write(INTEGER, value >>> 16, value & 0xFFFF);
+        return this.add("I" + value);
+    }
+
+    int classRef(String name) {
+        Integer index = this.entries.get("C" + name);
+        if (index != null) {
+            return index;
+        }
+        int utf8 = this.utf8(name);
+        this.write(CLASS, utf8);
+        return this.add("C" + name);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return this.memberRef(FIELD, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return this.memberRef(METHOD, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        String key = "M" + tag + owner + "." + name + descriptor;
+        Integer index = this.entries.get(key);
+        if (index != null) {
+            return index;
+        }
+        int ownerIndex = this.classRef(owner);
+        int nameAndType = this.nameAndType(name, descriptor);
+        this.write(tag, ownerIndex, nameAndType);
+        return this.add(key);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + descriptor;
+        Integer index = this.entries.get(key);
+        if (index != null) {
+            return index;
+        }
+        int nameIndex = this.utf8(name);
+        int descriptorIndex = this.utf8(descriptor);
+        this.write(NAME_AND_TYPE, nameIndex, descriptorIndex);
+        return this.add(key);
+    }
+
+    // Writes a constant pool entry made of a tag and two u2 values
+    private void write(int tag, int... values) {
+        try {
+            this.poolOut.writeByte(tag);
+            for (int value : values) {
+                this.poolOut.writeShort(value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int add(String key) {
+        if (this.poolCount >= 0xFFFF) {
+            throw new UnsupportedOperationException("Constant pool overflow");
+        }
+        this.entries.put(key, this.poolCount);
+        return this.poolCount++;
+    }
+
+    /**
+
+        @return The class file
+
+     **/
+    public byte[] toByteArray() {
+        int thisClass = this.classRef(this.name);
+        int superClass = this.classRef(this.superName);
+        int code = this.utf8("Code");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(this.poolCount);
+            this.pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);    // Interfaces
+            out.writeShort(0);    // Fields
+            out.writeShort(this.methods.size());
+            for (MethodWriter method : this.methods) {
+                method.writeTo(out, code);
+            }
+            out.writeShort(0);    // Attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
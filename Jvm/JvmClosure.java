@@ -0,0 +1,30 @@
+package Jvm;
+
+import Closure.Frame;
+import Closure.FunctionValue;
+import Symbols.Id;
+import Symbols.Symbol;
+import java.util.ArrayList;
+
+/**
+
+  Function value of the JVM engine: the index of a compiled lambda, the program
+  holding its method, and the frame it was closed over.
+
+ **/
+public class JvmClosure extends FunctionValue {
+    private final JvmProgram program;
+    private final Frame frame;
+
+    JvmClosure(JvmProgram program, int index, ArrayList<Id> identifiers, Frame frame) {
+        super(index);
+        this.identifiers = identifiers;
+        this.program = program;
+        this.frame = frame;
+    }
+
+    @Override
+    public Symbol call(Symbol argument) {
+        return this.program.invoke(this.getIndex(), this.bind(argument, this.frame));
+    }
+}
@@ -0,0 +1,277 @@
+package Jvm;
+
+import Builtins.BuiltinRegistry;
+import CSE.MachineConstructor;
+import Closure.ClosureRuntime;
+import Standardizer.AST;
+import Symbols.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+
+  Compiles the deltas built by the MachineConstructor into JVM methods of a hidden
+  class, so that HotSpot compiles RPAL functions like Java ones.
+
+  A delta's control is run by the CSE machine from its end, pushing values on the
+  stack and popping the rands of gamma, operators and tau; the generated code does the
+  same in the same order on the JVM operand stack. Identifiers are resolved at compile
+  time to the slots of the frames bound by the enclosing lambdas. Programs using anything
+  else (the thunks of the lazy mode, forks of the parallel mode) are not compiled.
+
+ **/
+public class JvmCompiler {
+    private static final String PROGRAM = "Jvm/JvmProgram";
+    private static final String OPERATIONS = "Jvm/Operations";
+    private static final String FRAME = "Closure/Frame";
+    private static final String SYMBOL = "LSymbols/Symbol;";
+    private static final String TUP = "Symbols/Tup";
+    private static final String LAMBDA = "(L" + FRAME + ";)" + SYMBOL;
+
+    private final BuiltinRegistry registry;
+
+    public JvmCompiler(BuiltinRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+
+        Names bound by one lambda (or rec), linked to the enclosing scope.
+
+     **/
+    private static class Scope {
+        final ArrayList<Id> names;
+        final Scope parent;
+
+        Scope(ArrayList<Id> names, Scope parent) {
+            this.names = names;
+            this.parent = parent;
+        }
+    }
+
+    /**
+
+        A delta waiting for its method.
+
+     **/
+    private static class Method {
+        final int index;
+        final Delta delta;
+        final Scope scope;
+
+        Method(int index, Delta delta, Scope scope) {
+            this.index = index;
+            this.delta = delta;
+            this.scope = scope;
+        }
+    }
+
+    // State of one compilation
+    private ClassWriter writer;
+    private ArrayList<Method> pending;
+    private ArrayList<Symbol> constants;
+    private ArrayList<ArrayList<Id>> identifiers;
+
+    /**
+
+        @param ast     The standardized tree of the program
+        @param runtime Runtime the program applies builtins and other values with
+        @return The loaded program
+        @throws UnsupportedOperationException if the program cannot be compiled
+
+     **/
+    public JvmProgram compile(AST ast, ClosureRuntime runtime) {
+        this.writer = new ClassWriter("Jvm/Program", PROGRAM);
+        this.pending = new ArrayList<Method>();
+        this.constants = new ArrayList<Symbol>();
+        this.identifiers = new ArrayList<ArrayList<Id>>();
+
+        MethodWriter constructor = this.writer.addMethod(ClassWriter.ACC_PUBLIC, "<init>", "()V", 1);
+        constructor.aload(0);
+        constructor.invoke(MethodWriter.INVOKESPECIAL, PROGRAM, "<init>", "()V");
+        constructor.op(MethodWriter.RETURN, 0);
+
+        this.pending.add(new Method(0, new MachineConstructor(this.registry).getDelta(ast.getRoot()), null));
+        this.identifiers.add(new ArrayList<Id>());
+        HashSet<Integer> compiled = new HashSet<Integer>();
+        while (!this.pending.isEmpty()) {
+            Method method = this.pending.remove(this.pending.size()-1);
+            MethodWriter code = this.writer.addMethod(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_FINAL, "lambda" + method.index, LAMBDA, 2);
+            this.compile(code, method.delta.getSymbols(), method.scope);
+            code.op(MethodWriter.ARETURN, -1);
+            compiled.add(method.index);
+        }
+        this.writeInvoke(compiled);
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(this.writer.toByteArray(), true);
+            JvmProgram program = (JvmProgram) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+            program.initialize(this.constants.toArray(new Symbol[0]), this.identifiers, runtime);
+            return program;
+        } catch (Throwable e) {
+            throw new UnsupportedOperationException("Cannot load the compiled program", e);
+        }
+    }
+
+    /**
+
+        Writes the code of a control list, from its end as the CSE machine runs it.
+
+     **/
+    private void compile(MethodWriter code, ArrayList<Symbol> symbols, Scope scope) {
+        for (int k = symbols.size()-1; k >= 0; k--) {
+            Symbol symbol = symbols.get(k);
+            if (symbol instanceof Id) {
+                this.compileIdentifier(code, (Id) symbol, scope);
+            } else if (symbol instanceof Lambda) {
+                Lambda lambda = (Lambda) symbol;
+                if (k >= 2 && symbols.get(k-1) instanceof Ystar && symbols.get(k-2) instanceof Gamma && this.isRec(lambda)) {
+                    // gamma Y* (lambda f. lambda ...)
+                    Lambda inner = (Lambda) lambda.getDelta().getSymbols().get(0);
+                    this.addMethod(inner, new Scope(inner.identifiers, new Scope(lambda.identifiers, scope)));
+                    code.aload(0);
+                    code.aload(1);
+                    code.push(inner.getIndex());
+                    code.invoke(MethodWriter.INVOKEVIRTUAL, PROGRAM, "rec", "(L" + FRAME + ";I)" + SYMBOL);
+                    k -= 2;
+                } else {
+                    this.addMethod(lambda, new Scope(lambda.identifiers, scope));
+                    code.aload(0);
+                    code.aload(1);
+                    code.push(lambda.getIndex());
+                    code.invoke(MethodWriter.INVOKEVIRTUAL, PROGRAM, "close", "(L" + FRAME + ";I)" + SYMBOL);
+                }
+            } else if (symbol instanceof Gamma) {
+                // Stack: rand, rator; this is slipped in below them
+                code.aload(0);
+                code.op(MethodWriter.DUP_X2, 1);
+                code.op(MethodWriter.POP, -1);
+                code.invoke(MethodWriter.INVOKEVIRTUAL, PROGRAM, "apply", "(" + SYMBOL + SYMBOL + ")" + SYMBOL);
+            } else if (symbol instanceof Uop) {
+                String method = Operations.getMethod((Uop) symbol);
+                if (method != null) {
+                    code.invoke(MethodWriter.INVOKESTATIC, OPERATIONS, method, "(" + SYMBOL + ")" + SYMBOL);
+                } else {
+                    this.compileConstant(code, symbol);
+                    code.invoke(MethodWriter.INVOKESTATIC, OPERATIONS, "unary", "(" + SYMBOL + SYMBOL + ")" + SYMBOL);
+                }
+            } else if (symbol instanceof Bop) {
+                String method = Operations.getMethod((Bop) symbol);
+                if (method != null) {
+                    code.invoke(MethodWriter.INVOKESTATIC, OPERATIONS, method, "(" + SYMBOL + SYMBOL + ")" + SYMBOL);
+                } else {
+                    this.compileConstant(code, symbol);
+                    code.invoke(MethodWriter.INVOKESTATIC, OPERATIONS, "binary", "(" + SYMBOL + SYMBOL + SYMBOL + ")" + SYMBOL);
+                }
+            } else if (symbol instanceof B) {
+                this.compile(code, ((B) symbol).symbols, scope);
+            } else if (symbol instanceof Beta && k >= 2) {
+                // Preceded by the deltas of the then and else branches
+                Delta then = (Delta) symbols.get(k-2);
+                Delta otherwise = (Delta) symbols.get(k-1);
+                code.invoke(MethodWriter.INVOKESTATIC, PROGRAM, "test", "(" + SYMBOL + ")Z");
+                int toElse = code.jump(MethodWriter.IFEQ);
+                int depth = code.getDepth();
+                this.compile(code, then.getSymbols(), scope);
+                int toEnd = code.jump(MethodWriter.GOTO);
+                code.patch(toElse);
+                code.setDepth(depth);
+                this.compile(code, otherwise.getSymbols(), scope);
+                code.patch(toEnd);
+                k -= 2;
+            } else if (symbol instanceof Tau) {
+                // Stack: component n, ..., component 1; the tuple takes them from the top
+                code.newObject(TUP);
+                code.op(MethodWriter.DUP, 1);
+                code.invoke(MethodWriter.INVOKESPECIAL, TUP, "<init>", "()V");
+                for (int n = 0; n < ((Tau) symbol).getN(); n++) {
+                    code.op(MethodWriter.SWAP, 0);
+                    code.invoke(MethodWriter.INVOKESTATIC, PROGRAM, "append", "(L" + TUP + ";" + SYMBOL + ")L" + TUP + ";");
+                }
+            } else if (symbol instanceof Int || symbol instanceof Str || symbol instanceof Bool || symbol instanceof Dummy
+                    || symbol instanceof Tup || symbol instanceof Ystar || symbol instanceof Builtin) {
+                this.compileConstant(code, symbol);
+            } else {
+                throw new UnsupportedOperationException("Cannot compile " + symbol.getData());
+            }
+        }
+    }
+
+    // Rule 1, resolved at compile time: the slot of the innermost binding, or the name itself when unbound
+    private void compileIdentifier(MethodWriter code, Id id, Scope scope) {
+        int depth = 0;
+        for (Scope s = scope; s != null; s = s.parent, depth++) {
+            for (int index = s.names.size()-1; index >= 0; index--) {
+                if (s.names.get(index).getData().equals(id.getData())) {
+                    code.aload(1);
+                    for (int n = 0; n < depth; n++) {
+                        code.getField(FRAME, "parent", "L" + FRAME + ";");
+                    }
+                    code.getField(FRAME, "slots", "[" + SYMBOL);
+                    code.push(index);
+                    code.op(MethodWriter.AALOAD, -1);
+                    return;
+                }
+            }
+        }
+        this.compileConstant(code, new Symbol(id.getData()));
+    }
+
+    private void compileConstant(MethodWriter code, Symbol symbol) {
+        code.aload(0);
+        code.getField(PROGRAM, "constants", "[" + SYMBOL);
+        code.push(this.constants.size());
+        code.op(MethodWriter.AALOAD, -1);
+        this.constants.add(symbol);
+    }
+
+    private void addMethod(Lambda lambda, Scope scope) {
+        this.pending.add(new Method(lambda.getIndex(), lambda.getDelta(), scope));
+        while (this.identifiers.size() <= lambda.getIndex()) {
+            this.identifiers.add(null);
+        }
+        this.identifiers.set(lambda.getIndex(), lambda.identifiers);
+    }
+
+    // rec's form: lambda f. lambda ..., the fixed point of which is bound by rec()
+    private boolean isRec(Lambda lambda) {
+        return lambda.identifiers.size() == 1
+                && lambda.getDelta().getSymbols().size() == 1
+                && lambda.getDelta().getSymbols().get(0) instanceof Lambda;
+    }
+
+    /**
+
+        Writes invoke(index, frame) as a switch calling the method of each compiled delta.
+
+     **/
+    private void writeInvoke(HashSet<Integer> compiled) {
+        MethodWriter code = this.writer.addMethod(ClassWriter.ACC_PUBLIC, "invoke", "(IL" + FRAME + ";)" + SYMBOL, 3);
+        int size = this.identifiers.size();
+        code.iload(1);
+        int position = code.tableSwitch(0, size);
+
+        // Lambdas without a method of their own (the outer one of rec) are never invoked
+        code.patchCase(position, -1);
+        for (int index = 0; index < size; index++) {
+            if (!compiled.contains(index)) {
+                code.patchCase(position, index);
+            }
+        }
+        code.op(MethodWriter.ACONST_NULL, 1);
+        code.op(MethodWriter.ARETURN, -1);
+
+        for (int index = 0; index < size; index++) {
+            if (compiled.contains(index)) {
+                code.patchCase(position, index);
+                code.setDepth(0);
+                code.aload(0);
+                code.aload(2);
+                code.invoke(MethodWriter.INVOKEVIRTUAL, this.writer.getName(), "lambda" + index, LAMBDA);
+                code.op(MethodWriter.ARETURN, -1);
+            }
+        }
+    }
+}
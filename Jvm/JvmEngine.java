@@ -0,0 +1,48 @@
+package Jvm;
+
+import Builtins.BuiltinRegistry;
+import CSE.CSEEngine;
+import CSE.Engine;
+import Closure.ClosureEngine;
+import Closure.ClosureRuntime;
+import Output.OutputSink;
+import Standardizer.AST;
+import Symbols.Symbol;
+
+/**
+
+  Engine running programs as JVM bytecode generated by the JvmCompiler. Programs
+  the compiler cannot handle are run on the CSE machine instead.
+
+ **/
+public class JvmEngine implements Engine {
+    private BuiltinRegistry registry;
+    private Engine fallback;
+
+    public JvmEngine(BuiltinRegistry registry) {
+        this.registry = registry;
+        this.fallback = new CSEEngine(registry);
+    }
+
+    @Override
+    public String getName() {
+        return "jvm";
+    }
+
+    @Override
+    public Symbol execute(AST ast, OutputSink output) {
+        JvmProgram program;
+        try {
+            program = new JvmCompiler(this.registry).compile(ast, new ClosureRuntime(this.registry, output));
+        } catch (UnsupportedOperationException e) {
+            return this.fallback.execute(ast, output);
+        }
+
+        try {
+            return ClosureEngine.evaluateOnLargeStack(program::run);
+        } finally {
+            // Output Printed before an error is still written
+            output.flush();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Jvm;
+
+import Closure.ClosureRuntime;
+import Closure.Frame;
+import Closure.FunctionValue;
+import Symbols.Id;
+import Symbols.Symbol;
+import Symbols.Tup;
+import java.util.ArrayList;
+
+/**
+
+  Superclass of the classes generated by the JvmCompiler. A generated class has one
+  method per delta of the program (lambdaN for the body of lambda N, lambda0 for the
+  program itself) and implements invoke() as a switch over them. The methods call
+  back into this class for the operations that are not worth writing in bytecode.
+
+ **/
+public abstract class JvmProgram {
+    protected Symbol[] constants;                    // Literals and builtins, by the index in the code
+    protected ClosureRuntime runtime;                // Applies anything other than a compiled function
+    private ArrayList<ArrayList<Id>> identifiers;    // Parameters of each lambda, by index
+
+    void initialize(Symbol[] constants, ArrayList<ArrayList<Id>> identifiers, ClosureRuntime runtime) {
+        this.constants = constants;
+        this.identifiers = identifiers;
+        this.runtime = runtime;
+    }
+
+    /**
+
+        Evaluates the body of a lambda (or the program, for index 0) in a frame.
+
+        @param index The lambda index
+        @param frame The frame binding its parameters
+        @return The value of the body
+
+     **/
+    public abstract Symbol invoke(int index, Frame frame);
+
+    /**
+
+        @return The value of the program
+
+     **/
+    public Symbol run() {
+        return this.invoke(0, new Frame(0, null));
+    }
+
+    // Rule 2: closure of lambda N over the frame
+    protected Symbol close(Frame frame, int index) {
+        return new JvmClosure(this, index, this.identifiers.get(index), frame);
+    }
+
+    // Y* applied to lambda f. lambda N: f is bound in its own frame to the closure of N
+    protected Symbol rec(Frame frame, int index) {
+        Frame self = new Frame(1, frame);
+        Symbol closure = this.close(self, index);
+        self.slots[0] = closure;
+        return closure;
+    }
+
+    // Rule 3, with the rator on top of the rand as on the CSE machine's stack
+    protected Symbol apply(Symbol rand, Symbol rator) {
+        if (rator instanceof FunctionValue) {
+            return ((FunctionValue) rator).call(rand);
+        }
+        return this.runtime.apply(rator, rand);
+    }
+
+    // Rule 8: the truth value of a condition
+    protected static boolean test(Symbol value) {
+        return Boolean.parseBoolean(value.getData());
+    }
+
+    // Rule 9, one component at a time
+    protected static Tup append(Tup tup, Symbol value) {
+        tup.symbols.add(value);
+        return tup;
+    }
+}
@@ -0,0 +1,275 @@
+package Jvm;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+
+  Writes the code of one method, keeping track of the operand stack depth to
+  compute max_stack. Only the instructions the JvmCompiler needs are provided.
+  Forward jumps are written with a placeholder offset and patched when their
+  target is reached.
+
+ **/
+public class MethodWriter {
+    public static final int ACONST_NULL = 0x01;
+    public static final int AALOAD = 0x32;
+    public static final int POP = 0x57;
+    public static final int DUP = 0x59;
+    public static final int DUP_X2 = 0x5b;
+    public static final int SWAP = 0x5f;
+    public static final int IFEQ = 0x99;
+    public static final int GOTO = 0xa7;
+    public static final int ARETURN = 0xb0;
+    public static final int RETURN = 0xb1;
+    public static final int GETFIELD = 0xb4;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESPECIAL = 0xb7;
+    public static final int INVOKESTATIC = 0xb8;
+    public static final int NEW = 0xbb;
+
+    private static final int ALOAD = 0x19;
+    private static final int ILOAD = 0x15;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int TABLESWITCH = 0xaa;
+
+    // Largest method the JVM accepts
+    private static final int MAX_CODE = 65535;
+
+    private final ClassWriter owner;
+    private final int access;
+    private final int name;
+    private final int descriptor;
+    private final int maxLocals;
+    private byte[] code = new byte[256];
+    private int size = 0;
+    private int depth = 0;
+    private int maxStack = 0;
+
+    MethodWriter(ClassWriter owner, int access, int name, int descriptor, int maxLocals) {
+        this.owner = owner;
+        this.access = access;
+        this.name = name;
+        this.descriptor = descriptor;
+        this.maxLocals = maxLocals;
+    }
+
+    /**
+
+        Writes an instruction without operands.
+
+        @param opcode The instruction
+        @param delta  Its effect on the stack depth
+
+     **/
+    public void op(int opcode, int delta) {
+        this.write(opcode);
+        this.grow(delta);
+    }
+
+    public void aload(int local) {
+        this.write(ALOAD);
+        this.write(local);
+        this.grow(1);
+    }
+
+    public void iload(int local) {
+        this.write(ILOAD);
+        this.write(local);
+        this.grow(1);
+    }
+
+    /**
+
+        Pushes an int constant with the shortest instruction for it.
+
+     **/
+    public void push(int value) {
+        if (value >= -1 && value <= 5) {
+            this.write(0x03 + value);    // iconst_<n>
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            this.write(BIPUSH);
+            this.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            this.write(SIPUSH);
+            this.writeShort(value);
+        } else {
+            this.write(LDC_W);
+            this.writeShort(this.owner.integer(value));
+        }
+        this.grow(1);
+    }
+
+    public void newObject(String type) {
+        this.write(NEW);
+        this.writeShort(this.owner.classRef(type));
+        this.grow(1);
+    }
+
+    public void getField(String owner, String name, String descriptor) {
+        this.write(GETFIELD);
+        this.writeShort(this.owner.fieldRef(owner, name, descriptor));
+        // The object reference is replaced by the value
+    }
+
+    /**
+
+        Writes a method call; the stack effect is taken from the descriptor.
+
+        @param opcode     INVOKEVIRTUAL, INVOKESPECIAL or INVOKESTATIC
+        @param owner      Internal name of the class declaring the method
+        @param name       Method name
+        @param descriptor Method descriptor, with no long or double types
+
+     **/
+    public void invoke(int opcode, String owner, String name, String descriptor) {
+        this.write(opcode);
+        this.writeShort(this.owner.methodRef(owner, name, descriptor));
+        int arguments = 0;
+        for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (descriptor.charAt(i) == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            arguments++;
+        }
+        boolean isVoid = descriptor.endsWith(")V");
+        this.grow((isVoid ? 0 : 1) - arguments - (opcode == INVOKESTATIC ? 0 : 1));
+    }
+
+    /**
+
+        Writes a forward jump.
+
+        @param opcode IFEQ or GOTO
+        @return The position to patch() once the target is reached
+
+     **/
+    public int jump(int opcode) {
+        int position = this.size;
+        this.write(opcode);
+        this.writeShort(0);
+        this.grow(opcode == GOTO ? 0 : -1);
+        return position;
+    }
+
+    /**
+
+        Makes the jump written at the position target the current position.
+
+     **/
+    public void patch(int position) {
+        int offset = this.size - position;
+        if (offset > Short.MAX_VALUE) {
+            throw new UnsupportedOperationException("Branch too long");
+        }
+        this.code[position + 1] = (byte) (offset >> 8);
+        this.code[position + 2] = (byte) offset;
+    }
+
+    /**
+
+        Writes a tableswitch over the int on the stack.
+
+        @param low  Smallest case value, the cases are low, low+1, ...
+        @param size Number of cases
+        @return The position of the switch, for patchCase()
+
+     **/
+    public int tableSwitch(int low, int size) {
+        int position = this.size;
+        this.write(TABLESWITCH);
+        while (this.size % 4 != 0) {
+            this.write(0);
+        }
+        // Default and case offsets are patched as the cases are written
+        this.writeInt(0);
+        this.writeInt(low);
+        this.writeInt(low + size - 1);
+        for (int i = 0; i < size; i++) {
+            this.writeInt(0);
+        }
+        this.grow(-1);
+        return position;
+    }
+
+    /**
+
+        Makes the current position the target of a case (or of the default, for case -1)
+        of the tableswitch at the position.
+
+     **/
+    public void patchCase(int position, int n) {
+        int offset = this.size - position;
+        int slot = (position + 4) & ~3;
+        slot += n < 0 ? 0 : 12 + 4 * n;
+        this.code[slot] = (byte) (offset >> 24);
+        this.code[slot + 1] = (byte) (offset >> 16);
+        this.code[slot + 2] = (byte) (offset >> 8);
+        this.code[slot + 3] = (byte) offset;
+    }
+
+    /**
+
+        @return The current stack depth
+
+     **/
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+
+        Sets the stack depth, where control arrives from a jump rather than from
+        the preceding instruction.
+
+     **/
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    private void grow(int delta) {
+        this.depth += delta;
+        this.maxStack = Math.max(this.maxStack, this.depth);
+    }
+
+    private void write(int value) {
+        if (this.size == this.code.length) {
+            this.code = Arrays.copyOf(this.code, this.size * 2);
+        }
+        this.code[this.size++] = (byte) value;
+    }
+
+    private void writeShort(int value) {
+        this.write(value >> 8);
+        this.write(value);
+    }
+
+    private void writeInt(int value) {
+        this.writeShort(value >>> 16);
+        this.writeShort(value & 0xFFFF);
+    }
+
+    void writeTo(DataOutputStream out, int codeAttribute) throws IOException {
+        if (this.size > MAX_CODE) {
+            throw new UnsupportedOperationException("Method too large");
+        }
+        out.writeShort(this.access);
+        out.writeShort(this.name);
+        out.writeShort(this.descriptor);
+        out.writeShort(1);    // Attributes: Code
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + this.size);
+        out.writeShort(this.maxStack);
+        out.writeShort(this.maxLocals);
+        out.writeInt(this.size);
+        out.write(this.code, 0, this.size);
+        out.writeShort(0);    // Exception table
+        out.writeShort(0);    // Attributes
+    }
+}
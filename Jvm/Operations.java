@@ -0,0 +1,203 @@
+package Jvm;
+
+import CSE.CSEMachine;
+import Symbols.Bool;
+import Symbols.Bop;
+import Symbols.Int;
+import Symbols.Rator;
+import Symbols.Symbol;
+import Symbols.Uop;
+
+/**
+
+  Operators called from generated code. Each takes its rands in the order they are
+  on the stack (the right one first), checks for integers and otherwise falls back
+  to the CSE machine's generic operation. They are small enough for HotSpot to inline
+  at each call site, where the checks and most of the boxing are optimized away.
+  The typed variants are for operators whose rands type inference proved to be of
+  the right types, and do no checks at all.
+
+ **/
+public class Operations {
+    private static final Bop ADD = new Bop("+");
+    private static final Bop SUB = new Bop("-");
+    private static final Bop MUL = new Bop("*");
+    private static final Bop DIV = new Bop("/");
+    private static final Bop LS = new Bop("ls");
+    private static final Bop LE = new Bop("le");
+    private static final Bop GR = new Bop("gr");
+    private static final Bop GE = new Bop("ge");
+    private static final Uop NEG = new Uop("neg");
+
+    private Operations() {
+
+    }
+
+    /**
+
+        @param rator A unary or binary operator
+        @return The name of the method of this class applying it, or null if there is none
+
+     **/
+    static String getMethod(Rator rator) {
+        if (rator.isTyped()) {
+            switch (rator.getData()) {
+                case "&":
+                    return "andTyped";
+                case "or":
+                    return "orTyped";
+                case "not":
+                    return "notTyped";
+                default:
+                    return getMethod(rator.getData()) + "Typed";
+            }
+        }
+        return getMethod(rator.getData());
+    }
+
+    private static String getMethod(String rator) {
+        switch (rator) {
+            case "+":
+                return "add";
+            case "-":
+                return "sub";
+            case "*":
+                return "mul";
+            case "/":
+                return "div";
+            case "ls":
+                return "ls";
+            case "le":
+                return "le";
+            case "gr":
+                return "gr";
+            case "ge":
+                return "ge";
+            case "neg":
+                return "neg";
+            default:
+                return null;
+        }
+    }
+
+    public static Symbol add(Symbol value2, Symbol value1) {
+        if (value1 instanceof Int && value2 instanceof Int) {
+            return new Int(((Int) value1).getValue() + ((Int) value2).getValue());
+        }
+        return CSEMachine.applyBinaryOperation(ADD, value1, value2);
+    }
+
+    public static Symbol sub(Symbol value2, Symbol value1) {
+        if (value1 instanceof Int && value2 instanceof Int) {
+            return new Int(((Int) value1).getValue() - ((Int) value2).getValue());
+        }
+        return CSEMachine.applyBinaryOperation(SUB, value1, value2);
+    }
+
+    public static Symbol mul(Symbol value2, Symbol value1) {
+        if (value1 instanceof Int && value2 instanceof Int) {
+            return new Int(((Int) value1).getValue() * ((Int) value2).getValue());
+        }
+        return CSEMachine.applyBinaryOperation(MUL, value1, value2);
+    }
+
+    public static Symbol div(Symbol value2, Symbol value1) {
+        if (value1 instanceof Int && value2 instanceof Int) {
+            return new Int(((Int) value1).getValue() / ((Int) value2).getValue());
+        }
+        return CSEMachine.applyBinaryOperation(DIV, value1, value2);
+    }
+
+    public static Symbol ls(Symbol value2, Symbol value1) {
+        if (value1 instanceof Int && value2 instanceof Int) {
+            return new Bool(Boolean.toString(((Int) value1).getValue() < ((Int) value2).getValue()));
+        }
+        return CSEMachine.applyBinaryOperation(LS, value1, value2);
+    }
+
+    public static Symbol le(Symbol value2, Symbol value1) {
+        if (value1 instanceof Int && value2 instanceof Int) {
+            return new Bool(Boolean.toString(((Int) value1).getValue() <= ((Int) value2).getValue()));
+        }
+        return CSEMachine.applyBinaryOperation(LE, value1, value2);
+    }
+
+    public static Symbol gr(Symbol value2, Symbol value1) {
+        if (value1 instanceof Int && value2 instanceof Int) {
+            return new Bool(Boolean.toString(((Int) value1).getValue() > ((Int) value2).getValue()));
+        }
+        return CSEMachine.applyBinaryOperation(GR, value1, value2);
+    }
+
+    public static Symbol ge(Symbol value2, Symbol value1) {
+        if (value1 instanceof Int && value2 instanceof Int) {
+            return new Bool(Boolean.toString(((Int) value1).getValue() >= ((Int) value2).getValue()));
+        }
+        return CSEMachine.applyBinaryOperation(GE, value1, value2);
+    }
+
+    // Any other binary operator, given as a constant
+    public static Symbol binary(Symbol value2, Symbol value1, Symbol rator) {
+        return CSEMachine.applyBinaryOperation(rator, value1, value2);
+    }
+
+    public static Symbol neg(Symbol value) {
+        if (value instanceof Int) {
+            return new Int(-((Int) value).getValue());
+        }
+        return CSEMachine.applyUnaryOperation(NEG, value);
+    }
+
+    // Any other unary operator, given as a constant
+    public static Symbol unary(Symbol value, Symbol rator) {
+        return CSEMachine.applyUnaryOperation(rator, value);
+    }
+
+    public static Symbol addTyped(Symbol value2, Symbol value1) {
+        return new Int(((Int) value1).getValue() + ((Int) value2).getValue());
+    }
+
+    public static Symbol subTyped(Symbol value2, Symbol value1) {
+        return new Int(((Int) value1).getValue() - ((Int) value2).getValue());
+    }
+
+    public static Symbol mulTyped(Symbol value2, Symbol value1) {
+        return new Int(((Int) value1).getValue() * ((Int) value2).getValue());
+    }
+
+    public static Symbol divTyped(Symbol value2, Symbol value1) {
+        return new Int(((Int) value1).getValue() / ((Int) value2).getValue());
+    }
+
+    public static Symbol lsTyped(Symbol value2, Symbol value1) {
+        return new Bool(((Int) value1).getValue() < ((Int) value2).getValue());
+    }
+
+    public static Symbol leTyped(Symbol value2, Symbol value1) {
+        return new Bool(((Int) value1).getValue() <= ((Int) value2).getValue());
+    }
+
+    public static Symbol grTyped(Symbol value2, Symbol value1) {
+        return new Bool(((Int) value1).getValue() > ((Int) value2).getValue());
+    }
+
+    public static Symbol geTyped(Symbol value2, Symbol value1) {
+        return new Bool(((Int) value1).getValue() >= ((Int) value2).getValue());
+    }
+
+    public static Symbol andTyped(Symbol value2, Symbol value1) {
+        return new Bool(((Bool) value1).getValue() && ((Bool) value2).getValue());
+    }
+
+    public static Symbol orTyped(Symbol value2, Symbol value1) {
+        return new Bool(((Bool) value1).getValue() || ((Bool) value2).getValue());
+    }
+
+    public static Symbol negTyped(Symbol value) {
+        return new Int(-((Int) value).getValue());
+    }
+
+    public static Symbol notTyped(Symbol value) {
+        return new Bool(!((Bool) value).getValue());
+    }
+}
@@ -3,6 +3,7 @@ package Lexer;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
 import java.util.regex.*;
 
@@ -16,6 +17,7 @@ import Exceptions.InterpreterException;
  **/
 public class LexicalAnalyser {
     private final String inputFileName;
+    private final Reader input;         // Source read instead of the file, or null
     private final List<Token> tokens = new ArrayList<>();
 
     // Regular expression patterns for matching different token types
@@ -49,6 +51,17 @@ public class LexicalAnalyser {
 
     public LexicalAnalyser(String inputFileName) {
         this.inputFileName = inputFileName;
+        this.input = null;
+    }
+
+    /**
+
+       @param input Source code to scan instead of a file, closed by scan()
+
+     **/
+    public LexicalAnalyser(Reader input) {
+        this.inputFileName = null;
+        this.input = input;
     }
 
     /**
@@ -61,7 +74,7 @@ public class LexicalAnalyser {
     public List<Token> scan() throws InterpreterException {
         int lineNumber = 0;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(inputFileName))) {
+        try (BufferedReader reader = new BufferedReader(input != null ? input : new FileReader(inputFileName))) {
             String line;
 
             while ((line = reader.readLine()) != null) {
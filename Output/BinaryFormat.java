@@ -0,0 +1,84 @@
+package Output;
+
+import Symbols.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+
+  Compact binary encoding of values. Every value starts with a tag byte:
+
+    INT    zig-zag varint
+    STR    varint byte length, UTF-8 bytes (escape sequences expanded)
+    TRUE, FALSE, DUMMY
+    TUPLE  varint element count, then the elements
+    OTHER  as STR, holding the value's name (functions, errors)
+
+ **/
+public class BinaryFormat implements ValueFormat {
+    public static final int INT = 1;
+    public static final int STR = 2;
+    public static final int TRUE = 3;
+    public static final int FALSE = 4;
+    public static final int DUMMY = 5;
+    public static final int TUPLE = 6;
+    public static final int OTHER = 7;
+
+    private final OutputStream out;
+
+    public BinaryFormat(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginTuple(int size) throws IOException {
+        this.out.write(TUPLE);
+        this.writeVarint(size);
+    }
+
+    @Override
+    public void separator() {
+
+    }
+
+    @Override
+    public void endTuple(int size) {
+
+    }
+
+    @Override
+    public void atom(Symbol value) throws IOException {
+        if (value instanceof Int) {
+            long n = Long.parseLong(value.getData());
+            this.out.write(INT);
+            this.writeVarint((n << 1) ^ (n >> 63));
+        } else if (value instanceof Str) {
+            StringBuilder text = new StringBuilder();
+            new TextFormat(text).atom(value);
+            this.out.write(STR);
+            this.writeBytes(text.toString());
+        } else if (value instanceof Bool) {
+            this.out.write("true".equals(value.getData()) ? TRUE : FALSE);
+        } else if (value instanceof Dummy) {
+            this.out.write(DUMMY);
+        } else {
+            this.out.write(OTHER);
+            this.writeBytes(value.getData());
+        }
+    }
+
+    private void writeBytes(String data) throws IOException {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        this.writeVarint(bytes.length);
+        this.out.write(bytes);
+    }
+
+    private void writeVarint(long n) throws IOException {
+        while ((n & ~0x7FL) != 0) {
+            this.out.write((int) ((n & 0x7F) | 0x80));
+            n >>>= 7;
+        }
+        this.out.write((int) n);
+    }
+}
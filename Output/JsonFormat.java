@@ -0,0 +1,71 @@
+package Output;
+
+import Symbols.*;
+import java.io.IOException;
+
+/**
+
+  JSON encoding of values: tuples as arrays, integers as numbers, truth values as
+  booleans, dummy as null, strings (and anything else, e.g. functions) as strings.
+
+ **/
+public class JsonFormat implements ValueFormat {
+    private final Appendable out;
+
+    public JsonFormat(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginTuple(int size) throws IOException {
+        this.out.append('[');
+    }
+
+    @Override
+    public void separator() throws IOException {
+        this.out.append(',');
+    }
+
+    @Override
+    public void endTuple(int size) throws IOException {
+        this.out.append(']');
+    }
+
+    @Override
+    public void atom(Symbol value) throws IOException {
+        if (value instanceof Int || value instanceof Bool) {
+            this.out.append(value.getData());
+        } else if (value instanceof Dummy) {
+            this.out.append("null");
+        } else {
+            this.writeString(value.getData());
+        }
+    }
+
+    private void writeString(String data) throws IOException {
+        this.out.append('"');
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c == '\\' && i + 1 < data.length()) {
+                // RPAL escape sequence, re-encoded as the JSON one
+                char escaped = data.charAt(++i);
+                if (escaped == 'n') {
+                    this.out.append("\\n");
+                } else if (escaped == 't') {
+                    this.out.append("\\t");
+                } else if (escaped == '\\') {
+                    this.out.append("\\\\");
+                } else {
+                    this.out.append(escaped);
+                }
+            } else if (c == '"' || c == '\\') {
+                this.out.append('\\').append(c);
+            } else if (c < 0x20) {
+                this.out.append(String.format("\\u%04x", (int) c));
+            } else {
+                this.out.append(c);
+            }
+        }
+        this.out.append('"');
+    }
+}
@@ -0,0 +1,140 @@
+package Output;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+
+  Buffered destination for program output (the Print builtin).
+  Text is collected in a buffer and handed to the underlying writer once the buffer
+  reaches the threshold, and when the sink is flushed at the end of the program.
+
+ **/
+public class OutputSink implements Appendable, Flushable {
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    private final Writer writer;
+    private final StringBuilder buffer = new StringBuilder();
+    private final int threshold;
+    private final boolean isOwner;     // Whether close() also closes the writer
+
+    public OutputSink(Writer writer, int threshold, boolean isOwner) {
+        this.writer = writer;
+        this.threshold = threshold;
+        this.isOwner = isOwner;
+    }
+
+    /**
+
+        @return A sink writing to the standard output
+
+     **/
+    public static OutputSink stdout() {
+        return new OutputSink(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), DEFAULT_THRESHOLD, false);
+    }
+
+    /**
+
+        @param path File to (over)write
+        @return A sink writing to the file, closed by close()
+
+     **/
+    public static OutputSink file(Path path) throws IOException {
+        return new OutputSink(Files.newBufferedWriter(path, StandardCharsets.UTF_8), DEFAULT_THRESHOLD, true);
+    }
+
+    /**
+
+        @return A sink keeping the output in memory, read back with getContents()
+
+     **/
+    public static OutputSink memory() {
+        return new OutputSink(new StringWriter(), DEFAULT_THRESHOLD, false);
+    }
+
+    @Override
+    public OutputSink append(CharSequence csq) {
+        this.buffer.append(csq);
+        this.flushIfFull();
+        return this;
+    }
+
+    @Override
+    public OutputSink append(CharSequence csq, int start, int end) {
+        this.buffer.append(csq, start, end);
+        this.flushIfFull();
+        return this;
+    }
+
+    @Override
+    public OutputSink append(char c) {
+        this.buffer.append(c);
+        this.flushIfFull();
+        return this;
+    }
+
+    /**
+
+        Hands the buffered text to the underlying writer and flushes it.
+
+     **/
+    @Override
+    public void flush() {
+        try {
+            this.writeBuffer();
+            this.writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+
+        Flushes the sink and closes the underlying writer if the sink owns it.
+
+     **/
+    public void close() {
+        this.flush();
+        if (this.isOwner) {
+            try {
+                this.writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+
+        @return Everything written so far, for sinks created with memory()
+
+     **/
+    public String getContents() {
+        if (!(this.writer instanceof StringWriter)) {
+            throw new IllegalStateException("Not an in-memory sink");
+        }
+        return this.writer.toString() + this.buffer;
+    }
+
+    private void flushIfFull() {
+        if (this.buffer.length() >= this.threshold) {
+            try {
+                this.writeBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        this.writer.append(this.buffer);
+        this.buffer.setLength(0);
+    }
+}
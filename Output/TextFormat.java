@@ -0,0 +1,67 @@
+package Output;
+
+import Symbols.*;
+import java.io.IOException;
+
+/**
+
+  The format Print uses: (1, 2, (3, 4)), nil, strings with their escape sequences expanded.
+
+ **/
+public class TextFormat implements ValueFormat {
+    private final Appendable out;
+
+    public TextFormat(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginTuple(int size) throws IOException {
+        this.out.append(size == 0 ? "nil" : "(");
+    }
+
+    @Override
+    public void separator() throws IOException {
+        this.out.append(", ");
+    }
+
+    @Override
+    public void endTuple(int size) throws IOException {
+        if (size != 0) {
+            this.out.append(')');
+        }
+    }
+
+    @Override
+    public void atom(Symbol value) throws IOException {
+        if (value instanceof Str) {
+            this.writeString(value.getData());
+        } else {
+            this.out.append(value.getData());
+        }
+    }
+
+    // Expands the escape sequences the lexer accepts in string literals
+    private void writeString(String data) throws IOException {
+        int start = 0;
+        int i = data.indexOf('\\');
+        while (i >= 0 && i + 1 < data.length()) {
+            this.out.append(data, start, i);
+            char c = data.charAt(i + 1);
+            switch (c) {
+                case 'n':
+                    this.out.append('\n');
+                    break;
+                case 't':
+                    this.out.append('\t');
+                    break;
+                default:
+                    this.out.append(c);
+                    break;
+            }
+            start = i + 2;
+            i = data.indexOf('\\', start);
+        }
+        this.out.append(data, start, data.length());
+    }
+}
@@ -0,0 +1,42 @@
+package Output;
+
+import Symbols.Symbol;
+import java.io.IOException;
+
+/**
+
+  Encoding of values, driven by ValueWriter.
+  ValueWriter walks the value and reports tuples and atoms in order, so every format
+  shares the same (iterative, streaming) traversal and only decides how to encode.
+
+ **/
+public interface ValueFormat {
+
+    /**
+
+        Starts a tuple of the given number of elements (0 for nil).
+
+     **/
+    void beginTuple(int size) throws IOException;
+
+    /**
+
+        Called between two elements of a tuple.
+
+     **/
+    void separator() throws IOException;
+
+    /**
+
+        Ends the innermost open tuple of the given size.
+
+     **/
+    void endTuple(int size) throws IOException;
+
+    /**
+
+        Writes a value that is not a tuple.
+
+     **/
+    void atom(Symbol value) throws IOException;
+}
@@ -0,0 +1,114 @@
+package Output;
+
+import Symbols.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+
+/**
+
+  Serializes values through a ValueFormat (text, JSON or binary).
+  Tuples are written element by element straight to the output, walking nested tuples
+  with an explicit stack instead of recursion, so neither the size nor the depth of a
+  result is limited by building intermediate Strings or by the Java stack.
+
+ **/
+public class ValueWriter {
+
+    private ValueWriter() {
+
+    }
+
+    /**
+
+        Writes a value in the text form Print shows it.
+
+        @param value The value to write
+        @param out   Destination of the text
+        @throws IOException if the destination fails
+
+     **/
+    public static void write(Symbol value, Appendable out) throws IOException {
+        write(value, new TextFormat(out));
+    }
+
+    /**
+
+        Writes a value as JSON.
+
+     **/
+    public static void writeJson(Symbol value, Appendable out) throws IOException {
+        write(value, new JsonFormat(out));
+    }
+
+    /**
+
+        Writes a value in the compact binary encoding.
+
+     **/
+    public static void writeBinary(Symbol value, OutputStream out) throws IOException {
+        write(value, new BinaryFormat(out));
+    }
+
+    /**
+
+        @param value The value to convert
+        @return The text form of the value
+
+     **/
+    public static String toString(Symbol value) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            write(value, builder);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+
+        Walks the value in order, reporting tuples and atoms to the format.
+
+        @param value  The value to write
+        @param format The encoding to use
+        @throws IOException if the destination fails
+
+     **/
+    public static void write(Symbol value, ValueFormat format) throws IOException {
+        ArrayDeque<Tup> tuples = new ArrayDeque<Tup>();
+        ArrayDeque<Integer> positions = new ArrayDeque<Integer>();   // Index of the next element
+        Symbol next = value;
+        while (true) {
+            // Open tuples until reaching an atom or an empty tuple
+            while (next instanceof Tup) {
+                Tup tup = (Tup) next;
+                format.beginTuple(tup.symbols.size());
+                if (tup.symbols.isEmpty()) {
+                    format.endTuple(0);
+                    break;
+                }
+                tuples.push(tup);
+                positions.push(1);
+                next = tup.symbols.get(0);
+            }
+            if (!(next instanceof Tup)) {
+                format.atom(next);
+            }
+
+            // Close every tuple whose elements are exhausted
+            while (!tuples.isEmpty() && positions.peek() == tuples.peek().symbols.size()) {
+                format.endTuple(tuples.pop().symbols.size());
+                positions.pop();
+            }
+            if (tuples.isEmpty()) {
+                return;
+            }
+            format.separator();
+            int position = positions.pop();
+            positions.push(position + 1);
+            next = tuples.peek().symbols.get(position);
+        }
+    }
+}
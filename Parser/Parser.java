@@ -21,6 +21,8 @@ public class Parser {
     private List<Token> tokens;
     private List<Node> AST; // Last element will be root of the tree
     private ArrayList<String> stringAST;
+    private ArrayList<String> errors = new ArrayList<>(); // Messages of the syntax errors found
+    private boolean isQuiet = false;                       // Whether errors are only collected, not printed
 
     public Parser(List<Token> tokens) {
         this.tokens=tokens;
@@ -28,6 +30,31 @@ public class Parser {
         stringAST = new ArrayList<>();
     }
 
+    /**
+
+     @param isQuiet Whether to only collect syntax errors instead of also printing them to stdout
+
+     **/
+    public void setQuiet(boolean isQuiet) {
+        this.isQuiet = isQuiet;
+    }
+
+    /**
+
+     @return The messages of the syntax errors found by parse(), in order
+
+     **/
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    private void error(String message) {
+        errors.add(message);
+        if(!isQuiet) {
+            System.out.println(message);
+        }
+    }
+
     public List<Node> parse(){
         tokens.add(new Token(TokenType.EndOfTokens,""));
         E();
@@ -35,10 +62,10 @@ public class Parser {
             return AST;
         }
         else {
-            System.out.println("Error: Parsing could not be completed.");
-            System.out.println("Unprocessed tokens found:");
+            error("Error: Parsing could not be completed.");
+            error("Unprocessed tokens found:");
             for (Token token : tokens) {
-                System.out.println("<" + token.type + ", " + token.value + ">");
+                error("<" + token.type + ", " + token.value + ">");
             }
             return null;
         }
@@ -153,7 +180,7 @@ public class Parser {
                 tokens.remove(0);
                 D();
                 if(!tokens.get(0).value.equals("in")) {
-                    System.out.println("Parsing Failed: Error at E — expected 'in'.");
+                    error("Parsing Failed: Error at E — expected 'in'.");
                 }
                 tokens.remove(0);
                 E();
@@ -167,7 +194,7 @@ public class Parser {
                     n++;
                 } while(tokens.get(0).type.equals(TokenType.IDENTIFIER) || tokens.get(0).value.equals("("));
                 if(!tokens.get(0).value.equals(".")) {
-                    System.out.println("Parsing Failed: Error at E — expected '.'.");
+                    error("Parsing Failed: Error at E — expected '.'.");
                 }
                 tokens.remove(0);
                 E();
@@ -249,7 +276,7 @@ public class Parser {
             tokens.remove(0); // Remove '->'
             Tc();
             if(!tokens.get(0).value.equals("|")){
-                System.out.println("Parsing Failed: Error at Tc — expected '|'.");
+                error("Parsing Failed: Error at Tc — expected '|'.");
             }
             tokens.remove(0); //Remove '|'
             Tc();
@@ -431,7 +458,7 @@ public class Parser {
             tokens.remove(0); //Remove @
 
             if(!tokens.get(0).type.equals(TokenType.IDENTIFIER)){
-                System.out.println("Parsing Failed: Error at Ap — expected IDENTIFIER.");
+                error("Parsing Failed: Error at Ap — expected IDENTIFIER.");
             }
             AST.add(new Node(NodeType.identifier,tokens.get(0).value,0));
             tokens.remove(0); // Remove IDENTIFIER
@@ -507,7 +534,7 @@ public class Parser {
                         tokens.remove(0);
                         break;
                     default:
-                        System.out.println("Parsing Failed: Error at Rn — unexpected keyword encountered.");
+                        error("Parsing Failed: Error at Rn — unexpected keyword encountered.");
                         break;
                 }
                 break;
@@ -516,15 +543,15 @@ public class Parser {
                     tokens.remove(0); // Remove '('
                     E();
                     if (!tokens.get(0).value.equals(")")) {
-                        System.out.println("Parsing Failed: Error at Rn — expected matching ')'.");
+                        error("Parsing Failed: Error at Rn — expected matching ')'.");
                     }
                     tokens.remove(0); // Remove ')'
                 } else {
-                    System.out.println("Parsing Failed: Error at Rn — unexpected punctuation.");
+                    error("Parsing Failed: Error at Rn — unexpected punctuation.");
                 }
                 break;
             default:
-                System.out.println("Parsing Failed: Error at Rn — unexpected token type.");
+                error("Parsing Failed: Error at Rn — unexpected token type.");
                 break;
         }
     }
@@ -600,7 +627,7 @@ public class Parser {
             tokens.remove(0);
             D();
             if (!tokens.get(0).value.equals(")")) {
-                System.out.println("Parsing Failed: Error at Db #1 — expected closing ')'.");
+                error("Parsing Failed: Error at Db #1 — expected closing ')'.");
             }
             tokens.remove(0);
         }
@@ -616,7 +643,7 @@ public class Parser {
                 } while (tokens.get(0).type.equals(TokenType.IDENTIFIER) || tokens.get(0).value.equals("("));
 
                 if (!tokens.get(0).value.equals("=")) {
-                    System.out.println("Parsing Failed: Error at Db #2 — expected '='.");
+                    error("Parsing Failed: Error at Db #2 — expected '='.");
                 }
                 tokens.remove(0);
                 E();
@@ -633,7 +660,7 @@ public class Parser {
             else if (tokens.get(1).value.equals(",")) {
                 Vl();
                 if (!tokens.get(0).value.equals("=")) {
-                    System.out.println("Parsing Failed: Error at Db — expected '=' after variable list.");
+                    error("Parsing Failed: Error at Db — expected '=' after variable list.");
                 }
                 tokens.remove(0);
                 E();
@@ -641,11 +668,11 @@ public class Parser {
                 AST.add(new Node(NodeType.equal, "=", 2));
             }
             else {
-                System.out.println("Parsing Failed: Error at Db — unexpected token sequence.");
+                error("Parsing Failed: Error at Db — unexpected token sequence.");
             }
         }
         else {
-            System.out.println("Parsing Failed: Error at Db — expected identifier or '('.");
+            error("Parsing Failed: Error at Db — expected identifier or '('.");
         }
     }
 
@@ -669,7 +696,7 @@ public class Parser {
                 isVl = true;
             }
             if (!tokens.get(0).value.equals(")")) {
-                System.out.println("Parsing Failed: Error at Vb — unmatched ')'.");
+                error("Parsing Failed: Error at Vb — unmatched ')'.");
             }
             tokens.remove(0);
             if (!isVl) {
@@ -696,7 +723,7 @@ public class Parser {
                 tokens.remove(0); // remove comma
             }
             if (!tokens.get(0).type.equals(TokenType.IDENTIFIER)) {
-                System.out.println("Parsing Failed: Error at Vl — expected an identifier.");
+                error("Parsing Failed: Error at Vl — expected an identifier.");
             }
             AST.add(new Node(NodeType.identifier, tokens.get(0).value, 0));
             tokens.remove(0);
@@ -0,0 +1,143 @@
+package Server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+
+  The framed protocol between RpalClient and RpalServer, one request and its response
+  per connection, over a Unix domain socket or a localhost TCP socket. Integers are
+  big-endian 32 bit; strings are an integer byte count followed by UTF-8.
+
+    Request   MAGIC, kind (RUN or SHUTDOWN), argument count, the arguments (the myrpal
+              switches), the source text
+    Response  status (OK, COMPILE_ERROR, RUNTIME_ERROR, BUSY or BAD_REQUEST), the text
+              for the standard output, the text for the standard error
+
+ **/
+public class Protocol {
+    public static final int MAGIC = 0x52504131;    // "RPA1"
+    public static final int DEFAULT_PORT = 7171;
+
+    public static final int RUN = 1;
+    public static final int SHUTDOWN = 2;
+
+    public static final int OK = 0;
+    public static final int COMPILE_ERROR = 1;
+    public static final int RUNTIME_ERROR = 2;
+    public static final int BUSY = 3;
+    public static final int BAD_REQUEST = 4;
+
+    // Largest string accepted, so a bad frame cannot exhaust the heap
+    public static final int MAX_STRING = 64 * 1024 * 1024;
+
+    private Protocol() {
+
+    }
+
+    /**
+
+        @param socket Path of a Unix domain socket, or null for TCP
+        @param port   Localhost TCP port, when there is no socket path
+        @return The address of the server
+
+     **/
+    public static SocketAddress getAddress(String socket, int port) {
+        if (socket != null) {
+            return UnixDomainSocketAddress.of(Path.of(socket));
+        }
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    public static ServerSocketChannel listen(SocketAddress address) throws IOException {
+        ServerSocketChannel server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open();
+        return server.bind(address);
+    }
+
+    public static SocketChannel connect(SocketAddress address) throws IOException {
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+        channel.connect(address);
+        return channel;
+    }
+
+    public static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING) {
+            throw new IOException("Bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeRequest(DataOutputStream out, int kind, List<String> args, String source) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(kind);
+        out.writeInt(args.size());
+        for (String arg : args) {
+            writeString(out, arg);
+        }
+        writeString(out, source);
+        out.flush();
+    }
+
+    public static void writeResponse(DataOutputStream out, int status, String stdout, String stderr) throws IOException {
+        out.writeInt(status);
+        writeString(out, stdout);
+        writeString(out, stderr);
+        out.flush();
+    }
+
+    /**
+
+        A request read by the server.
+
+     **/
+    public static class Request {
+        public final int kind;
+        public final List<String> args;
+        public final String source;
+
+        Request(int kind, List<String> args, String source) {
+            this.kind = kind;
+            this.args = args;
+            this.source = source;
+        }
+    }
+
+    public static Request readRequest(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an RPAL request");
+        }
+        int kind = in.readInt();
+        int count = in.readInt();
+        if (count < 0 || count > 1024) {
+            throw new IOException("Bad argument count " + count);
+        }
+        ArrayList<String> args = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            args.add(readString(in));
+        }
+        return new Request(kind, args, readString(in));
+    }
+}
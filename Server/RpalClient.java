@@ -0,0 +1,66 @@
+package Server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+
+  Thin client of RpalServer taking the same arguments as myrpal: the switches -ast, -st,
+  -lazy, -parallel, -lift, -common, -types and --engine=..., then the file. The file is
+  read here and sent to the server, which runs it; its output is written to the standard
+  output and error as myrpal would, and the exit status is the response status (0 for
+  success). --shutdown asks the server to stop instead.
+
+  Usage: java Server.RpalClient [--socket=PATH | --port=N] [switches] file
+         java Server.RpalClient [--socket=PATH | --port=N] --shutdown
+
+ **/
+public class RpalClient {
+
+    public static void main(String[] args) throws IOException {
+        String socket = null;
+        int port = Protocol.DEFAULT_PORT;
+        boolean isShutdown = false;
+        ArrayList<String> switches = new ArrayList<String>();
+        String fn = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--socket=")) {
+                socket = args[i].substring("--socket=".length());
+            } else if (args[i].startsWith("--port=")) {
+                port = Integer.parseInt(args[i].substring("--port=".length()));
+            } else if (args[i].equals("--shutdown")) {
+                isShutdown = true;
+            } else if (i == args.length - 1 && !args[i].startsWith("-")) {
+                fn = args[i];
+            } else {
+                switches.add(args[i]);
+            }
+        }
+        if (fn == null && !isShutdown) {
+            System.out.println("Invalid Arguments Passing!");
+            System.exit(Protocol.BAD_REQUEST);
+        }
+
+        try (SocketChannel channel = Protocol.connect(Protocol.getAddress(socket, port))) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            if (isShutdown) {
+                Protocol.writeRequest(out, Protocol.SHUTDOWN, List.of(), "");
+            } else {
+                Protocol.writeRequest(out, Protocol.RUN, switches, Files.readString(Path.of(fn)));
+            }
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            int status = in.readInt();
+            System.out.print(Protocol.readString(in));
+            System.out.flush();
+            System.err.print(Protocol.readString(in));
+            System.exit(status);
+        }
+    }
+}
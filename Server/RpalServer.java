@@ -0,0 +1,292 @@
+package Server;
+
+import Api.CompileException;
+import Api.CompiledProgram;
+import Api.Compiler;
+import Api.ExecutionOptions;
+import Api.ExecutionResult;
+import Builtins.BuiltinRegistry;
+import Standardizer.CommonSubexpressions;
+import Standardizer.LambdaLifter;
+import Standardizer.TypeInference;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+
+  Runs RPAL programs sent by RpalClient in one warm JVM, so short jobs pay neither JVM
+  startup nor JIT warm-up. Requests are framed as in Protocol and run on a fixed pool of
+  concurrency threads (platform threads, as this code base targets Java 17, which has
+  no virtual threads); up to QUEUE_PER_THREAD waiting requests per thread are queued and
+  any more are answered BUSY. Each request collects its Print output in its own buffer.
+  Compiled programs are cached by the hash of their source and their passes, least
+  recently used first out.
+
+  The server stops gracefully on a SHUTDOWN request or when the JVM is terminated: it
+  stops accepting, lets the requests it accepted finish and removes its socket file.
+
+  Usage: java Server.RpalServer [--socket=PATH | --port=N] [--concurrency=N] [--cache=N] [--timeout=MS]
+
+    --socket=PATH    Listen on a Unix domain socket instead of localhost TCP
+    --port=N         Localhost TCP port (default 7171)
+    --concurrency=N  Requests run at once (default the number of processors)
+    --cache=N        Compiled programs kept (default 256)
+    --timeout=MS     Time limit of each run, 0 for none (default); when set, requests for
+                     engines other than the CSE machine are refused
+
+ **/
+public class RpalServer {
+    public static final int DEFAULT_CACHE_SIZE = 256;
+    public static final int QUEUE_PER_THREAD = 16;
+    public static final long SHUTDOWN_WAIT_MILLIS = 30000;
+
+    private final SocketAddress address;
+    private final ServerSocketChannel server;
+    private final ThreadPoolExecutor pool;
+    private final Map<String, CompiledProgram> cache;
+    private final BuiltinRegistry registry = BuiltinRegistry.withStandardLibrary();
+    private final long timeoutMillis;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile boolean isStopping = false;
+
+    public RpalServer(SocketAddress address, int concurrency, int cacheSize, long timeoutMillis) throws IOException {
+        this.address = address;
+        this.server = Protocol.listen(address);
+        this.pool = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(concurrency * QUEUE_PER_THREAD));
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CompiledProgram>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledProgram> eldest) {
+                return this.size() > cacheSize;
+            }
+        });
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String socket = null;
+        int port = Protocol.DEFAULT_PORT;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        long timeoutMillis = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--socket=")) {
+                socket = arg.substring("--socket=".length());
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--concurrency=")) {
+                concurrency = Integer.parseInt(arg.substring("--concurrency=".length()));
+            } else if (arg.startsWith("--cache=")) {
+                cacheSize = Integer.parseInt(arg.substring("--cache=".length()));
+            } else if (arg.startsWith("--timeout=")) {
+                timeoutMillis = Long.parseLong(arg.substring("--timeout=".length()));
+            } else {
+                System.out.println("Invalid Arguments Passing!");
+                return;
+            }
+        }
+
+        RpalServer server = new RpalServer(Protocol.getAddress(socket, port), concurrency, cacheSize, timeoutMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown));
+        System.err.println("Listening on " + server.address + " with " + concurrency + " threads");
+        server.serve();
+    }
+
+    /**
+
+        Accepts requests until the server is shut down, then waits for those accepted.
+
+     **/
+    public void serve() throws IOException {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = this.server.accept();
+            } catch (ClosedChannelException e) {
+                if (this.isStopping) {
+                    break;
+                }
+                throw e;
+            }
+            try {
+                this.pool.execute(() -> this.handle(channel));
+            } catch (RejectedExecutionException e) {
+                this.reject(channel);
+            }
+        }
+        try {
+            this.pool.awaitTermination(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+
+        Stops accepting requests, waits for those accepted to finish and removes the socket file.
+
+     **/
+    public synchronized void shutdown() {
+        if (this.isStopping) {
+            return;
+        }
+        this.isStopping = true;
+        try {
+            this.server.close();
+            this.pool.shutdown();
+            this.pool.awaitTermination(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            if (this.address instanceof UnixDomainSocketAddress) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) this.address).getPath());
+            }
+        } catch (IOException e) {
+            System.err.println("Shutdown: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.err.println("Stopped, compiled program cache " + this.hits + " hits, " + this.misses + " misses");
+    }
+
+    // Answers a request the pool has no room for, or that arrived while shutting down
+    private void reject(SocketChannel channel) {
+        try (channel) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            Protocol.writeResponse(out, Protocol.BUSY, "", "Server busy\n");
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            Protocol.Request request;
+            try {
+                request = Protocol.readRequest(in);
+            } catch (IOException e) {
+                Protocol.writeResponse(out, Protocol.BAD_REQUEST, "", e.getMessage() + "\n");
+                return;
+            }
+            if (request.kind == Protocol.SHUTDOWN) {
+                Protocol.writeResponse(out, Protocol.OK, "", "");
+                // Not on a pool thread, as shutting down waits for the pool
+                new Thread(this::shutdown, "rpal-shutdown").start();
+            } else if (request.kind == Protocol.RUN) {
+                this.run(request, out);
+            } else {
+                Protocol.writeResponse(out, Protocol.BAD_REQUEST, "", "Unknown request kind " + request.kind + "\n");
+            }
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+
+    // Runs a program with the myrpal switches of the request and writes the response
+    private void run(Protocol.Request request, DataOutputStream out) throws IOException {
+        boolean isPrintAST = false, isPrintST = false;
+        ExecutionOptions options = new ExecutionOptions().setTimeout(this.timeoutMillis);
+        Compiler compiler = new Compiler(this.registry);
+        ArrayList<String> passes = new ArrayList<String>();
+        for (String arg : request.args) {
+            if (arg.equalsIgnoreCase("-ast")) {
+                isPrintAST = true;
+            } else if (arg.equalsIgnoreCase("-st")) {
+                isPrintST = true;
+            } else if (arg.equalsIgnoreCase("-lazy")) {
+                options.setLazy(true);
+            } else if (arg.equalsIgnoreCase("-parallel")) {
+                options.setParallel(true);
+            } else if (arg.equalsIgnoreCase("-lift")) {
+                compiler.addPass(LambdaLifter::new);
+                passes.add("lift");
+            } else if (arg.equalsIgnoreCase("-common")) {
+                compiler.addPass(() -> new CommonSubexpressions(this.registry));
+                passes.add("common");
+            } else if (arg.equalsIgnoreCase("-types")) {
+                compiler.addPass(TypeInference::new);
+                passes.add("types");
+            } else if (arg.startsWith("--engine=")) {
+                options.setEngine(arg.substring("--engine=".length()));
+            } else {
+                Protocol.writeResponse(out, Protocol.BAD_REQUEST, "Invalid Arguments Passing!\n", "");
+                return;
+            }
+        }
+        if (!options.getEngine().equals("cse") && (options.isLazy() || options.isParallel())) {
+            Protocol.writeResponse(out, Protocol.BAD_REQUEST, "Invalid Arguments Passing!\n", "");
+            return;
+        }
+        if (!options.getEngine().equals("cse") && this.timeoutMillis > 0) {
+            // Limits are enforced by the CSE machine only, and a run must not outlive them
+            Protocol.writeResponse(out, Protocol.BAD_REQUEST, "",
+                    "Engine " + options.getEngine() + " cannot enforce the server's time limit\n");
+            return;
+        }
+
+        CompiledProgram program;
+        try {
+            program = this.getProgram(compiler, request.source, passes);
+        } catch (CompileException e) {
+            Protocol.writeResponse(out, Protocol.COMPILE_ERROR, String.join("\n", e.getErrors()) + "\n", "");
+            return;
+        }
+
+        StringBuilder stdout = new StringBuilder();
+        if (isPrintAST) {
+            program.getSyntaxTree().forEach(line -> stdout.append(line).append('\n'));
+        }
+        if (isPrintST) {
+            program.getStandardizedTree().forEach(line -> stdout.append(line).append('\n'));
+        }
+        ExecutionResult result;
+        try {
+            result = program.execute(options);
+        } catch (IllegalArgumentException e) {
+            Protocol.writeResponse(out, Protocol.BAD_REQUEST, "Invalid Arguments Passing!\n", "");
+            return;
+        }
+        if (!isPrintAST && !isPrintST) {
+            stdout.append(result.getOutput());
+        }
+        if (!result.isSuccess()) {
+            Protocol.writeResponse(out, Protocol.RUNTIME_ERROR, stdout.toString(), result.getError() + "\n");
+            return;
+        }
+        if (!isPrintAST && !isPrintST) {
+            stdout.append('\n');
+        }
+        Protocol.writeResponse(out, Protocol.OK, stdout.toString(), "");
+    }
+
+    private CompiledProgram getProgram(Compiler compiler, String source, List<String> passes) throws CompileException {
+        String key = Compiler.getHash(source) + passes;
+        CompiledProgram program = this.cache.get(key);
+        if (program != null) {
+            this.hits.incrementAndGet();
+            return program;
+        }
+        this.misses.incrementAndGet();
+        program = compiler.compile(source);
+        this.cache.put(key, program);
+        return program;
+    }
+}
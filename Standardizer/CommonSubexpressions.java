@@ -0,0 +1,373 @@
+package Standardizer;
+
+import Builtins.BuiltinRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+
+/**
+
+  Common subexpression elimination within function bodies.
+
+  An expression computed more than once in a function body (or in the program outside
+  functions), with its identifiers bound by the same lambdas each time, is computed
+  once: gamma (lambda c$n. B') E, where B' is the smallest part of the body holding
+  every occurrence, with the occurrences replaced by c$n. Let bodies belong to the
+  function body they are in; expressions in nested functions are only shared there.
+
+  RPAL is strict, so an expression is only shared where B certainly evaluates it: one
+  occurrence is reached whenever B is evaluated (not only in one branch of a
+  conditional or inside a function), or both branches of a conditional evaluate it.
+  Only pure expressions are shared, so computing them once and before the rest of B
+  changes nothing but which error is reported first by a program that fails anyway.
+  Applications of builtins are pure when the registry says the builtin is (every core
+  builtin but Print is), and those of other functions when no function has effects
+  (Print and impure builtins are only called outside functions).
+  Expressions without applications are only worth sharing with at least three
+  operators, as binding their value costs about as much as computing them.
+
+ **/
+public class CommonSubexpressions implements Pass {
+    private static final int MIN_OPERATORS = 3;
+
+    // Builtins free identifiers resolve to, and which of them are pure
+    private final BuiltinRegistry registry;
+
+    private boolean isPure;    // No function of the program has effects
+    private int shared;
+    private int eliminated;
+
+    // Per body: parents of its nodes, and the identifiers bound outside the program
+    private IdentityHashMap<Node, Node> parents;
+    private IdentityHashMap<Node, Boolean> globals;
+    private IdentityHashMap<Node, Integer> binders;
+
+    /**
+
+        An identifier bound by a lambda, linked to the enclosing ones.
+
+     **/
+    private static class Scope {
+        final String name;
+        final Node lambda;
+        final Scope parent;
+
+        Scope(String name, Node lambda, Scope parent) {
+            this.name = name;
+            this.lambda = lambda;
+            this.parent = parent;
+        }
+    }
+
+    /**
+
+        @param registry The builtins of the programs the pass is applied to
+
+     **/
+    public CommonSubexpressions(BuiltinRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public String getName() {
+        return "common";
+    }
+
+    @Override
+    public String apply(AST ast) {
+        this.binders = new IdentityHashMap<Node, Integer>();
+        this.isPure = !this.hasEffectInFunction(ast.getRoot(), null, false);
+        this.shared = 0;
+        this.eliminated = 0;
+
+        Node root = this.eliminate(ast.getRoot(), null);
+        LambdaLifter.relink(root, null, 0);
+        ast.setRoot(root);
+        return this.shared + " expressions shared, " + this.eliminated + " occurrences eliminated";
+    }
+
+    // Eliminates the common subexpressions of a function body, and of the functions in it
+    private Node eliminate(Node body, Scope scope) {
+        this.eliminateFunctions(body, scope);
+
+        HashSet<String> rejected = new HashSet<String>();
+        while (true) {
+            this.parents = new IdentityHashMap<Node, Node>();
+            this.globals = new IdentityHashMap<Node, Boolean>();
+            LinkedHashMap<String, ArrayList<Node>> occurrences = new LinkedHashMap<String, ArrayList<Node>>();
+            this.collect(body, scope, occurrences);
+
+            // The largest expression computed more than once, where it is certainly computed
+            ArrayList<Node> best = null;
+            Node bestBlock = null;
+            for (String key : occurrences.keySet()) {
+                ArrayList<Node> nodes = occurrences.get(key);
+                if (nodes.size() < 2 || rejected.contains(key)
+                        || (best != null && getSize(nodes.get(0)) <= getSize(best.get(0))) || !this.isShareable(nodes.get(0))) {
+                    continue;
+                }
+                Node block = this.getBlock(nodes);
+                if (isCertain(block, nodes)) {
+                    best = nodes;
+                    bestBlock = block;
+                } else {
+                    rejected.add(key);
+                }
+            }
+            if (best == null) {
+                return body;
+            }
+
+            this.shared++;
+            this.eliminated += best.size() - 1;
+            String name = "c$" + this.shared;
+            Node expression = best.get(0);
+            Node blockParent = bestBlock == body ? null : this.parents.get(bestBlock);
+            for (Node node : best) {
+                Node parent = this.parents.get(node);
+                parent.children.set(parent.children.indexOf(node), getNode("<ID:" + name + ">"));
+            }
+            Node binding = gamma(lambda(name, bestBlock), expression);
+            if (blockParent == null) {
+                body = binding;
+            } else {
+                blockParent.children.set(indexOf(blockParent, bestBlock), binding);
+            }
+        }
+    }
+
+    // Finds the function bodies below node, outside functions
+    private void eliminateFunctions(Node node, Scope scope) {
+        if (isLet(node)) {
+            Node lambda = node.children.get(0);
+            this.eliminateFunctions(node.children.get(1), scope);
+            this.eliminateFunctions(lambda.children.get(1), this.bind(lambda, scope));
+        } else if ("lambda".equals(node.getData())) {
+            node.children.set(1, this.eliminate(node.children.get(1), this.bind(node, scope)));
+        } else {
+            for (Node child : node.children) {
+                this.eliminateFunctions(child, scope);
+            }
+        }
+    }
+
+    // Records the expressions below node, outside functions, by their key; returns the key of node
+    private String collect(Node node, Scope scope, LinkedHashMap<String, ArrayList<Node>> occurrences) {
+        for (Node child : node.children) {
+            this.parents.put(child, node);
+        }
+        if (isLet(node)) {
+            Node lambda = node.children.get(0);
+            this.parents.put(lambda.children.get(1), lambda);
+            this.collect(node.children.get(1), scope, occurrences);
+            this.collect(lambda.children.get(1), this.bind(lambda, scope), occurrences);
+            return null;
+        } else if ("lambda".equals(node.getData()) || "<Y*>".equals(node.getData())) {
+            return null;
+        } else if (node.getData().startsWith("<ID:")) {
+            String name = getName(node);
+            for (Scope s = scope; s != null; s = s.parent) {
+                if (s.name.equals(name)) {
+                    return node.getData() + "@" + this.binders.get(s.lambda);
+                }
+            }
+            this.globals.put(node, true);
+            return node.getData();
+        } else if (node.children.isEmpty()) {
+            return node.getData();
+        }
+
+        StringBuilder key = new StringBuilder(node.getData()).append("(");
+        boolean isExpression = true;
+        for (Node child : node.children) {
+            String childKey = this.collect(child, scope, occurrences);
+            isExpression &= childKey != null;
+            key.append(childKey).append(",");
+        }
+        if (!isExpression) {
+            return null;
+        }
+        String result = key.append(")").toString();
+        occurrences.computeIfAbsent(result, k -> new ArrayList<Node>()).add(node);
+        return result;
+    }
+
+    private Scope bind(Node lambda, Scope scope) {
+        if (!this.binders.containsKey(lambda)) {
+            this.binders.put(lambda, this.binders.size() + 1);
+        }
+        for (String parameter : getParameters(lambda)) {
+            scope = new Scope(parameter, lambda, scope);
+        }
+        return scope;
+    }
+
+    // Whether an expression is pure and costly enough to share
+    private boolean isShareable(Node expression) {
+        int[] counts = new int[2];    // Applications, operators
+        return this.isPure(expression, counts) && (counts[0] > 0 || counts[1] >= MIN_OPERATORS);
+    }
+
+    private boolean isPure(Node node, int[] counts) {
+        if ("gamma".equals(node.getData())) {
+            counts[0]++;
+            Node rator = node.children.get(0);
+            while ("gamma".equals(rator.getData())) {
+                rator = rator.children.get(0);
+            }
+            if (this.globals.containsKey(rator) && this.registry.resolve(getName(rator)) != null) {
+                // Print and impure builtins have effects wherever they are applied
+                if (!this.registry.isPure(getName(rator))) {
+                    return false;
+                }
+            } else if (!this.isPure) {
+                return false;
+            }
+        } else if (!node.children.isEmpty() && !"tau".equals(node.getData()) && !"->".equals(node.getData())) {
+            counts[1]++;
+        }
+        for (Node child : node.children) {
+            if (!this.isPure(child, counts)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The smallest node holding all the given nodes
+    private Node getBlock(ArrayList<Node> nodes) {
+        Node block = nodes.get(0);
+        for (Node node : nodes) {
+            while (!this.isAncestor(block, node)) {
+                block = this.parents.get(block);
+            }
+        }
+        return block;
+    }
+
+    private boolean isAncestor(Node ancestor, Node node) {
+        for (Node n = node; n != null; n = this.parents.get(n)) {
+            if (n == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether evaluating node certainly evaluates one of the occurrences
+    private static boolean isCertain(Node node, ArrayList<Node> occurrences) {
+        for (Node occurrence : occurrences) {
+            if (occurrence == node) {
+                return true;
+            }
+        }
+        if (isLet(node)) {
+            return isCertain(node.children.get(1), occurrences)
+                    || isCertain(node.children.get(0).children.get(1), occurrences);
+        } else if ("lambda".equals(node.getData())) {
+            return false;
+        } else if ("->".equals(node.getData())) {
+            return isCertain(node.children.get(0), occurrences)
+                    || (isCertain(node.children.get(1), occurrences) && isCertain(node.children.get(2), occurrences));
+        }
+        for (Node child : node.children) {
+            if (isCertain(child, occurrences)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether Print or an impure builtin is called in a function, or used other than by calling it
+    private boolean hasEffectInFunction(Node node, Scope scope, boolean isInFunction) {
+        if (isLet(node)) {
+            Node lambda = node.children.get(0);
+            return this.hasEffectInFunction(node.children.get(1), scope, isInFunction)
+                    || this.hasEffectInFunction(lambda.children.get(1), this.bind(lambda, scope), isInFunction);
+        } else if ("lambda".equals(node.getData())) {
+            return this.hasEffectInFunction(node.children.get(1), this.bind(node, scope), true);
+        } else if ("gamma".equals(node.getData()) && this.isImpure(node.children.get(0), scope)) {
+            return isInFunction || this.hasEffectInFunction(node.children.get(1), scope, isInFunction);
+        } else if (this.isImpure(node, scope)) {
+            return true;
+        }
+        for (Node child : node.children) {
+            if (this.hasEffectInFunction(child, scope, isInFunction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether node is a free identifier naming a builtin with effects
+    private boolean isImpure(Node node, Scope scope) {
+        if (!node.getData().startsWith("<ID:")) {
+            return false;
+        }
+        String name = getName(node);
+        for (Scope s = scope; s != null; s = s.parent) {
+            if (s.name.equals(name)) {
+                return false;
+            }
+        }
+        return this.registry.resolve(name) != null && !this.registry.isPure(name);
+    }
+
+    // gamma (lambda x. P) E
+    private static boolean isLet(Node node) {
+        return "gamma".equals(node.getData()) && "lambda".equals(node.children.get(0).getData());
+    }
+
+    private static int indexOf(Node parent, Node child) {
+        for (int i = 0; i < parent.children.size(); i++) {
+            if (parent.children.get(i) == child) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int getSize(Node node) {
+        int size = 1;
+        for (Node child : node.children) {
+            size += getSize(child);
+        }
+        return size;
+    }
+
+    private static String getName(Node identifier) {
+        return identifier.getData().substring(4, identifier.getData().length() - 1);
+    }
+
+    private static ArrayList<String> getParameters(Node lambda) {
+        ArrayList<String> parameters = new ArrayList<String>();
+        Node variables = lambda.children.get(0);
+        if (",".equals(variables.getData())) {
+            for (Node identifier : variables.children) {
+                parameters.add(getName(identifier));
+            }
+        } else if (variables.getData().startsWith("<ID:")) {
+            parameters.add(getName(variables));
+        }
+        return parameters;
+    }
+
+    private static Node getNode(String data) {
+        return NodeConstructor.getNode(data, 0, null, new ArrayList<Node>(), true);
+    }
+
+    private static Node gamma(Node rator, Node rand) {
+        Node gamma = getNode("gamma");
+        gamma.children.add(rator);
+        gamma.children.add(rand);
+        return gamma;
+    }
+
+    private static Node lambda(String parameter, Node body) {
+        Node lambda = getNode("lambda");
+        lambda.children.add(getNode("<ID:" + parameter + ">"));
+        lambda.children.add(body);
+        return lambda;
+    }
+}
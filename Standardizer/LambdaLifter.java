@@ -0,0 +1,280 @@
+package Standardizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+
+  Lambda lifting of local function definitions.
+
+  A definition let f = fn x. B in P (standardized as gamma (lambda f. P) (lambda x. B),
+  or with rec as gamma (lambda f. P) (gamma Y* (lambda f. lambda x. B))) is moved to the
+  top of the program as a supercombinator f$n taking the variables free in it, v1 ... vk,
+  as extra parameters: fn (v1, ..., vk, x). B. Every call f A in P becomes f$n (v1, ..., vk, A),
+  so the function is no longer closed over (and bound in a new environment) each time
+  its definition is reached, and its body looks its variables up in its own environment.
+
+  A definition is lifted only if every use of f is a call, and no lambda between the
+  definition and a call rebinds a free variable. Definitions are lifted innermost first,
+  so a lifted function only refers to functions lifted before it, which are bound
+  outside it.
+
+ **/
+public class LambdaLifter implements Pass {
+    private static final String Y = "<Y*>";
+
+    // Lifted definitions, in order, with whether they are recursive
+    private ArrayList<String> names;
+    private ArrayList<Node> definitions;
+    private ArrayList<Boolean> isRecursive;
+
+    @Override
+    public String getName() {
+        return "lift";
+    }
+
+    @Override
+    public String apply(AST ast) {
+        this.names = new ArrayList<String>();
+        this.definitions = new ArrayList<Node>();
+        this.isRecursive = new ArrayList<Boolean>();
+        this.visit(ast.getRoot(), new ArrayList<String>());
+
+        // Bind the supercombinators around the program, the first lifted outermost
+        Node root = ast.getRoot();
+        for (int i = this.names.size()-1; i >= 0; i--) {
+            Node definition = this.definitions.get(i);
+            if (this.isRecursive.get(i)) {
+                definition = gamma(getNode(Y), lambda(this.names.get(i), definition));
+            }
+            root = gamma(lambda(this.names.get(i), root), definition);
+        }
+        relink(root, null, 0);
+        ast.setRoot(root);
+        return this.names.size() + " functions lifted";
+    }
+
+    // Lifts the definitions below node, innermost first; bound holds the names of the enclosing lambdas
+    private void visit(Node node, ArrayList<String> bound) {
+        if ("lambda".equals(node.getData())) {
+            ArrayList<String> parameters = getParameters(node);
+            bound.addAll(parameters);
+            this.visit(node.children.get(1), bound);
+            for (int i = 0; i < parameters.size(); i++) {
+                bound.remove(bound.size()-1);
+            }
+            return;
+        }
+        for (Node child : node.children) {
+            this.visit(child, bound);
+        }
+        if ("gamma".equals(node.getData())) {
+            this.lift(node, bound);
+        }
+    }
+
+    // Lifts the definition made by a gamma node, if it is one that can be lifted
+    private void lift(Node node, ArrayList<String> bound) {
+        Node binding = node.children.get(0);
+        Node definition = node.children.get(1);
+        if (!"lambda".equals(binding.getData()) || ",".equals(binding.children.get(0).getData())) {
+            return;
+        }
+        String f = getName(binding.children.get(0));
+
+        boolean isRec = isRec(definition);
+        Node function = isRec ? definition.children.get(1).children.get(1) : definition;
+        if (!"lambda".equals(function.getData())) {
+            return;
+        }
+        if (isRec && !f.equals(getName(definition.children.get(1).children.get(0)))) {
+            return;
+        }
+
+        // Variables of the enclosing lambdas used in the function become parameters
+        ArrayList<String> parameters = getParameters(function);
+        ArrayList<String> free = new ArrayList<String>();
+        this.getFree(function.children.get(1), new HashSet<String>(parameters), free);
+        free.removeIf(name -> !bound.contains(name) || (isRec && name.equals(f)));
+
+        Node body = binding.children.get(1);
+        boolean isTuple = parameters.size() > 1;
+        if (!this.isLiftable(body, f, free, isTuple ? parameters.size() : 0, false)
+                || (isRec && !this.isLiftable(function, f, free, isTuple ? parameters.size() : 0, false))) {
+            return;
+        }
+
+        String name = f + "$" + (this.names.size() + 1);
+        ArrayList<String> lifted = new ArrayList<String>(free);
+        lifted.addAll(parameters);
+        Node code = function.children.get(1);
+        if (isRec) {
+            code = this.rewrite(code, f, name, free, isTuple);
+        }
+        this.names.add(name);
+        this.definitions.add(lambda(lifted, code));
+        this.isRecursive.add(isRec);
+
+        // The binding is dropped, its body takes the place of the gamma
+        Node program = this.rewrite(body, f, name, free, isTuple);
+        node.setData(program.getData());
+        node.children = program.children;
+    }
+
+    /**
+
+        Checks that every use of f below node is a call, where the free variables are
+        still bound as at the definition and, for functions of several parameters
+        taking free variables, the rand is a tuple of the right size.
+
+        @param arity Number of parameters of a function of several parameters, 0 otherwise
+
+     **/
+    private boolean isLiftable(Node node, String f, ArrayList<String> free, int arity, boolean isShadowed) {
+        if ("lambda".equals(node.getData())) {
+            ArrayList<String> parameters = getParameters(node);
+            if (parameters.contains(f)) {
+                return true;
+            }
+            for (String name : free) {
+                isShadowed |= parameters.contains(name);
+            }
+            return this.isLiftable(node.children.get(1), f, free, arity, isShadowed);
+        } else if (isIdentifier(node, f)) {
+            return false;
+        } else if ("gamma".equals(node.getData()) && isIdentifier(node.children.get(0), f)) {
+            Node rand = node.children.get(1);
+            if (isShadowed || (arity > 0 && !free.isEmpty() && !("tau".equals(rand.getData()) && rand.children.size() == arity))) {
+                return false;
+            }
+            return this.isLiftable(rand, f, free, arity, isShadowed);
+        }
+        for (Node child : node.children) {
+            if (!this.isLiftable(child, f, free, arity, isShadowed)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Replaces the calls f A below node by calls name (v1, ..., vk, A)
+    private Node rewrite(Node node, String f, String name, ArrayList<String> free, boolean isTuple) {
+        if ("lambda".equals(node.getData()) && getParameters(node).contains(f)) {
+            return node;
+        }
+        for (int i = 0; i < node.children.size(); i++) {
+            node.children.set(i, this.rewrite(node.children.get(i), f, name, free, isTuple));
+        }
+        if ("gamma".equals(node.getData()) && isIdentifier(node.children.get(0), f)) {
+            node.children.set(0, getNode("<ID:" + name + ">"));
+            if (!free.isEmpty()) {
+                Node rand = node.children.get(1);
+                Node tau = getNode("tau");
+                for (String variable : free) {
+                    tau.children.add(getNode("<ID:" + variable + ">"));
+                }
+                if (isTuple) {
+                    tau.children.addAll(rand.children);
+                } else {
+                    tau.children.add(rand);
+                }
+                node.children.set(1, tau);
+            }
+        }
+        return node;
+    }
+
+    // Collects the identifiers used below node and not bound inside it, in order of first use
+    private void getFree(Node node, HashSet<String> bound, ArrayList<String> free) {
+        if ("lambda".equals(node.getData())) {
+            HashSet<String> inner = new HashSet<String>(bound);
+            inner.addAll(getParameters(node));
+            this.getFree(node.children.get(1), inner, free);
+        } else if (node.getData().startsWith("<ID:")) {
+            String name = getName(node);
+            if (!bound.contains(name) && !free.contains(name)) {
+                free.add(name);
+            }
+        } else {
+            for (Node child : node.children) {
+                this.getFree(child, bound, free);
+            }
+        }
+    }
+
+    private static boolean isRec(Node node) {
+        return "gamma".equals(node.getData())
+                && Y.equals(node.children.get(0).getData())
+                && "lambda".equals(node.children.get(1).getData())
+                && !",".equals(node.children.get(1).children.get(0).getData());
+    }
+
+    private static boolean isIdentifier(Node node, String name) {
+        return node.getData().equals("<ID:" + name + ">");
+    }
+
+    private static String getName(Node identifier) {
+        return identifier.getData().substring(4, identifier.getData().length() - 1);
+    }
+
+    private static ArrayList<String> getParameters(Node lambda) {
+        ArrayList<String> parameters = new ArrayList<String>();
+        Node variables = lambda.children.get(0);
+        if (",".equals(variables.getData())) {
+            for (Node identifier : variables.children) {
+                parameters.add(getName(identifier));
+            }
+        } else if (variables.getData().startsWith("<ID:")) {
+            parameters.add(getName(variables));
+        }
+        return parameters;
+    }
+
+    private static Node getNode(String data) {
+        return NodeConstructor.getNode(data, 0, null, new ArrayList<Node>(), true);
+    }
+
+    private static Node gamma(Node rator, Node rand) {
+        Node gamma = getNode("gamma");
+        gamma.children.add(rator);
+        gamma.children.add(rand);
+        return gamma;
+    }
+
+    private static Node lambda(String parameter, Node body) {
+        Node lambda = getNode("lambda");
+        lambda.children.add(getNode("<ID:" + parameter + ">"));
+        lambda.children.add(body);
+        return lambda;
+    }
+
+    private static Node lambda(ArrayList<String> parameters, Node body) {
+        if (parameters.size() == 1) {
+            return lambda(parameters.get(0), body);
+        }
+        Node comma = getNode(",");
+        for (String parameter : parameters) {
+            comma.children.add(getNode("<ID:" + parameter + ">"));
+        }
+        Node lambda = getNode("lambda");
+        lambda.children.add(comma);
+        lambda.children.add(body);
+        return lambda;
+    }
+
+    // Restores the parent and depth of every node after the tree was rearranged
+    public static void relink(Node root, Node parent, int depth) {
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        root.setParent(parent);
+        root.setDepth(depth);
+        nodes.add(root);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.remove(nodes.size()-1);
+            for (Node child : node.children) {
+                child.setParent(node);
+                child.setDepth(node.getDepth() + 1);
+                nodes.add(child);
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ public class Node {
     private Node parent;
     public ArrayList<Node> children;
     public boolean isStandardized = false;
+    public boolean isTyped = false;    // Operator whose operands TypeInference proved to be of the types it expects
 
     public Node() {
 
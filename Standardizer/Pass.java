@@ -0,0 +1,41 @@
+package Standardizer;
+
+import Exceptions.InterpreterException;
+
+/**
+
+  A transformation of the standardized tree, run by the Interpreter after standardizing
+  and before the tree is printed or evaluated.
+
+ **/
+public interface Pass {
+
+    /**
+
+        @return The name the pass is selected by (e.g. on the command line)
+
+     **/
+    String getName();
+
+    /**
+
+        @return What sets the pass apart from other passes of the same name, so results of
+                programs it transformed can be cached: by default its name, extended by
+                passes with parameters that change their output
+
+     **/
+    default String getFingerprint() {
+        return this.getName();
+    }
+
+    /**
+
+        Transforms the standardized tree in place.
+
+        @param ast The standardized tree
+        @return A one line summary of what the pass did
+        @throws InterpreterException if the program is rejected
+
+     **/
+    String apply(AST ast) throws InterpreterException;
+}
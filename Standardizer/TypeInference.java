@@ -0,0 +1,462 @@
+package Standardizer;
+
+import Exceptions.InterpreterException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+
+  Flow analysis of the types of values in the standardized tree.
+
+  Every lambda whose applications are all visible is known: lambdas applied where they
+  are written (let) and functions bound by let or rec whose every use is a call applying
+  at least as many of their curried lambdas. The parameters of a known lambda have the
+  join of the types of the rands at its calls, and a call has the type of the body.
+  Parameters of other lambdas, tuple components and the results of unknown functions
+  have any type. The analysis is repeated until no type changes.
+
+  Operators whose rands are then proven to be integers (arithmetic and comparisons) or
+  truth values (logical operators) are marked isTyped, and the engines apply them without
+  checking or parsing their rands. Operators applied to rands proven to be of another
+  type are reported as type errors before the program runs.
+
+ **/
+public class TypeInference implements Pass {
+    // Types: NONE for values never computed, ANY for values of more than one type or unknown
+    private static final int NONE = 0;
+    private static final int INT = 1;
+    private static final int BOOL = 2;
+    private static final int STR = 3;
+    private static final int TUPLE = 4;
+    private static final int FUNCTION = 5;
+    private static final int DUMMY = 6;
+    private static final int ANY = 7;
+
+    private static final String[] NAMES = {"nothing", "an integer", "a truth value", "a string", "a tuple", "a function", "dummy", "any value"};
+
+    // Maximum number of type errors listed
+    private static final int MAX_ERRORS = 20;
+
+    private IdentityHashMap<Node, Node> functions;    // Lambda binding a name (let or rec) to the known function bound to it
+    private IdentityHashMap<Node, Integer> depths;     // Known function to the number of its curried lambdas every call applies
+    private IdentityHashMap<Node, int[]> parameters;   // Known lambda to the types of its parameters
+    private IdentityHashMap<Node, Integer> results;    // Known lambda to the type of its body
+
+    private boolean isChanged;
+    private boolean isFinal;    // The types are final: mark operators and report errors
+    private int sites;
+    private int typed;
+    private ArrayList<String> errors;
+
+    /**
+
+        Names bound by one lambda, linked to the enclosing scope.
+
+     **/
+    private static class Scope {
+        final Node lambda;
+        final ArrayList<String> names;
+        final Scope parent;
+
+        Scope(Node lambda, ArrayList<String> names, Scope parent) {
+            this.lambda = lambda;
+            this.names = names;
+            this.parent = parent;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "types";
+    }
+
+    @Override
+    public String apply(AST ast) throws InterpreterException {
+        this.functions = new IdentityHashMap<Node, Node>();
+        this.depths = new IdentityHashMap<Node, Integer>();
+        this.parameters = new IdentityHashMap<Node, int[]>();
+        this.results = new IdentityHashMap<Node, Integer>();
+        this.findFunctions(ast.getRoot());
+
+        this.isFinal = false;
+        do {
+            this.isChanged = false;
+            this.infer(ast.getRoot(), null);
+        } while (this.isChanged);
+
+        this.isFinal = true;
+        this.sites = 0;
+        this.typed = 0;
+        this.errors = new ArrayList<String>();
+        this.infer(ast.getRoot(), null);
+
+        if (!this.errors.isEmpty()) {
+            StringBuilder message = new StringBuilder("Type errors:");
+            for (int i = 0; i < this.errors.size() && i < MAX_ERRORS; i++) {
+                message.append("\n  ").append(this.errors.get(i));
+            }
+            if (this.errors.size() > MAX_ERRORS) {
+                message.append("\n  ... and ").append(this.errors.size() - MAX_ERRORS).append(" more");
+            }
+            throw new InterpreterException(message.toString());
+        }
+        return this.typed + " of " + this.sites + " operator sites typed";
+    }
+
+    // Finds the known lambdas
+    private void findFunctions(Node node) {
+        if ("gamma".equals(node.getData()) && "lambda".equals(node.children.get(0).getData())) {
+            Node binding = node.children.get(0);
+            this.addFunction(binding, 1);
+
+            // let f = function, or let rec f = function
+            Node definition = node.children.get(1);
+            Node function = isRec(definition) ? definition.children.get(1).children.get(1) : definition;
+            if (!",".equals(binding.children.get(0).getData()) && "lambda".equals(function.getData())) {
+                String f = getName(binding.children.get(0));
+                int depth = Math.min(getLength(function), this.getSaturation(binding.children.get(1), f, 0));
+                if (function != definition) {
+                    Node recursive = definition.children.get(1);
+                    depth = f.equals(getName(recursive.children.get(0))) ? Math.min(depth, this.getSaturation(function, f, 0)) : 0;
+                    if (depth > 0) {
+                        this.functions.put(recursive, function);
+                    }
+                }
+                if (depth > 0) {
+                    this.functions.put(binding, function);
+                    this.addFunction(function, depth);
+                }
+            }
+        }
+        for (Node child : node.children) {
+            this.findFunctions(child);
+        }
+    }
+
+    private void addFunction(Node function, int depth) {
+        this.depths.put(function, depth);
+        Node lambda = function;
+        for (int i = 0; i < depth; i++) {
+            int[] types = new int[getParameters(lambda).size()];
+            this.parameters.put(lambda, types);
+            this.results.put(lambda, NONE);
+            lambda = lambda.children.get(1);
+        }
+    }
+
+    // Least number of rands applied to f by its uses below node, 0 if it is used other than in a call
+    private int getSaturation(Node node, String f, int spine) {
+        if ("lambda".equals(node.getData())) {
+            return getParameters(node).contains(f) ? Integer.MAX_VALUE : this.getSaturation(node.children.get(1), f, 0);
+        } else if (node.getData().equals("<ID:" + f + ">")) {
+            return spine;
+        } else if ("gamma".equals(node.getData())) {
+            return Math.min(this.getSaturation(node.children.get(0), f, spine + 1), this.getSaturation(node.children.get(1), f, 0));
+        }
+        int saturation = Integer.MAX_VALUE;
+        for (Node child : node.children) {
+            saturation = Math.min(saturation, this.getSaturation(child, f, 0));
+        }
+        return saturation;
+    }
+
+    private int infer(Node node, Scope scope) {
+        switch (node.getData()) {
+            case "lambda":
+                return this.inferLambda(node, scope);
+            case "gamma":
+                return this.inferApplication(node, scope);
+            case "tau":
+                for (Node child : node.children) {
+                    this.infer(child, scope);
+                }
+                return TUPLE;
+            case "->":
+                this.infer(node.children.get(0), scope);
+                return join(this.infer(node.children.get(1), scope), this.infer(node.children.get(2), scope));
+            case "not":
+                return this.inferOperator(node, BOOL, BOOL, this.infer(node.children.get(0), scope));
+            case "neg":
+                return this.inferOperator(node, INT, INT, this.infer(node.children.get(0), scope));
+            case "+":
+            case "-":
+            case "*":
+            case "/":
+                return this.inferOperator(node, INT, INT, this.infer(node.children.get(1), scope), this.infer(node.children.get(0), scope));
+            case "**":
+                // Checked only, there is no unchecked exponentiation
+                this.check(node, INT, this.infer(node.children.get(1), scope));
+                this.check(node, INT, this.infer(node.children.get(0), scope));
+                return INT;
+            case "ls":
+            case "le":
+            case "gr":
+            case "ge":
+                return this.inferOperator(node, INT, BOOL, this.infer(node.children.get(1), scope), this.infer(node.children.get(0), scope));
+            case "&":
+            case "or":
+                return this.inferOperator(node, BOOL, BOOL, this.infer(node.children.get(1), scope), this.infer(node.children.get(0), scope));
+            case "eq":
+            case "ne":
+                this.infer(node.children.get(1), scope);
+                this.infer(node.children.get(0), scope);
+                return BOOL;
+            case "aug":
+                this.infer(node.children.get(1), scope);
+                this.check(node, TUPLE, this.infer(node.children.get(0), scope));
+                return TUPLE;
+            case "<Y*>":
+                return FUNCTION;
+            case "<nil>":
+                return TUPLE;
+            case "<true>":
+            case "<false>":
+                return BOOL;
+            case "<dummy>":
+                return DUMMY;
+            default:
+                if (node.getData().startsWith("<INT:")) {
+                    return INT;
+                } else if (node.getData().startsWith("<STR:")) {
+                    return STR;
+                } else if (node.getData().startsWith("<ID:")) {
+                    return this.inferIdentifier(getName(node), scope);
+                }
+                return ANY;
+        }
+    }
+
+    // The value of a lambda is a function; the body is analyzed with the parameter types
+    private int inferLambda(Node lambda, Scope scope) {
+        ArrayList<String> names = getParameters(lambda);
+        int type = this.infer(lambda.children.get(1), new Scope(lambda, names, scope));
+        if (this.results.containsKey(lambda)) {
+            this.results.put(lambda, this.update(this.results.get(lambda), type));
+        }
+        return FUNCTION;
+    }
+
+    private int inferApplication(Node gamma, Scope scope) {
+        // The rator applied to all the rands of the spine
+        ArrayList<Node> rands = new ArrayList<Node>();
+        Node rator = gamma;
+        while ("gamma".equals(rator.getData())) {
+            rands.add(0, rator.children.get(1));
+            rator = rator.children.get(0);
+        }
+
+        Node function = null;
+        if ("lambda".equals(rator.getData()) && this.parameters.containsKey(rator)) {
+            function = rator;
+        } else if (rator.getData().startsWith("<ID:")) {
+            Scope binding = this.lookup(getName(rator), scope);
+            if (binding == null) {
+                for (Node rand : rands) {
+                    this.infer(rand, scope);
+                }
+                return getBuiltinType(getName(rator), rands.size());
+            }
+            function = this.functions.get(binding.lambda);
+        } else if ("<Y*>".equals(rator.getData())) {
+            for (Node rand : rands) {
+                this.infer(rand, scope);
+            }
+            return rands.size() == 1 ? FUNCTION : ANY;
+        }
+
+        if (function == null) {
+            this.infer(rator, scope);
+            for (Node rand : rands) {
+                this.infer(rand, scope);
+            }
+            return ANY;
+        }
+
+        // A known function: the rands flow into its parameters
+        int depth = this.depths.get(function);
+        Node lambda = function;
+        for (int i = 0; i < rands.size(); i++) {
+            if (i < depth) {
+                this.bind(lambda, rands.get(i), scope);
+                if (i < depth - 1) {
+                    lambda = lambda.children.get(1);
+                }
+            } else {
+                this.infer(rands.get(i), scope);
+            }
+        }
+        if (rator == function) {
+            // Applied where it is written, the body is analyzed here
+            this.inferLambda(function, scope);
+        }
+        if (rands.size() < depth) {
+            return FUNCTION;
+        }
+        return rands.size() == depth ? this.results.get(lambda) : ANY;
+    }
+
+    // Joins the types of a rand into the parameters of a known lambda
+    private void bind(Node lambda, Node rand, Scope scope) {
+        int[] types = this.parameters.get(lambda);
+        if (types.length == 1) {
+            types[0] = this.update(types[0], this.infer(rand, scope));
+        } else if ("tau".equals(rand.getData()) && rand.children.size() == types.length) {
+            for (int i = types.length - 1; i >= 0; i--) {
+                types[i] = this.update(types[i], this.infer(rand.children.get(i), scope));
+            }
+        } else {
+            this.infer(rand, scope);
+            for (int i = 0; i < types.length; i++) {
+                types[i] = this.update(types[i], ANY);
+            }
+        }
+    }
+
+    private int inferIdentifier(String name, Scope scope) {
+        Scope binding = this.lookup(name, scope);
+        if (binding == null) {
+            return getBuiltinType(name, 0);
+        } else if (this.functions.containsKey(binding.lambda)) {
+            return FUNCTION;
+        } else if (this.parameters.containsKey(binding.lambda)) {
+            return this.parameters.get(binding.lambda)[binding.names.lastIndexOf(name)];
+        }
+        return ANY;
+    }
+
+    // Checks the rands of an operator, marking it if they are all of the expected type
+    private int inferOperator(Node node, int expected, int result, int... rands) {
+        boolean isTyped = true;
+        for (int rand : rands) {
+            this.check(node, expected, rand);
+            isTyped &= rand == expected;
+        }
+        if (this.isFinal) {
+            this.sites++;
+            node.isTyped = isTyped;
+            if (isTyped) {
+                this.typed++;
+            }
+        }
+        return result;
+    }
+
+    private void check(Node node, int expected, int type) {
+        if (this.isFinal && type != expected && type != NONE && type != ANY) {
+            this.errors.add("'" + node.getData() + "' expects " + NAMES[expected] + " but is applied to " + NAMES[type]
+                    + " in " + describe(node));
+        }
+    }
+
+    private Scope lookup(String name, Scope scope) {
+        for (Scope s = scope; s != null; s = s.parent) {
+            if (s.names.contains(name)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    private static int join(int type1, int type2) {
+        return type1 == NONE ? type2 : type2 == NONE || type1 == type2 ? type1 : ANY;
+    }
+
+    // Joins a type into a recorded one, noting whether it changed
+    private int update(int recorded, int type) {
+        int joined = join(recorded, type);
+        this.isChanged |= joined != recorded;
+        return joined;
+    }
+
+    // Types of the core builtins applied to the given number of rands, when not shadowed
+    private static int getBuiltinType(String name, int rands) {
+        switch (name) {
+            case "Print":
+            case "Order":
+            case "Stem":
+            case "Stern":
+            case "Itos":
+            case "ItoS":
+            case "Null":
+            case "Isinteger":
+            case "Isstring":
+            case "Istuple":
+            case "Isdummy":
+            case "Istruthvalue":
+            case "Isfunction":
+                if (rands == 0) {
+                    return FUNCTION;
+                } else if (rands > 1) {
+                    return ANY;
+                } else if ("Print".equals(name)) {
+                    return DUMMY;
+                } else if ("Order".equals(name)) {
+                    return INT;
+                } else if (name.startsWith("Is") || "Null".equals(name)) {
+                    return BOOL;
+                }
+                return STR;
+            case "Conc":
+                return rands < 2 ? FUNCTION : rands == 2 ? STR : ANY;
+            default:
+                return ANY;
+        }
+    }
+
+    // Short rendering of an operator application for error messages
+    private static String describe(Node node) {
+        if (node.children.size() == 1) {
+            return node.getData() + " " + describeRand(node.children.get(0));
+        }
+        return describeRand(node.children.get(0)) + " " + node.getData() + " " + describeRand(node.children.get(1));
+    }
+
+    private static String describeRand(Node node) {
+        String data = node.getData();
+        if (data.startsWith("<ID:") || data.startsWith("<INT:")) {
+            return getName(data.replace("<INT:", "<ID:"));
+        } else if (data.startsWith("<STR:")) {
+            return data.substring(5, data.length() - 1);
+        } else if (data.startsWith("<")) {
+            return data.substring(1, data.length() - 1);
+        }
+        return "(...)";
+    }
+
+    private static boolean isRec(Node node) {
+        return "gamma".equals(node.getData())
+                && "<Y*>".equals(node.children.get(0).getData())
+                && "lambda".equals(node.children.get(1).getData())
+                && !",".equals(node.children.get(1).children.get(0).getData());
+    }
+
+    // Number of curried lambdas of a function
+    private static int getLength(Node function) {
+        int length = 0;
+        for (Node lambda = function; "lambda".equals(lambda.getData()); lambda = lambda.children.get(1)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static String getName(Node identifier) {
+        return getName(identifier.getData());
+    }
+
+    private static String getName(String identifier) {
+        return identifier.substring(4, identifier.length() - 1);
+    }
+
+    private static ArrayList<String> getParameters(Node lambda) {
+        ArrayList<String> parameters = new ArrayList<String>();
+        Node variables = lambda.children.get(0);
+        if (",".equals(variables.getData())) {
+            for (Node identifier : variables.children) {
+                parameters.add(getName(identifier));
+            }
+        } else if (variables.getData().startsWith("<ID:")) {
+            parameters.add(getName(variables));
+        }
+        return parameters;
+    }
+}
@@ -1,7 +1,30 @@
 package Symbols;
 
 public class Bool extends Rand {
+    private boolean value;
+
     public Bool(String data) {
         super(data);
+        this.value = Boolean.parseBoolean(data);
+    }
+
+    public Bool(boolean value) {
+        super(Boolean.toString(value));
+        this.value = value;
+    }
+
+    /**
+
+        @return The truth value, parsed from the data when the Bool was created
+
+     **/
+    public boolean getValue() {
+        return this.value;
+    }
+
+    @Override
+    public void setData(String data) {
+        super.setData(data);
+        this.value = Boolean.parseBoolean(data);
     }
 }
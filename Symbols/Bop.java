@@ -1,7 +1,170 @@
 package Symbols;
 
+/**
+
+  A binary operator. Each occurrence in the control carries an inline cache of the
+  classes of the rands seen at it. While both rands keep being integers the CSE machine
+  applies the integer operation directly instead of dispatching on the operator name
+  and parsing the rands; a site that sees other rands falls back to the generic
+  operation for good. Operators whose rands type inference proved to be of the right
+  types skip the cache and apply the operation without checks.
+
+ **/
 public class Bop extends Rator{
+    // Integer operations, -1 for the others
+    public static final int ADD = 0;
+    public static final int SUB = 1;
+    public static final int MUL = 2;
+    public static final int DIV = 3;
+    public static final int LS = 4;
+    public static final int LE = 5;
+    public static final int GR = 6;
+    public static final int GE = 7;
+
+    private final int operation;
+
+    // Inline cache: the classes of the rands, null until the first application
+    private Class<?> class1 = null;
+    private Class<?> class2 = null;
+    private boolean isMegamorphic = false;
+
+    // Statistics for the cache report
+    private long hits = 0;
+    private long misses = 0;
+    private long generic = 0;
+
     public Bop(String data) {
         super(data);
+        this.operation = getOperation(data);
+    }
+
+    private static int getOperation(String rator) {
+        switch (rator) {
+            case "+":
+                return ADD;
+            case "-":
+                return SUB;
+            case "*":
+                return MUL;
+            case "/":
+                return DIV;
+            case "ls":
+                return LS;
+            case "le":
+                return LE;
+            case "gr":
+                return GR;
+            case "ge":
+                return GE;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+
+        @return The integer operation of this operator, or -1 if it has none
+
+     **/
+    public int getOperation() {
+        return this.operation;
+    }
+
+    /**
+
+        Checks the rands against the cache, recording them on the first application.
+
+        @param rand1 The left rand
+        @param rand2 The right rand
+        @return Whether both are integers, as they always were here, and the operator has an integer operation
+
+     **/
+    public boolean isIntHit(Symbol rand1, Symbol rand2) {
+        if (this.class1 == rand1.getClass() && this.class2 == rand2.getClass()) {
+            this.hits++;
+            return this.class1 == Int.class && this.class2 == Int.class && this.operation >= 0;
+        }
+        if (this.isMegamorphic) {
+            this.generic++;
+        } else if (this.class1 == null) {
+            this.misses++;
+            this.class1 = rand1.getClass();
+            this.class2 = rand2.getClass();
+        } else {
+            this.misses++;
+            this.isMegamorphic = true;
+            this.class1 = null;
+            this.class2 = null;
+        }
+        return false;
+    }
+
+    /**
+
+        Applies the integer operation of this operator.
+
+     **/
+    public Symbol applyInt(int val1, int val2) {
+        switch (this.operation) {
+            case ADD:
+                return new Int(val1 + val2);
+            case SUB:
+                return new Int(val1 - val2);
+            case MUL:
+                return new Int(val1 * val2);
+            case DIV:
+                return new Int(val1 / val2);
+            case LS:
+                return new Bool(Boolean.toString(val1 < val2));
+            case LE:
+                return new Bool(Boolean.toString(val1 <= val2));
+            case GR:
+                return new Bool(Boolean.toString(val1 > val2));
+            default:
+                return new Bool(Boolean.toString(val1 >= val2));
+        }
+    }
+
+    /**
+
+        Applies this operator to rands known to be of the types it expects, without checks.
+
+        @param rand1 The left rand, an Int for the integer operations and a Bool for & and or
+        @param rand2 The right rand, likewise
+        @return The result
+
+     **/
+    public Symbol applyTyped(Symbol rand1, Symbol rand2) {
+        if (this.operation >= 0) {
+            return this.applyInt(((Int) rand1).getValue(), ((Int) rand2).getValue());
+        } else if ("&".equals(this.getData())) {
+            return new Bool(((Bool) rand1).getValue() && ((Bool) rand2).getValue());
+        }
+        return new Bool(((Bool) rand1).getValue() || ((Bool) rand2).getValue());
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public long getGeneric() {
+        return this.generic;
+    }
+
+    /**
+
+        @return The names of the rand classes cached at this site
+
+     **/
+    public String getCachedClasses() {
+        return this.class1 == null ? "" : this.class1.getSimpleName() + "," + this.class2.getSimpleName();
+    }
+
+    public boolean isMegamorphic() {
+        return this.isMegamorphic;
     }
 }
@@ -0,0 +1,96 @@
+package Symbols;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+
+  A builtin function value (Print, Order, Conc, ...).
+  Identifiers naming a builtin are resolved to one of these by the MachineConstructor,
+  so the CSE machine dispatches on the integer code instead of comparing names.
+  Builtins taking more than one argument are curried; bind() collects the arguments.
+
+ **/
+public class Builtin extends Symbol {
+    public static final int PRINT = 0;
+    public static final int STEM = 1;
+    public static final int STERN = 2;
+    public static final int CONC = 3;
+    public static final int ORDER = 4;
+    public static final int NULL = 5;
+    public static final int ITOS = 6;
+    public static final int ISINTEGER = 7;
+    public static final int ISSTRING = 8;
+    public static final int ISTUPLE = 9;
+    public static final int ISDUMMY = 10;
+    public static final int ISTRUTHVALUE = 11;
+    public static final int ISFUNCTION = 12;
+
+    // Number of core builtins, codes from here on are free for registered ones
+    public static final int CORE_COUNT = 13;
+
+    private static final HashMap<String, Builtin> CORE = new HashMap<String, Builtin>();
+
+    static {
+        CORE.put("Print", new Builtin("Print", PRINT, 1));
+        CORE.put("Stem", new Builtin("Stem", STEM, 1));
+        CORE.put("Stern", new Builtin("Stern", STERN, 1));
+        CORE.put("Conc", new Builtin("Conc", CONC, 2));
+        CORE.put("Order", new Builtin("Order", ORDER, 1));
+        CORE.put("Null", new Builtin("Null", NULL, 1));
+        CORE.put("Itos", new Builtin("Itos", ITOS, 1));
+        CORE.put("ItoS", new Builtin("ItoS", ITOS, 1));
+        CORE.put("Isinteger", new Builtin("Isinteger", ISINTEGER, 1));
+        CORE.put("Isstring", new Builtin("Isstring", ISSTRING, 1));
+        CORE.put("Istuple", new Builtin("Istuple", ISTUPLE, 1));
+        CORE.put("Isdummy", new Builtin("Isdummy", ISDUMMY, 1));
+        CORE.put("Istruthvalue", new Builtin("Istruthvalue", ISTRUTHVALUE, 1));
+        CORE.put("Isfunction", new Builtin("Isfunction", ISFUNCTION, 1));
+    }
+
+    private final int code;
+    private final int arity;
+    public ArrayList<Symbol> args;    // Arguments collected so far by partial application
+
+    public Builtin(String name, int code, int arity) {
+        super(name);
+        this.code = code;
+        this.arity = arity;
+        this.args = new ArrayList<Symbol>();
+    }
+
+    /**
+
+        Looks up a core builtin by name.
+
+        @param name The identifier name
+        @return The builtin, or null if the name is not a core builtin
+
+     **/
+    public static Builtin forName(String name) {
+        return CORE.get(name);
+    }
+
+    public int getCode() {
+        return this.code;
+    }
+
+    public int getArity() {
+        return this.arity;
+    }
+
+    /**
+
+        Partially applies this builtin to one more argument.
+
+        @param arg The next argument
+        @return A new builtin value carrying the collected arguments
+
+     **/
+    public Builtin bind(Symbol arg) {
+        Builtin builtin = new Builtin(this.getData(), this.code, this.arity);
+        builtin.args.addAll(this.args);
+        builtin.args.add(arg);
+        return builtin;
+    }
+}
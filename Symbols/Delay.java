@@ -0,0 +1,24 @@
+package Symbols;
+
+/**
+
+  Control symbol of the lazy mode: instead of evaluating its delta, pushes a
+  Thunk capturing the delta and the current environment.
+
+ **/
+public class Delay extends Symbol {
+    private Delta delta;
+
+    public Delay(Delta delta) {
+        super("delay");
+        this.setDelta(delta);
+    }
+
+    private void setDelta(Delta delta) {
+        this.delta = delta;
+    }
+
+    public Delta getDelta() {
+        return this.delta;
+    }
+}
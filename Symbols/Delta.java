@@ -2,10 +2,18 @@ package Symbols;
 
 
 import java.util.ArrayList;
+import java.util.function.Supplier;
 
+/**
+
+  A control structure of the CSE machine. Its symbols are either given when it is
+  built, or built from the tree by a source the first time they are needed.
+
+ **/
 public class Delta extends Symbol {
     private int index;
-    public ArrayList<Symbol> symbols;
+    private volatile ArrayList<Symbol> symbols;
+    private Supplier<ArrayList<Symbol>> source;    // Builds the symbols, until they are built
     
     public Delta(int i) {
         super("delta");
@@ -18,5 +26,47 @@ public class Delta extends Symbol {
     
     public int getIndex() {
         return this.index;
-    }    
+    }
+
+    public void setSymbols(ArrayList<Symbol> symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+
+        @param source Builds the symbols on the first call of getSymbols()
+
+     **/
+    public void setSource(Supplier<ArrayList<Symbol>> source) {
+        this.source = source;
+    }
+
+    /**
+
+        @return The symbols, built first if they were not yet
+
+     **/
+    public ArrayList<Symbol> getSymbols() {
+        ArrayList<Symbol> symbols = this.symbols;
+        if (symbols == null) {
+            // Machines in other threads may enter the delta at the same time
+            synchronized (this) {
+                if (this.symbols == null) {
+                    this.symbols = this.source.get();
+                    this.source = null;
+                }
+                symbols = this.symbols;
+            }
+        }
+        return symbols;
+    }
+
+    /**
+
+        @return Whether the symbols were built
+
+     **/
+    public boolean isBuilt() {
+        return this.symbols != null;
+    }
 }
@@ -2,7 +2,7 @@ package Symbols;
 
 public class Eta extends Symbol {
     private int index;
-    private int environment;
+    private E environment;
     private Id identifier;
     private Lambda lambda;
     
@@ -18,11 +18,11 @@ public class Eta extends Symbol {
         return this.index;
     }
     
-    public void setEnvironment(int e) {
+    public void setEnvironment(E e) {
         this.environment = e;
     }
     
-    public int getEnvironment() {    
+    public E getEnvironment() {    
         return this.environment;
     }
     
@@ -0,0 +1,21 @@
+package Symbols;
+
+import java.util.ArrayList;
+
+/**
+
+  Control symbol of the parallel mode, replacing a tau whose components are independent.
+  Each component is a delta evaluated by its own sub-machine; the heavy ones are forked
+  to run in parallel, the rest run on the current thread.
+
+ **/
+public class Fork extends Symbol {
+    public ArrayList<Delta> components;
+    public ArrayList<Boolean> isHeavy;
+
+    public Fork() {
+        super("fork");
+        this.components = new ArrayList<Delta>();
+        this.isHeavy = new ArrayList<Boolean>();
+    }
+}
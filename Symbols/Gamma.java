@@ -1,7 +1,103 @@
 package Symbols;
 
+/**
+
+  An application. Each occurrence in the control carries an inline cache of the kinds
+  of rator applied at it, so the CSE machine finds how to apply a rator it has seen
+  there before with one class comparison. A site that sees more than CACHE_SIZE
+  classes of rators is megamorphic and is no longer cached.
+
+ **/
 public class Gamma extends Symbol {
+    // Kinds of rators, as dispatched by rule 3
+    public static final int FUNCTION = 0;
+    public static final int LAMBDA = 1;
+    public static final int TUP = 2;
+    public static final int YSTAR = 3;
+    public static final int ETA = 4;
+    public static final int BUILTIN = 5;
+    public static final int OTHER = 6;
+
+    private static final int CACHE_SIZE = 2;
+
+    private final Class<?>[] classes = new Class<?>[CACHE_SIZE];
+    private final int[] kinds = new int[CACHE_SIZE];
+    private int size = 0;
+    private boolean isMegamorphic = false;
+
+    // Statistics for the cache report
+    private long hits = 0;
+    private long misses = 0;
+    private long generic = 0;
+
     public Gamma() {
         super("gamma");
     }
+
+    /**
+
+        Looks a rator up in the cache.
+
+        @param rator The rator on top of the stack
+        @return Its kind, or -1 if it has to be classified (and then recorded)
+
+     **/
+    public int getKind(Symbol rator) {
+        Class<?> type = rator.getClass();
+        for (int i = 0; i < this.size; i++) {
+            if (this.classes[i] == type) {
+                this.hits++;
+                return this.kinds[i];
+            }
+        }
+        if (this.isMegamorphic) {
+            this.generic++;
+        } else {
+            this.misses++;
+        }
+        return -1;
+    }
+
+    /**
+
+        Records the kind of a rator missed by getKind().
+
+     **/
+    public void record(Symbol rator, int kind) {
+        if (this.size < CACHE_SIZE) {
+            this.classes[this.size] = rator.getClass();
+            this.kinds[this.size++] = kind;
+        } else {
+            this.isMegamorphic = true;
+        }
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public long getGeneric() {
+        return this.generic;
+    }
+
+    /**
+
+        @return The names of the rator classes cached at this site
+
+     **/
+    public String getCachedClasses() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < this.size; i++) {
+            builder.append(i == 0 ? "" : ",").append(this.classes[i].getSimpleName());
+        }
+        return builder.toString();
+    }
+
+    public boolean isMegamorphic() {
+        return this.isMegamorphic;
+    }
 }
@@ -1,7 +1,30 @@
 package Symbols;
 
 public class Int extends Rand {
+    private int value;
+
     public Int(String data) {
         super(data);
+        this.value = Integer.parseInt(data);
+    }
+
+    public Int(int value) {
+        super(Integer.toString(value));
+        this.value = value;
+    }
+
+    /**
+
+        @return The integer value, parsed from the data when the Int was created
+
+     **/
+    public int getValue() {
+        return this.value;
+    }
+
+    @Override
+    public void setData(String data) {
+        super.setData(data);
+        this.value = Integer.parseInt(data);
     }
 }
@@ -4,9 +4,10 @@ import java.util.ArrayList;
 
 public class Lambda extends Symbol {
     private int index;
-    private int environment;
+    private E environment;
     public ArrayList<Id> identifiers;
     private Delta delta;
+    private String name;    // Identifier the lambda is bound to by a let or rec, null if anonymous
     
     public Lambda(int i) {
         super("lambda");
@@ -22,11 +23,11 @@ public class Lambda extends Symbol {
         return this.index;
     }
     
-    public void setEnvironment(int n) {
+    public void setEnvironment(E n) {
         this.environment = n;
     }
     
-    public int getEnvironment() {
+    public E getEnvironment() {
         return this.environment;
     }
     
@@ -37,4 +38,27 @@ public class Lambda extends Symbol {
     public Delta getDelta() {
         return this.delta;
     }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+
+        Creates the closure of this lambda over an environment, leaving the lambda
+        in the control untouched so it can be closed over other environments.
+
+     **/
+    public Lambda getClosure(E environment) {
+        Lambda closure = new Lambda(this.index);
+        closure.identifiers = this.identifiers;
+        closure.setDelta(this.delta);
+        closure.setName(this.name);
+        closure.setEnvironment(environment);
+        return closure;
+    }
 }
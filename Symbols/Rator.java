@@ -1,7 +1,22 @@
 package Symbols;
 
 public class Rator extends Symbol {
+    private boolean isTyped = false;
+
     public Rator(String data) {
         super(data);
     }
+
+    /**
+
+        @return Whether type inference proved the rands to be of the types this operator expects
+
+     **/
+    public boolean isTyped() {
+        return this.isTyped;
+    }
+
+    public void setTyped(boolean isTyped) {
+        this.isTyped = isTyped;
+    }
 }
@@ -0,0 +1,52 @@
+package Symbols;
+
+/**
+
+  A suspended computation of the lazy mode: a delta and the environment to evaluate it in.
+  Forced on demand by the CSE machine, which then stores the value so it is computed once.
+
+ **/
+public class Thunk extends Symbol {
+    private Delta delta;
+    private E environment;
+    private Symbol value;
+
+    public Thunk(Delta delta, E environment) {
+        super("thunk");
+        this.delta = delta;
+        this.environment = environment;
+    }
+
+    public Delta getDelta() {
+        return this.delta;
+    }
+
+    public E getEnvironment() {
+        return this.environment;
+    }
+
+    public boolean isForced() {
+        return this.value != null;
+    }
+
+    public Symbol getValue() {
+        return this.value;
+    }
+
+    /**
+
+        Updates the thunk in place with its value and drops the captured delta and
+        environment, which are no longer needed.
+
+     **/
+    public void setValue(Symbol value) {
+        this.value = value;
+        this.delta = null;
+        this.environment = null;
+    }
+
+    @Override
+    public String getData() {
+        return this.isForced() ? this.value.getData() : super.getData();
+    }
+}
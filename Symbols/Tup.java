@@ -1,12 +1,21 @@
 package Symbols;
 
-import java.util.ArrayList;
-
 public class Tup extends Rand {
-    public ArrayList<Symbol> symbols;
+    public TupleList symbols;
     
     public Tup() {
         super("tup");
-        this.symbols = new ArrayList<Symbol>();
+        this.symbols = new TupleList();
+    }
+
+    /**
+
+        @return A tuple of the same components, sharing them until either tuple changes
+
+     **/
+    public Tup share() {
+        Tup tup = new Tup();
+        tup.symbols = this.symbols.share();
+        return tup;
     }
 }
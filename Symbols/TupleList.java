@@ -0,0 +1,144 @@
+package Symbols;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+
+  The components of a tuple. Lists made by share() use the same array as the list they
+  were made from, each seeing the components up to its own size. Only a list as long
+  as the components written to the array appends to it in place; any other change to
+  a list whose array is shared first copies its components into an array of its own.
+  So aug, which shares the components of its rand and appends to them, takes constant
+  time (amortized) when its rand is the longest tuple built on the array, as when a
+  loop builds a tuple up, while the tuples it was built from never change.
+
+ **/
+public class TupleList extends AbstractList<Symbol> implements RandomAccess {
+    private static final int DEFAULT_CAPACITY = 4;
+
+    // An array of components, and how many of them a list has written
+    private static class Store {
+        Symbol[] items;
+        int used = 0;
+        boolean isShared = false;
+
+        Store(int capacity) {
+            this.items = new Symbol[Math.max(capacity, DEFAULT_CAPACITY)];
+        }
+    }
+
+    private Store store;
+    private int size = 0;
+
+    public TupleList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TupleList(int capacity) {
+        this.store = new Store(capacity);
+    }
+
+    private TupleList(Store store, int size) {
+        this.store = store;
+        this.size = size;
+    }
+
+    /**
+
+        @return A list of the same components, sharing this one's array until either changes
+
+     **/
+    public TupleList share() {
+        this.store.isShared = true;
+        return new TupleList(this.store, this.size);
+    }
+
+    @Override
+    public Symbol get(int index) {
+        Objects.checkIndex(index, this.size);
+        return this.store.items[index];
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Symbol set(int index, Symbol symbol) {
+        Objects.checkIndex(index, this.size);
+        this.own();
+        Symbol previous = this.store.items[index];
+        this.store.items[index] = symbol;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Symbol symbol) {
+        Objects.checkIndex(index, this.size + 1);
+        this.modCount++;
+        if (index == this.size) {
+            // Tuples sharing the array may be extended by several threads (-parallel)
+            synchronized (this.store) {
+                if (this.store.used == this.size) {
+                    this.grow(this.size + 1);
+                    this.store.items[this.size++] = symbol;
+                    this.store.used = this.size;
+                    return;
+                }
+            }
+        }
+        this.own();
+        this.grow(this.size + 1);
+        System.arraycopy(this.store.items, index, this.store.items, index + 1, this.size - index);
+        this.store.items[index] = symbol;
+        this.store.used = ++this.size;
+    }
+
+    @Override
+    public Symbol remove(int index) {
+        Objects.checkIndex(index, this.size);
+        this.modCount++;
+        this.own();
+        Symbol previous = this.store.items[index];
+        System.arraycopy(this.store.items, index + 1, this.store.items, index, this.size - index - 1);
+        this.store.items[--this.size] = null;
+        this.store.used = this.size;
+        return previous;
+    }
+
+    /**
+
+        Makes room for the given number of components without growing the array again.
+
+     **/
+    public void ensureCapacity(int capacity) {
+        synchronized (this.store) {
+            if (this.store.used == this.size) {
+                this.grow(capacity);
+                return;
+            }
+        }
+        this.own();
+        this.grow(capacity);
+    }
+
+    // Copies the components into an array of this list's own, if the array is shared
+    private void own() {
+        if (this.store.isShared) {
+            Store store = new Store(this.size);
+            System.arraycopy(this.store.items, 0, store.items, 0, this.size);
+            store.used = this.size;
+            this.store = store;
+        }
+    }
+
+    private void grow(int capacity) {
+        if (capacity > this.store.items.length) {
+            this.store.items = Arrays.copyOf(this.store.items, Math.max(capacity, this.store.items.length * 2));
+        }
+    }
+}
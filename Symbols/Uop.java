@@ -4,4 +4,19 @@ public class Uop extends Rator {
     public Uop(String data) {
         super(data);
     }
+
+    /**
+
+        Applies this operator to a rand known to be of the type it expects, without checks.
+
+        @param rand An Int for neg, a Bool for not
+        @return The result
+
+     **/
+    public Symbol applyTyped(Symbol rand) {
+        if ("neg".equals(this.getData())) {
+            return new Int(-((Int) rand).getValue());
+        }
+        return new Bool(!((Bool) rand).getValue());
+    }
 }
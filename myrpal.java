@@ -2,55 +2,198 @@
 
  This code retrieves command-line arguments passed to the program (e.g., java myrpal -st, -ast, filename),
  and configures the interpreter accordingly by setting the isPrintSt, isPrintAst flags, and the filename (fn).
- 
+ When only the trees are requested the program's Print output is discarded.
+ The -lazy switch evaluates the program call-by-need instead of call-by-value,
+ and -parallel evaluates independent heavy tuple components in parallel.
+ -tiered compiles hot lambdas of the CSE machine in the background, logging them to stderr.
+ -eager builds the whole control of the CSE machine before running instead of as it is reached.
+ -caches writes the hit rates of the CSE machine's inline caches to stderr after the run.
+ -stats writes the time and allocation of each phase, the numbers of tokens, tree nodes and deltas
+ and the steps, stack depths and environments of the CSE machine to stderr after the run.
+ -profile writes the RPAL functions taking the most time on the CSE machine to stderr after the run,
+ and --profile=file also writes the time of each call path to the file as collapsed stacks for flame graphs.
+ -lift lifts local function definitions to the top of the program before evaluating it.
+ -common computes pure expressions repeated in a function body once.
+ -types infers the types of values, reporting type errors before the program runs and
+ applying operators proven to get integer or truth value rands without checks.
+ --bind=name=value specializes the program for a known value of an identifier (a top-level let
+ binding or a free identifier): an integer, true, false, nil, dummy or otherwise a string.
+ --engine=cse|closure|jvm selects the engine, the CSE machine (default), compiled closures or JVM bytecode.
+
 */
 
+import Builtins.BuiltinRegistry;
+import CSE.CSEEngine;
+import CSE.Engine;
 import CSE.Interpreter;
+import CSE.MachineConstructor;
+import CSE.Profiler;
+import CSE.RunStatistics;
+import CSE.Specializer;
+import CSE.Tiering;
+import Closure.ClosureEngine;
+import Jvm.JvmEngine;
+import Output.OutputSink;
+import Standardizer.CommonSubexpressions;
+import Standardizer.LambdaLifter;
+import Standardizer.Pass;
+import Standardizer.TypeInference;
+import Symbols.Bool;
+import Symbols.Dummy;
+import Symbols.Int;
+import Symbols.Str;
+import Symbols.Symbol;
+import Symbols.Tup;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 public class myrpal {
 
+    // Functions listed by -profile
+    private static final int PROFILE_TOP = 20;
+
     public static void main(String[] args) {
-        String fn;
-        boolean isPrintAST=false,isPrintST=false;
-        if(args.length==0){
-            fn = "t1.txt";
-            isPrintAST = true;
-            isPrintST = true;
-            Interpreter.runProgram(fn,isPrintAST,isPrintST);
-        }
-        else if(args.length==3 && (
-                (args[0].equalsIgnoreCase("-ast") && args[1].equalsIgnoreCase("-st")) ||
-                        (args[0].equalsIgnoreCase("-st") && args[1].equalsIgnoreCase("-ast"))
-        )
-        )
-        {
-            fn = args[2];
-            isPrintAST=true;
-            isPrintST=true;
-            Interpreter.runProgram(fn,isPrintAST,isPrintST);
-        }
-        else if(args.length==2){
-            fn=args[1];
-            if(args[0].equalsIgnoreCase("-ast")){
+        BuiltinRegistry registry = BuiltinRegistry.withStandardLibrary();
+        ArrayList<Pass> passes = new ArrayList<Pass>();
+        LinkedHashMap<String, Symbol> bindings = new LinkedHashMap<String, Symbol>();
+        String fn = null, engineName = "cse", profileFile = null;
+        boolean isPrintAST=false,isPrintST=false,isLazy=false,isParallel=false,isTiered=false,isCacheReport=false,isEager=false,isStats=false,isProfile=false;
+        for(int i=0;i<args.length;i++){
+            if(args[i].equalsIgnoreCase("-ast")){
                 isPrintAST=true;
-                Interpreter.runProgram(fn,isPrintAST,isPrintST);
             }
-            else if(args[0].equalsIgnoreCase("-st")){
+            else if(args[i].equalsIgnoreCase("-st")){
                 isPrintST=true;
-                Interpreter.runProgram(fn,isPrintAST,isPrintST);
+            }
+            else if(args[i].equalsIgnoreCase("-lazy")){
+                isLazy=true;
+            }
+            else if(args[i].equalsIgnoreCase("-parallel")){
+                isParallel=true;
+            }
+            else if(args[i].equalsIgnoreCase("-tiered")){
+                isTiered=true;
+            }
+            else if(args[i].equalsIgnoreCase("-eager")){
+                isEager=true;
+            }
+            else if(args[i].equalsIgnoreCase("-caches")){
+                isCacheReport=true;
+            }
+            else if(args[i].equalsIgnoreCase("-stats")){
+                isStats=true;
+            }
+            else if(args[i].equalsIgnoreCase("-profile")){
+                isProfile=true;
+            }
+            else if(args[i].startsWith("--profile=")){
+                isProfile=true;
+                profileFile=args[i].substring("--profile=".length());
+            }
+            else if(args[i].equalsIgnoreCase("-lift")){
+                passes.add(new LambdaLifter());
+            }
+            else if(args[i].equalsIgnoreCase("-common")){
+                passes.add(new CommonSubexpressions(registry));
+            }
+            else if(args[i].equalsIgnoreCase("-types")){
+                passes.add(new TypeInference());
+            }
+            else if(args[i].startsWith("--bind=") && args[i].indexOf('=', "--bind=".length()) > "--bind=".length()){
+                String binding=args[i].substring("--bind=".length());
+                int equals=binding.indexOf('=');
+                bindings.put(binding.substring(0,equals),getValue(binding.substring(equals+1)));
+            }
+            else if(args[i].startsWith("--engine=")){
+                engineName=args[i].substring("--engine=".length());
+            }
+            else if(i==args.length-1 && !args[i].startsWith("-")){
+                fn=args[i];
             }
             else{
                 System.out.println("Invalid Arguments Passing!");
                 return;
             }
         }
-        else if(args.length==1){
-            fn = args[0];
-            System.out.println(Interpreter.runProgram(fn,isPrintAST,isPrintST)); 
+        if(fn==null){
+            if(args.length!=0){
+                System.out.println("Invalid Arguments Passing!");
+                return;
+            }
+            fn = "t1.txt";
+            isPrintAST = true;
+            isPrintST = true;
+        }
+
+        if(!bindings.isEmpty()){
+            // Specialize before any other pass
+            passes.add(0,new Specializer(registry,bindings));
+        }
+        RunStatistics stats = isStats ? new RunStatistics() : null;
+        Profiler profiler = isProfile ? new Profiler() : null;
+        Engine engine;
+        if(engineName.equals("cse") && !(isParallel && isProfile)){
+            CSEEngine cse = new CSEEngine(registry);
+            cse.setLazy(isLazy);
+            cse.setParallel(isParallel, MachineConstructor.DEFAULT_PARALLEL_THRESHOLD);
+            cse.setTiered(isTiered, Tiering.DEFAULT_THRESHOLD, System.err);
+            cse.setCacheReport(isCacheReport ? System.err : null);
+            cse.setEager(isEager);
+            cse.setStats(isStats ? stats.getMachineStats() : null);
+            cse.setProfiler(profiler);
+            engine = cse;
+        }
+        else if(engineName.equals("closure") && !isLazy && !isParallel && !isProfile){
+            engine = new ClosureEngine(registry);
+        }
+        else if(engineName.equals("jvm") && !isLazy && !isParallel && !isProfile){
+            engine = new JvmEngine(registry);
         }
         else{
             System.out.println("Invalid Arguments Passing!");
             return;
-        }                               
+        }
+        if(isPrintAST || isPrintST){
+            Interpreter.runProgram(fn,isPrintAST,isPrintST,engine,OutputSink.memory(),passes,stats);
+        }
+        else{
+            // Print writes the program output as it runs
+            Interpreter.runProgram(fn,isPrintAST,isPrintST,engine,OutputSink.stdout(),passes,stats);
+            System.out.println();
+        }
+        if(isStats){
+            stats.report(System.err,engine instanceof CSEEngine);
+        }
+        if(isProfile){
+            profiler.report(System.err,PROFILE_TOP);
+            if(profileFile!=null){
+                try(Writer writer=new FileWriter(profileFile)){
+                    profiler.writeCollapsed(writer);
+                }
+                catch(IOException e){
+                    System.err.println("Cannot write "+profileFile+": "+e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Value of a --bind switch
+    private static Symbol getValue(String value){
+        if(value.matches("-?[0-9]+")){
+            return new Int(value);
+        }
+        else if(value.equals("true") || value.equals("false")){
+            return new Bool(value);
+        }
+        else if(value.equals("nil")){
+            return new Tup();
+        }
+        else if(value.equals("dummy")){
+            return new Dummy();
+        }
+        return new Str(value);
     }
 }